@@ -3,24 +3,35 @@ package com.example.teamse1csdchcw.cli;
 // -- network utilities --
 import com.example.teamse1csdchcw.service.network.NetworkDiagnostics;  // -- connectivity checks --
 import com.example.teamse1csdchcw.service.network.ProxyConfiguration;  // -- proxy settings mgmt --
+// -- search source health --
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import com.example.teamse1csdchcw.service.connector.ConnectorFactory;
+import com.example.teamse1csdchcw.service.connector.SourceConnector;
+import com.example.teamse1csdchcw.service.search.CircuitBreaker;
+import com.example.teamse1csdchcw.service.search.SearchScheduler;
+import com.example.teamse1csdchcw.service.search.SourceCircuitBreakers;
+import com.example.teamse1csdchcw.service.search.SourceLatencyTracker;
+import com.example.teamse1csdchcw.util.http.RateLimiter;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.net.Proxy;  // -- java.net proxy type enum --
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.concurrent.Callable;
 
 // -- network cmd: diagnostics & proxy config --
 // -- useful for troubleshooting connectivity issues --
-// -- subcommands: diag, proxy, test --
+// -- subcommands: diag, proxy, test, status --
 @Command(
         name = "network",
         description = "Network configuration and diagnostics",
         subcommands = {
                 NetworkCommand.DiagCommand.class,
                 NetworkCommand.ProxyCommand.class,
-                NetworkCommand.TestCommand.class
+                NetworkCommand.TestCommand.class,
+                NetworkCommand.StatusCommand.class
         }
 )
 public class NetworkCommand implements Callable<Integer> {
@@ -28,7 +39,7 @@ public class NetworkCommand implements Callable<Integer> {
     // -- no subcommand = show usage --
     @Override
     public Integer call() throws Exception {
-        System.out.println("Use 'network diag', 'network proxy', or 'network test'");
+        System.out.println("Use 'network diag', 'network proxy', 'network test', or 'network status'");
         return 0;
     }
 
@@ -217,4 +228,58 @@ public class NetworkCommand implements Callable<Integer> {
             return result.reachable ? 0 : 1;
         }
     }
+
+    // -- status subcommand: health of the search sources --
+    // -- circuit breaker state, rate limit & latency per source, scheduler load --
+    // -- state lives in memory, so in the repl it reflects the searches run so far --
+    // -- usage: libsearch network status --
+    @Command(name = "status", description = "Show circuit breaker, rate limit and scheduler status per source")
+    static class StatusCommand implements Callable<Integer> {
+
+        @Override
+        public Integer call() throws Exception {
+            SourceCircuitBreakers breakers = SourceCircuitBreakers.getInstance();
+            SourceLatencyTracker latency = SourceLatencyTracker.getInstance();
+            RateLimiter rateLimiter = RateLimiter.getInstance();
+
+            System.out.println();
+            System.out.println("Source Status:");
+            System.out.println("─".repeat(78));
+            System.out.printf("%-20s %-10s %8s %8s %10s %10s%n",
+                    "Source", "Circuit", "Errors", "Slow", "Rate/s", "p95 (ms)");
+            System.out.println("─".repeat(78));
+
+            for (SourceConnector connector : ConnectorFactory.getInstance().getDefaultAcademicConnectors()) {
+                SourceType type = connector.getSourceType();
+                CircuitBreaker breaker = breakers.get(type);
+
+                // -- p95 needs a minimum number of samples --
+                OptionalLong p95 = latency.percentile(type, 95);
+                String circuit = breaker.getState().name();
+                if (breaker.getState() == CircuitBreaker.State.OPEN) {
+                    circuit += " (" + (breaker.getRemainingOpenMillis() / 1000) + "s)";
+                }
+
+                System.out.printf("%-20s %-10s %7.0f%% %7.0f%% %10.2f %10s%n",
+                        type.getDisplayName(),
+                        circuit,
+                        breaker.getFailureRate() * 100,
+                        breaker.getSlowCallRate() * 100,
+                        rateLimiter.getPermitsPerSecond(connector.getApiHost()),
+                        p95.isPresent() ? String.valueOf(p95.getAsLong()) : "-");
+            }
+
+            System.out.println("─".repeat(78));
+
+            // -- shared scheduler: running vs waiting source calls --
+            SearchScheduler scheduler = SearchScheduler.getInstance();
+            System.out.println("Scheduler: " + scheduler.getInFlightCount() + " running, "
+                    + scheduler.getQueueDepth() + " queued, limit " + scheduler.getMaxConcurrent());
+            if (!breakers.isEnabled()) {
+                System.out.println("Circuit breakers are disabled (search.circuit_breaker.enabled)");
+            }
+
+            return 0;
+        }
+    }
 }
@@ -9,6 +9,7 @@ import com.example.teamse1csdchcw.domain.source.SourceType;      // -- enum: arx
 import com.example.teamse1csdchcw.service.index.LocalSearchService;     // -- lucene local search --
 import com.example.teamse1csdchcw.service.search.FederatedSearchService; // -- multi-source search --
 import com.example.teamse1csdchcw.service.search.QueryParserService;     // -- parse grep-like syntax --
+import com.example.teamse1csdchcw.service.search.SearchResultListener;   // -- per-source streaming callback --
 // -- picocli annotations --
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -16,7 +17,9 @@ import picocli.CommandLine.Parameters;  // -- positional args --
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
@@ -60,6 +63,27 @@ public class SearchCommand implements Callable<Integer> {
             description = "Filter by year (e.g., 2020 or 2018-2024)")
     private String year;
 
+    // -- drill down into the offline index: --facet year=2021 --facet type=Article --
+    @Option(names = {"--facet"},
+            description = "Offline only: restrict to a facet value (source, year, venue, keyword, access, type), "
+                    + "e.g. --facet year=2021")
+    private Map<String, String> facetFilters = new LinkedHashMap<>();
+
+    // -- print hit counts per facet value after the results --
+    @Option(names = {"--show-facets"},
+            description = "Offline only: show result counts per source, year, venue, keyword, access level and type")
+    private boolean showFacets;
+
+    // -- offline sort order, given as the enum constant name --
+    @Option(names = {"--sort"},
+            description = "Offline only: SCORE (default), YEAR, CITATIONS, INDEXED_AT or RELEVANCE")
+    private LocalSearchService.SortOrder sortOrder = LocalSearchService.SortOrder.SCORE;
+
+    // -- continue an offline search where the previous page ended --
+    @Option(names = {"--cursor"},
+            description = "Offline only: continue after the page that printed this cursor")
+    private String cursor;
+
     // -- output format: table (ascii), json, or simple list --
     @Option(names = {"-f", "--format"},
             description = "Output format: table (default), json, simple")
@@ -70,6 +94,15 @@ public class SearchCommand implements Callable<Integer> {
             description = "Save results to database")
     private boolean save = true;
 
+    // -- set once rows were printed while the search was still running --
+    private boolean streamed;
+    // -- running row number for streamed simple output --
+    private int printedRows;
+    // -- facet counts of the last offline search, empty if not requested --
+    private Map<String, Map<String, Integer>> facetCounts = Map.of();
+    // -- cursor to the next offline page, null on the last page --
+    private String nextCursor;
+
     // -- main execution method called by picocli --
     @Override
     public Integer call() throws Exception {
@@ -98,10 +131,19 @@ public class SearchCommand implements Callable<Integer> {
             }
 
             // -- format & print results based on -f flag --
-            printResults(results);
+            // -- streamed output only needs the closing table line --
+            if (!streamed) {
+                printResults(results);
+            } else if (!"simple".equalsIgnoreCase(format)) {
+                System.out.println("─".repeat(120));
+            }
 
             System.out.println();
             System.out.println("Found " + results.size() + " results");
+            printFacets();
+            if (nextCursor != null) {
+                System.out.println("More results: --cursor " + nextCursor);
+            }
 
             return 0;  // -- success --
 
@@ -134,7 +176,20 @@ public class SearchCommand implements Callable<Integer> {
         parseYearFilter(searchQuery);
 
         // -- execute search against lucene index --
-        List<SearchResult> results = localSearch.search(searchQuery, maxResults);
+        // -- faceted search counts facets in the same pass as the hits --
+        List<SearchResult> results;
+        if (showFacets || !facetFilters.isEmpty()) {
+            LocalSearchService.FacetedResults faceted =
+                    localSearch.searchFaceted(searchQuery, facetFilters, sortOrder, cursor, maxResults, 10);
+            results = faceted.getResults();
+            facetCounts = faceted.getFacets();
+            nextCursor = faceted.getCursor();
+        } else {
+            // -- one page of -m results; --cursor continues after the previous page --
+            LocalSearchService.Page page = localSearch.searchPage(searchQuery, sortOrder, cursor, maxResults);
+            results = page.getResults();
+            nextCursor = page.getCursor();
+        }
 
         // -- cleanup resources --
         try {
@@ -178,7 +233,10 @@ public class SearchCommand implements Callable<Integer> {
         // -- set limit per source (total = sources * maxResults) --
         searchService.setMaxResultsPerSource(maxResults);
         // -- execute parallel search across all sources --
-        List<SearchResult> results = searchService.search(searchQuery, sources);
+        // -- json needs the full list, other formats print rows as each source answers --
+        boolean streaming = !"json".equalsIgnoreCase(format);
+        List<SearchResult> results = searchService.searchStreaming(searchQuery, sources,
+                streaming ? new StreamingPrinter() : null).get();
 
         // -- cleanup (close http clients, executors) --
         searchService.shutdown();
@@ -211,6 +269,20 @@ public class SearchCommand implements Callable<Integer> {
         }
     }
 
+    // -- one line per facet dimension: "year: 2021 (12), 2020 (7)" --
+    private void printFacets() {
+        if (!showFacets || facetCounts.isEmpty()) {
+            return;
+        }
+        System.out.println();
+        facetCounts.forEach((dimension, counts) -> {
+            StringBuilder line = new StringBuilder(dimension).append(": ");
+            counts.forEach((value, count) -> line.append(value).append(" (").append(count).append("), "));
+            line.setLength(line.length() - 2);
+            System.out.println(line);
+        });
+    }
+
     // -- dispatch to correct formatter based on -f flag --
     private void printResults(List<SearchResult> results) {
         switch (format.toLowerCase()) {
@@ -229,54 +301,98 @@ public class SearchCommand implements Callable<Integer> {
 
     // -- ascii table format w/ columns --
     private void printTableFormat(List<SearchResult> results) {
+        printTableHeader();
+
+        // -- print each result as a row --
+        for (SearchResult result : results) {
+            printTableRow(result);
+        }
+
+        System.out.println("─".repeat(120));
+    }
+
+    // -- header row of the ascii table --
+    private void printTableHeader() {
         System.out.println();
-        // -- print header row --
         System.out.println("─".repeat(120));  // -- unicode box drawing char --
         System.out.printf("%-60s %-20s %-10s %-30s%n", "TITLE", "AUTHORS", "YEAR", "SOURCE");
         System.out.println("─".repeat(120));
+    }
 
-        // -- print each result as a row --
-        for (SearchResult result : results) {
-            String title = truncate(result.getTitle(), 60);
-            String authors = "";
-            String year = "";
-            String source = result.getSource().getDisplayName();
-
-            // -- academicpaper has extra fields (authors, date) --
-            // -- pattern matching: "instanceof Type var" --
-            if (result instanceof AcademicPaper paper) {
-                authors = truncate(paper.getAuthors(), 20);
-                if (paper.getPublicationDate() != null) {
-                    year = String.valueOf(paper.getPublicationDate().getYear());
-                }
+    // -- one result as a table row --
+    private void printTableRow(SearchResult result) {
+        String title = truncate(result.getTitle(), 60);
+        String authors = "";
+        String year = "";
+        String source = result.getSource().getDisplayName();
+
+        // -- academicpaper has extra fields (authors, date) --
+        // -- pattern matching: "instanceof Type var" --
+        if (result instanceof AcademicPaper paper) {
+            authors = truncate(paper.getAuthors(), 20);
+            if (paper.getPublicationDate() != null) {
+                year = String.valueOf(paper.getPublicationDate().getYear());
             }
-
-            System.out.printf("%-60s %-20s %-10s %-30s%n", title, authors, year, source);
         }
 
-        System.out.println("─".repeat(120));
+        System.out.printf("%-60s %-20s %-10s %-30s%n", title, authors, year, source);
     }
 
     // -- simple numbered list format --
     private void printSimpleFormat(List<SearchResult> results) {
         for (int i = 0; i < results.size(); i++) {
-            SearchResult result = results.get(i);
-            System.out.println((i + 1) + ". " + result.getTitle());
+            printSimpleEntry(i + 1, results.get(i));
+        }
+    }
 
-            // -- print extra details for academic papers --
-            if (result instanceof AcademicPaper paper) {
-                if (paper.getAuthors() != null) {
-                    System.out.println("   Authors: " + paper.getAuthors());
-                }
-                if (paper.getPublicationDate() != null) {
-                    System.out.println("   Year: " + paper.getPublicationDate().getYear());
-                }
-                if (paper.getUrl() != null) {
-                    System.out.println("   URL: " + paper.getUrl());
+    // -- one numbered entry of the simple list --
+    private void printSimpleEntry(int number, SearchResult result) {
+        System.out.println(number + ". " + result.getTitle());
+
+        // -- print extra details for academic papers --
+        if (result instanceof AcademicPaper paper) {
+            if (paper.getAuthors() != null) {
+                System.out.println("   Authors: " + paper.getAuthors());
+            }
+            if (paper.getPublicationDate() != null) {
+                System.out.println("   Year: " + paper.getPublicationDate().getYear());
+            }
+            if (paper.getUrl() != null) {
+                System.out.println("   URL: " + paper.getUrl());
+            }
+        }
+
+        System.out.println();
+    }
+
+    // -- prints new rows as soon as a source answers (duplicates already merged away) --
+    // -- callbacks are serialized by FederatedSearchService, no locking needed here --
+    private class StreamingPrinter implements SearchResultListener {
+
+        @Override
+        public void onSourceCompleted(SourceType source, List<SearchResult> newResults,
+                                      List<SearchResult> aggregated, long durationMs) {
+            if (newResults.isEmpty()) {
+                return;
+            }
+            boolean simple = "simple".equalsIgnoreCase(format);
+            if (!streamed && !simple) {
+                printTableHeader();
+            }
+            streamed = true;
+
+            for (SearchResult result : newResults) {
+                if (simple) {
+                    printSimpleEntry(++printedRows, result);
+                } else {
+                    printTableRow(result);
                 }
             }
+        }
 
-            System.out.println();
+        @Override
+        public void onSourceFailed(SourceType source, Exception error) {
+            System.err.println("Warning: " + source.getDisplayName() + " failed: " + error.getMessage());
         }
     }
 
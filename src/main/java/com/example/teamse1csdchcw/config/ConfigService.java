@@ -201,6 +201,24 @@ public class ConfigService {
         return defaultValue;
     }
 
+    /**
+     * Gets a double value.
+     */
+    public double getDouble(String path, double defaultValue) {
+        Object value = get(path, defaultValue);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Gets a boolean value.
      */
@@ -3,6 +3,7 @@ package com.example.teamse1csdchcw.domain.search;
 import com.example.teamse1csdchcw.domain.source.SourceType;
 // -- java 8+ date (no time component) --
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -98,6 +99,24 @@ public class AcademicPaper extends SearchResult {
     public String getPdfUrl() { return pdfUrl; }
     public void setPdfUrl(String pdfUrl) { this.pdfUrl = pdfUrl; }
 
+    // -- copy incl. scholarly fields, keyword list is duplicated --
+    @Override
+    public AcademicPaper copy() {
+        AcademicPaper copy = new AcademicPaper();
+        copyFieldsTo(copy);
+        copy.doi = doi;
+        copy.arxivId = arxivId;
+        copy.pmid = pmid;
+        copy.abstractText = abstractText;
+        copy.publicationDate = publicationDate;
+        copy.journal = journal;
+        copy.venue = venue;
+        copy.keywords = keywords != null ? new ArrayList<>(keywords) : null;
+        copy.citationCount = citationCount;
+        copy.pdfUrl = pdfUrl;
+        return copy;
+    }
+
     // -- toString for debugging: includes key metadata --
     @Override
     public String toString() {
@@ -0,0 +1,90 @@
+package com.example.teamse1csdchcw.domain.search;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Enum representing the kind of publication a paper appeared in.
+ * Sources don't report this consistently, so it is guessed from venue, journal and title.
+ */
+public enum PublicationType {
+    // journal articles & letters
+    ARTICLE("Article"),
+
+    // conference / workshop proceedings
+    CONFERENCE("Conference"),
+
+    // phd theses & dissertations
+    THESIS("Thesis"),
+
+    // books & book chapters
+    BOOK("Book");
+
+    // human-readable label, same as the type filter in the ui
+    private final String displayName;
+
+    PublicationType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Check whether a paper looks like this type of publication.
+     */
+    public boolean matches(AcademicPaper paper) {
+        String venue = lower(paper.getVenue());
+        String journal = lower(paper.getJournal());
+
+        return switch (this) {
+            case ARTICLE -> journal.contains("journal") || journal.contains("transactions")
+                    || venue.contains("journal") || venue.contains("article") || venue.contains("letter");
+            case CONFERENCE -> venue.contains("conference") || venue.contains("proceedings")
+                    || venue.contains("symposium") || venue.contains("workshop");
+            case THESIS -> {
+                String title = lower(paper.getTitle());
+                yield title.contains("thesis") || title.contains("dissertation")
+                        || venue.contains("thesis") || venue.contains("dissertation");
+            }
+            case BOOK -> venue.contains("book") || journal.contains("book")
+                    || venue.contains("chapter") || venue.contains("textbook");
+        };
+    }
+
+    /**
+     * All types a paper matches - may be none, or more than one for vague venue names.
+     */
+    public static Set<PublicationType> of(AcademicPaper paper) {
+        Set<PublicationType> types = EnumSet.noneOf(PublicationType.class);
+        for (PublicationType type : values()) {
+            if (type.matches(paper)) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Look up a type by display name or constant name, case-insensitive.
+     *
+     * @return the type, or null for "All Types" and unknown names
+     */
+    public static PublicationType fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (PublicationType type : values()) {
+            if (type.displayName.equalsIgnoreCase(name.trim()) || type.name().equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+}
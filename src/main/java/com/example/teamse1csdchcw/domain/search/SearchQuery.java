@@ -3,6 +3,8 @@ package com.example.teamse1csdchcw.domain.search;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 /**
  * Represents a parsed search query with filters and operators.
@@ -100,6 +102,59 @@ public class SearchQuery {
         return sb.toString().trim();
     }
 
+    /**
+     * Normalized form of the query, used as a cache and request-coalescing key.
+     * Terms are case folded and sorted, so queries differing only in term order
+     * or case map to the same string. The original input text is not part of it.
+     */
+    public String toCanonicalString() {
+        StringBuilder sb = new StringBuilder();
+
+        // one section per term list - section names keep lists apart
+        appendTerms(sb, "k", keywords);
+        appendTerms(sb, "req", requiredTerms);
+        appendTerms(sb, "opt", optionalTerms);
+        appendTerms(sb, "not", excludedTerms);
+        appendTerms(sb, "phrase", phrases);
+
+        // filters in fixed order, only when set
+        appendFilter(sb, "author", authorFilter);
+        appendFilter(sb, "from", yearFrom);
+        appendFilter(sb, "to", yearTo);
+        appendFilter(sb, "type", typeFilter);
+        appendFilter(sb, "site", siteFilter);
+        appendFilter(sb, "filetype", filetypeFilter);
+        appendFilter(sb, "after", dateAfter);
+        appendFilter(sb, "before", dateBefore);
+
+        return sb.toString();
+    }
+
+    // sorted, lowercased, trimmed & deduplicated terms
+    private static void appendTerms(StringBuilder sb, String name, List<String> terms) {
+        if (terms == null || terms.isEmpty()) {
+            return;
+        }
+        String joined = terms.stream()
+                .filter(t -> t != null && !t.isBlank())
+                .map(t -> t.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " "))
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+        if (!joined.isEmpty()) {
+            sb.append(name).append('=').append(joined).append(';');
+        }
+    }
+
+    private static void appendFilter(StringBuilder sb, String name, Object value) {
+        if (value == null || value.toString().isBlank()) {
+            return;
+        }
+        sb.append(name).append('=')
+                .append(value.toString().trim().toLowerCase(Locale.ROOT))
+                .append(';');
+    }
+
     // getters/setters - standard java bean pattern for property access
     public String getOriginalQuery() { return originalQuery; }
     public void setOriginalQuery(String originalQuery) { this.originalQuery = originalQuery; }
@@ -81,6 +81,26 @@ public class SearchResult {
     public double getRelevance() { return relevance; }
     public void setRelevance(double relevance) { this.relevance = relevance; }
 
+    // -- field-by-field copy: lets several searches share one fetch w/o sharing objects --
+    public SearchResult copy() {
+        SearchResult copy = new SearchResult();
+        copyFieldsTo(copy);
+        return copy;
+    }
+
+    // -- copies the base fields, used by subclasses' copy() --
+    protected void copyFieldsTo(SearchResult target) {
+        target.id = id;
+        target.title = title;
+        target.authors = authors;
+        target.url = url;
+        target.snippet = snippet;
+        target.source = source;
+        target.accessLevel = accessLevel;
+        target.timestamp = timestamp;
+        target.relevance = relevance;
+    }
+
     // -- equals/hashCode for collections & deduplication --
     // -- two results are equal if same id OR same url --
     @Override
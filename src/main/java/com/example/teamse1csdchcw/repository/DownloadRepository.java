@@ -53,6 +53,25 @@ public class DownloadRepository {
         // error details if download failed
         private String errorMessage;
 
+        // bytes already in the partial file - what a resume skips
+        private long bytesDownloaded;
+
+        // etag or last-modified of the remote file, sent as If-Range when resuming
+        private String validator;
+
+        // byte ranges fetched in parallel and their progress, null when not started or done
+        private String segments;
+
+        // doi of the paper, null if unknown - indexes the stored file next to the result id
+        private String doi;
+
+        // sha-256 of the completed file, its key in the content-addressed pdf store
+        private String sha256;
+
+        // queue order - higher priority first, then oldest queuedAt first
+        private int priority;
+        private LocalDateTime queuedAt;
+
         /** download lifecycle states */
         public enum DownloadStatus {
             PENDING,       // queued, not started yet
@@ -82,6 +101,20 @@ public class DownloadRepository {
         public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
         public String getErrorMessage() { return errorMessage; }
         public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+        public long getBytesDownloaded() { return bytesDownloaded; }
+        public void setBytesDownloaded(long bytesDownloaded) { this.bytesDownloaded = bytesDownloaded; }
+        public String getValidator() { return validator; }
+        public void setValidator(String validator) { this.validator = validator; }
+        public String getSegments() { return segments; }
+        public void setSegments(String segments) { this.segments = segments; }
+        public String getDoi() { return doi; }
+        public void setDoi(String doi) { this.doi = doi; }
+        public String getSha256() { return sha256; }
+        public void setSha256(String sha256) { this.sha256 = sha256; }
+        public int getPriority() { return priority; }
+        public void setPriority(int priority) { this.priority = priority; }
+        public LocalDateTime getQueuedAt() { return queuedAt; }
+        public void setQueuedAt(LocalDateTime queuedAt) { this.queuedAt = queuedAt; }
     }
 
     /**
@@ -94,14 +127,23 @@ public class DownloadRepository {
         // ON CONFLICT handles race conditions gracefully
         String sql = """
             INSERT INTO downloads (id, result_id, url, destination_path, status, progress,
-                                   file_size, started_at, completed_at, error_message)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                                   file_size, started_at, completed_at, error_message,
+                                   bytes_downloaded, validator, segments, doi, sha256, priority, queued_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             ON CONFLICT(id) DO UPDATE SET
+                destination_path = excluded.destination_path,
                 status = excluded.status,
                 progress = excluded.progress,
+                started_at = excluded.started_at,
                 file_size = excluded.file_size,
                 completed_at = excluded.completed_at,
-                error_message = excluded.error_message
+                error_message = excluded.error_message,
+                bytes_downloaded = excluded.bytes_downloaded,
+                validator = excluded.validator,
+                segments = excluded.segments,
+                sha256 = excluded.sha256,
+                priority = excluded.priority,
+                queued_at = excluded.queued_at
             """;
 
         // try-with-resources ensures conn/stmt closed even on exception
@@ -128,6 +170,14 @@ public class DownloadRepository {
             stmt.setTimestamp(9, download.getCompletedAt() != null ?
                     Timestamp.valueOf(download.getCompletedAt()) : null);
             stmt.setString(10, download.getErrorMessage());
+            stmt.setLong(11, download.getBytesDownloaded());
+            stmt.setString(12, download.getValidator());
+            stmt.setString(13, download.getSegments());
+            stmt.setString(14, download.getDoi());
+            stmt.setString(15, download.getSha256());
+            stmt.setInt(16, download.getPriority());
+            stmt.setTimestamp(17, download.getQueuedAt() != null ?
+                    Timestamp.valueOf(download.getQueuedAt()) : null);
 
             // execute insert/update
             stmt.executeUpdate();
@@ -166,14 +216,71 @@ public class DownloadRepository {
     }
 
     /**
-     * find all downloads waiting to start
-     * ordered by start time - fifo queue
+     * find all downloads waiting to start, in queue order
+     * highest priority first, fifo by queue time within a priority
      */
     public List<Download> findPending() throws SQLException {
-        String sql = "SELECT * FROM downloads WHERE status = 'PENDING' ORDER BY started_at ASC";
+        String sql = "SELECT * FROM downloads WHERE status = 'PENDING' ORDER BY priority DESC, queued_at ASC, rowid ASC";
         return findByQuery(sql);
     }
 
+    /**
+     * atomically move a pending download to IN_PROGRESS
+     * returns false if the row is no longer pending (cancelled, deleted or claimed already)
+     */
+    public boolean claim(String id, LocalDateTime startedAt) throws SQLException {
+        String sql = "UPDATE downloads SET status = 'IN_PROGRESS', started_at = ? WHERE id = ? AND status = 'PENDING'";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(startedAt));
+            stmt.setString(2, id);
+            return stmt.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            logger.error("Failed to claim download", e);
+            throw e;
+        }
+    }
+
+    /**
+     * change the priority of a download that is still queued
+     * conditional like claim(), so it never touches a row the scheduler just started
+     * returns false if the download is no longer PENDING
+     */
+    public boolean updatePriority(String id, int priority) throws SQLException {
+        String sql = "UPDATE downloads SET priority = ? WHERE id = ? AND status = 'PENDING'";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, priority);
+            stmt.setString(2, id);
+            return stmt.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            logger.error("Failed to update download priority", e);
+            throw e;
+        }
+    }
+
+    /**
+     * put downloads left IN_PROGRESS by a crash or forced exit back in the queue
+     * their saved segments let them resume. returns number of rows requeued
+     */
+    public int requeueInProgress() throws SQLException {
+        String sql = "UPDATE downloads SET status = 'PENDING' WHERE status = 'IN_PROGRESS'";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            return stmt.executeUpdate(sql);
+        } catch (SQLException e) {
+            logger.error("Failed to requeue interrupted downloads", e);
+            throw e;
+        }
+    }
+
     /**
      * find downloads currently in progress
      * used for resume/monitoring
@@ -269,6 +376,17 @@ public class DownloadRepository {
         }
 
         download.setErrorMessage(rs.getString("error_message"));
+        download.setBytesDownloaded(rs.getLong("bytes_downloaded"));
+        download.setValidator(rs.getString("validator"));
+        download.setSegments(rs.getString("segments"));
+        download.setDoi(rs.getString("doi"));
+        download.setSha256(rs.getString("sha256"));
+        download.setPriority(rs.getInt("priority"));
+
+        Timestamp queuedAt = rs.getTimestamp("queued_at");
+        if (queuedAt != null) {
+            download.setQueuedAt(queuedAt.toLocalDateTime());
+        }
 
         return download;
     }
@@ -0,0 +1,168 @@
+package com.example.teamse1csdchcw.repository;
+
+import com.example.teamse1csdchcw.repository.sqlite.SQLiteConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.Collection;
+
+/**
+ * repository layer - index of the content-addressed pdf store
+ * pdf_blobs holds one row per stored file, pdf_blob_refs maps doi / result id / url keys to it
+ */
+public class PdfBlobRepository {
+    private static final Logger logger = LoggerFactory.getLogger(PdfBlobRepository.class);
+
+    /**
+     * inner class representing one stored pdf
+     */
+    public static class Blob {
+        // lower-case hex sha-256 of the file
+        private final String sha256;
+
+        // file size in bytes
+        private final long size;
+
+        // epoch millis when first stored
+        private final long storedAt;
+
+        public Blob(String sha256, long size, long storedAt) {
+            this.sha256 = sha256;
+            this.size = size;
+            this.storedAt = storedAt;
+        }
+
+        public String getSha256() { return sha256; }
+        public long getSize() { return size; }
+        public long getStoredAt() { return storedAt; }
+    }
+
+    /**
+     * record a stored file - keeps the original row if the blob is already known
+     */
+    public void saveBlob(Blob blob) throws SQLException {
+        String sql = """
+            INSERT INTO pdf_blobs (sha256, size, stored_at)
+            VALUES (?, ?, ?)
+            ON CONFLICT(sha256) DO NOTHING
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, blob.getSha256());
+            stmt.setLong(2, blob.getSize());
+            stmt.setLong(3, blob.getStoredAt());
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to save pdf blob", e);
+            throw e;
+        }
+    }
+
+    /**
+     * point each key at a stored file, replacing what the key pointed at before
+     */
+    public void saveRefs(Collection<String> keys, String sha256) throws SQLException {
+        String sql = """
+            INSERT INTO pdf_blob_refs (ref_key, sha256, created_at)
+            VALUES (?, ?, ?)
+            ON CONFLICT(ref_key) DO UPDATE SET
+                sha256 = excluded.sha256,
+                created_at = excluded.created_at
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            long now = System.currentTimeMillis();
+            for (String key : keys) {
+                stmt.setString(1, key);
+                stmt.setString(2, sha256);
+                stmt.setLong(3, now);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+        } catch (SQLException e) {
+            logger.error("Failed to save pdf blob references", e);
+            throw e;
+        }
+    }
+
+    /**
+     * find the stored file the first matching key points at
+     * keys are tried in order, returns null if none is known
+     */
+    public Blob findByKeys(Collection<String> keys) throws SQLException {
+        String sql = """
+            SELECT b.* FROM pdf_blob_refs r
+            JOIN pdf_blobs b ON b.sha256 = r.sha256
+            WHERE r.ref_key = ?
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (String key : keys) {
+                stmt.setString(1, key);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapResultSet(rs);
+                    }
+                }
+            }
+            return null;
+
+        } catch (SQLException e) {
+            logger.error("Failed to find pdf blob", e);
+            throw e;
+        }
+    }
+
+    /**
+     * find a stored file by its hash, null if not stored
+     */
+    public Blob findBySha256(String sha256) throws SQLException {
+        String sql = "SELECT * FROM pdf_blobs WHERE sha256 = ?";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, sha256);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResultSet(rs) : null;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to find pdf blob by hash", e);
+            throw e;
+        }
+    }
+
+    /**
+     * forget a stored file and everything pointing at it
+     * used when the file is missing or fails its checksum
+     */
+    public void deleteBlob(String sha256) throws SQLException {
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement refs = conn.prepareStatement("DELETE FROM pdf_blob_refs WHERE sha256 = ?");
+             PreparedStatement blobs = conn.prepareStatement("DELETE FROM pdf_blobs WHERE sha256 = ?")) {
+
+            refs.setString(1, sha256);
+            refs.executeUpdate();
+            blobs.setString(1, sha256);
+            blobs.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to delete pdf blob", e);
+            throw e;
+        }
+    }
+
+    private Blob mapResultSet(ResultSet rs) throws SQLException {
+        return new Blob(rs.getString("sha256"), rs.getLong("size"), rs.getLong("stored_at"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.teamse1csdchcw.repository;
+
+import com.example.teamse1csdchcw.repository.sqlite.SQLiteConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * repository layer - persistent tier of the doi -> pdf link resolution cache
+ * stores one row per doi, including dois that could not be resolved
+ */
+public class PdfResolutionRepository {
+    private static final Logger logger = LoggerFactory.getLogger(PdfResolutionRepository.class);
+
+    /**
+     * inner class representing one cached resolution
+     */
+    public static class CachedResolution {
+        // lower-case doi
+        private final String doi;
+
+        // resolved pdf link, null when the doi could not be resolved
+        private final String pdfUrl;
+
+        // name of the strategy that found the link, null for misses
+        private final String strategy;
+
+        // epoch millis when the lookup ran
+        private final long resolvedAt;
+
+        public CachedResolution(String doi, String pdfUrl, String strategy, long resolvedAt) {
+            this.doi = doi;
+            this.pdfUrl = pdfUrl;
+            this.strategy = strategy;
+            this.resolvedAt = resolvedAt;
+        }
+
+        public String getDoi() { return doi; }
+        public String getPdfUrl() { return pdfUrl; }
+        public String getStrategy() { return strategy; }
+        public long getResolvedAt() { return resolvedAt; }
+        public boolean isResolved() { return pdfUrl != null; }
+    }
+
+    /**
+     * insert or replace the resolution for a doi
+     */
+    public void save(CachedResolution entry) throws SQLException {
+        String sql = """
+            INSERT INTO pdf_resolution_cache (doi, pdf_url, strategy, resolved_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT(doi) DO UPDATE SET
+                pdf_url = excluded.pdf_url,
+                strategy = excluded.strategy,
+                resolved_at = excluded.resolved_at
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, entry.getDoi());
+            stmt.setString(2, entry.getPdfUrl());
+            stmt.setString(3, entry.getStrategy());
+            stmt.setLong(4, entry.getResolvedAt());
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to save pdf resolution", e);
+            throw e;
+        }
+    }
+
+    /**
+     * find the cached resolution for a doi
+     * returns null if not cached
+     */
+    public CachedResolution findByDoi(String doi) throws SQLException {
+        String sql = "SELECT * FROM pdf_resolution_cache WHERE doi = ?";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, doi);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new CachedResolution(
+                            rs.getString("doi"),
+                            rs.getString("pdf_url"),
+                            rs.getString("strategy"),
+                            rs.getLong("resolved_at"));
+                }
+                return null;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to find pdf resolution", e);
+            throw e;
+        }
+    }
+
+    /**
+     * delete expired entries - hits and misses have separate cutoffs
+     * returns number of rows removed
+     */
+    public int deleteExpired(long hitCutoffMillis, long missCutoffMillis) throws SQLException {
+        String sql = """
+            DELETE FROM pdf_resolution_cache
+            WHERE (pdf_url IS NOT NULL AND resolved_at < ?)
+               OR (pdf_url IS NULL AND resolved_at < ?)
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, hitCutoffMillis);
+            stmt.setLong(2, missCutoffMillis);
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to purge pdf resolution cache", e);
+            throw e;
+        }
+    }
+
+    /**
+     * remove all cached resolutions
+     */
+    public void deleteAll() throws SQLException {
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM pdf_resolution_cache");
+        } catch (SQLException e) {
+            logger.error("Failed to clear pdf resolution cache", e);
+            throw e;
+        }
+    }
+}
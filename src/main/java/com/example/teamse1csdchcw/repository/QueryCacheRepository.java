@@ -0,0 +1,133 @@
+package com.example.teamse1csdchcw.repository;
+
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import com.example.teamse1csdchcw.repository.sqlite.SQLiteConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * repository layer - persistent tier of the federated search result cache
+ * stores serialized per-source result lists keyed by source + canonical query
+ */
+public class QueryCacheRepository {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCacheRepository.class);
+
+    /**
+     * inner class representing one cached result list
+     */
+    public static class CachedPayload {
+        // source|max results|canonical query
+        private final String cacheKey;
+
+        // which api the results came from
+        private final SourceType source;
+
+        // json array of results
+        private final String payload;
+
+        // epoch millis when the results were fetched
+        private final long createdAt;
+
+        public CachedPayload(String cacheKey, SourceType source, String payload, long createdAt) {
+            this.cacheKey = cacheKey;
+            this.source = source;
+            this.payload = payload;
+            this.createdAt = createdAt;
+        }
+
+        public String getCacheKey() { return cacheKey; }
+        public SourceType getSource() { return source; }
+        public String getPayload() { return payload; }
+        public long getCreatedAt() { return createdAt; }
+    }
+
+    /**
+     * insert or replace the cached results for a key
+     */
+    public void save(CachedPayload entry) throws SQLException {
+        String sql = """
+            INSERT INTO query_cache (cache_key, source, payload, created_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT(cache_key) DO UPDATE SET
+                payload = excluded.payload,
+                created_at = excluded.created_at
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, entry.getCacheKey());
+            stmt.setString(2, entry.getSource().name());
+            stmt.setString(3, entry.getPayload());
+            stmt.setLong(4, entry.getCreatedAt());
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to save cached query", e);
+            throw e;
+        }
+    }
+
+    /**
+     * find cached results by key
+     * returns null if not cached
+     */
+    public CachedPayload findByKey(String cacheKey) throws SQLException {
+        String sql = "SELECT * FROM query_cache WHERE cache_key = ?";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, cacheKey);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new CachedPayload(
+                            rs.getString("cache_key"),
+                            SourceType.valueOf(rs.getString("source")),
+                            rs.getString("payload"),
+                            rs.getLong("created_at"));
+                }
+                return null;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to find cached query", e);
+            throw e;
+        }
+    }
+
+    /**
+     * delete entries fetched before the cutoff
+     * returns number of rows removed
+     */
+    public int deleteOlderThan(long cutoffMillis) throws SQLException {
+        String sql = "DELETE FROM query_cache WHERE created_at < ?";
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, cutoffMillis);
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to purge query cache", e);
+            throw e;
+        }
+    }
+
+    /**
+     * remove all cached queries
+     */
+    public void deleteAll() throws SQLException {
+        try (Connection conn = SQLiteConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM query_cache");
+        } catch (SQLException e) {
+            logger.error("Failed to clear query cache", e);
+            throw e;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,6 +32,10 @@ public class SearchResultRepository {
 
     /**
      * Save a search result.
+     * Results are keyed by their canonical id (see ResultAggregator), so a paper found
+     * again updates its row and moves to the latest session instead of adding a copy.
+     * A stored direct PDF link (e.g. from enrichment) is kept over a doi.org link,
+     * the same rule as {@link #updateEnrichedMetadata}.
      */
     public void save(SearchResult result, String sessionId) throws SQLException {
         String sql = """
@@ -40,10 +45,19 @@ public class SearchResultRepository {
              journal, venue, keywords, citation_count, pdf_url, timestamp)
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             ON CONFLICT(id) DO UPDATE SET
+                session_id = excluded.session_id,
                 relevance = excluded.relevance,
                 access_level = excluded.access_level,
-                citation_count = excluded.citation_count,
-                pdf_url = excluded.pdf_url
+                doi = COALESCE(search_results.doi, excluded.doi),
+                arxiv_id = COALESCE(search_results.arxiv_id, excluded.arxiv_id),
+                pmid = COALESCE(search_results.pmid, excluded.pmid),
+                abstract_text = COALESCE(search_results.abstract_text, excluded.abstract_text),
+                citation_count = MAX(COALESCE(search_results.citation_count, 0), excluded.citation_count),
+                pdf_url = CASE WHEN search_results.pdf_url IS NULL OR search_results.pdf_url = ''
+                                    OR search_results.pdf_url LIKE '%doi.org/%'
+                               THEN COALESCE(excluded.pdf_url, search_results.pdf_url)
+                               ELSE search_results.pdf_url END,
+                timestamp = excluded.timestamp
             """;
 
         try (Connection conn = SQLiteConnection.getInstance().getConnection();
@@ -108,10 +122,19 @@ public class SearchResultRepository {
          journal, venue, keywords, citation_count, pdf_url, timestamp)
         VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         ON CONFLICT(id) DO UPDATE SET
+            session_id = excluded.session_id,
             relevance = excluded.relevance,
             access_level = excluded.access_level,
-            citation_count = excluded.citation_count,
-            pdf_url = excluded.pdf_url
+            doi = COALESCE(search_results.doi, excluded.doi),
+            arxiv_id = COALESCE(search_results.arxiv_id, excluded.arxiv_id),
+            pmid = COALESCE(search_results.pmid, excluded.pmid),
+            abstract_text = COALESCE(search_results.abstract_text, excluded.abstract_text),
+            citation_count = MAX(COALESCE(search_results.citation_count, 0), excluded.citation_count),
+            pdf_url = CASE WHEN search_results.pdf_url IS NULL OR search_results.pdf_url = ''
+                                OR search_results.pdf_url LIKE '%doi.org/%'
+                           THEN COALESCE(excluded.pdf_url, search_results.pdf_url)
+                           ELSE search_results.pdf_url END,
+            timestamp = excluded.timestamp
         """;
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -193,6 +216,59 @@ public class SearchResultRepository {
     }
 
 
+    /**
+     * Write enriched metadata to every stored result with the same DOI.
+     * Only gaps are filled: an existing abstract or direct PDF link is kept,
+     * and the citation count only goes up.
+     *
+     * @return number of rows updated
+     */
+    public int updateEnrichedMetadata(Collection<AcademicPaper> papers) throws SQLException {
+        String sql = """
+            UPDATE search_results SET
+                abstract_text = CASE WHEN abstract_text IS NULL OR abstract_text = ''
+                                     THEN COALESCE(?, abstract_text) ELSE abstract_text END,
+                snippet = CASE WHEN snippet IS NULL OR snippet = '' OR snippet = title
+                               THEN COALESCE(?, snippet) ELSE snippet END,
+                citation_count = MAX(COALESCE(citation_count, 0), ?),
+                pdf_url = CASE WHEN pdf_url IS NULL OR pdf_url = '' OR pdf_url LIKE '%doi.org/%'
+                               THEN COALESCE(?, pdf_url) ELSE pdf_url END
+            WHERE doi = ?
+            """;
+
+        try (Connection conn = SQLiteConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (AcademicPaper paper : papers) {
+                    stmt.setString(1, paper.getAbstractText());
+                    stmt.setString(2, paper.getAbstractText() != null ? paper.getSnippet() : null);
+                    stmt.setInt(3, paper.getCitationCount());
+                    stmt.setString(4, paper.getPdfUrl());
+                    stmt.setString(5, paper.getDoi());
+                    stmt.addBatch();
+                }
+
+                int updated = 0;
+                for (int count : stmt.executeBatch()) {
+                    updated += Math.max(count, 0);
+                }
+                conn.commit();
+                logger.debug("Updated {} stored results from {} enriched papers", updated, papers.size());
+                return updated;
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Failed to rollback transaction", ex);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
     /**
      * Find results by session ID.
      */
@@ -8,6 +8,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,24 @@ public class DatabaseInitializer {
     // loaded from classpath during runtime
     private static final String SCHEMA_FILE = "/db/schema.sql";
 
+    // columns added to existing tables after their first release
+    // CREATE TABLE IF NOT EXISTS skips tables that exist, so older dbs get these via ALTER TABLE
+    // each entry: table, column, column definition
+    private static final String[][] ADDED_COLUMNS = {
+            {"downloads", "bytes_downloaded", "INTEGER DEFAULT 0"},
+            {"downloads", "validator", "TEXT"},
+            {"downloads", "segments", "TEXT"},
+            {"downloads", "doi", "TEXT"},
+            {"downloads", "sha256", "TEXT"},
+            {"downloads", "priority", "INTEGER DEFAULT 0"},
+            {"downloads", "queued_at", "TIMESTAMP"}
+    };
+
+    // indexes on ADDED_COLUMNS - created after the migration, schema.sql runs before the columns exist
+    private static final String[] ADDED_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_downloads_queue ON downloads(status, priority, queued_at)"
+    };
+
     // reference to singleton db connection
     private final SQLiteConnection sqliteConnection;
 
@@ -67,6 +87,11 @@ public class DatabaseInitializer {
                     }
                 }
 
+                addMissingColumns(conn);
+                for (String index : ADDED_INDEXES) {
+                    stmt.execute(index);
+                }
+
                 logger.info("Database schema initialized successfully");
 
             }
@@ -78,6 +103,34 @@ public class DatabaseInitializer {
     }
 
 
+    /**
+     * brings tables created by older versions up to date
+     * adds each column in ADDED_COLUMNS that the table does not have yet
+     */
+    private void addMissingColumns(Connection conn) throws SQLException {
+        for (String[] column : ADDED_COLUMNS) {
+            if (!hasColumn(conn, column[0], column[1])) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE " + column[0] + " ADD COLUMN " + column[1] + " " + column[2]);
+                }
+                logger.info("Added column {}.{}", column[0], column[1]);
+            }
+        }
+    }
+
+    /** checks table columns via PRAGMA table_info */
+    private boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * reads schema sql file from jar resources
      * uses classloader to access embedded resource
@@ -113,7 +166,7 @@ public class DatabaseInitializer {
 
             // list all app tables in dependency order (reverse of creation)
             // drop in reverse to avoid foreign key constraint errors
-            String[] tables = {"journal", "downloads", "alert_matches", "alerts",
+            String[] tables = {"journal", "pdf_blob_refs", "pdf_blobs", "pdf_resolution_cache", "query_cache", "downloads", "alert_matches", "alerts",
                              "bookmarks", "search_results", "search_history",
                              "sessions", "config"};
 
@@ -13,16 +13,12 @@ import com.example.teamse1csdchcw.util.http.HttpClientFactory;
 import okhttp3.OkHttpClient;   // -- http client instance --
 import okhttp3.Request;        // -- http request builder --
 import okhttp3.Response;       // -- http response wrapper --
-// -- jsoup: html/xml parser library --
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;   // -- parsed document --
-import org.jsoup.nodes.Element;    // -- single xml element --
-import org.jsoup.select.Elements;  // -- collection of elements --
 // -- logging --
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
@@ -31,6 +27,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+// -- stax: streaming pull parser from the jdk (java.xml) --
+import javax.xml.stream.XMLStreamConstants;  // -- pull parser event types --
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;     // -- stax pull parser --
+
 /**
  * Connector for arXiv.org academic preprint repository.
  * Uses arXiv API v1: https://arxiv.org/help/api/
@@ -43,28 +44,37 @@ public class ArxivConnector implements SourceConnector {
     // -- arxiv api base url --
     private static final String API_URL = "http://export.arxiv.org/api/query";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_DATE;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     // -- okhttp client for making http requests --
     private final OkHttpClient httpClient;
 
     // -- constructor: get shared http client from factory --
     public ArxivConnector() {
-        this.httpClient = HttpClientFactory.getDefaultClient();
+        this.httpClient = HttpClientFactory.getConnectorClient();
     }
 
     // -- implements SourceConnector.search() --
-    // -- sends query to arxiv api, parses response --
+    // -- one page starting at the first result --
     @Override
     public List<SearchResult> search(SearchQuery query, int maxResults) throws ConnectorException {
+        return fetchPage(query, PageCursor.start(), maxResults).getResults();
+    }
+
+    // -- arxiv pages by offset: start=N works for any N, so pages can be fetched in parallel --
+    @Override
+    public ResultPage fetchPage(SearchQuery query, PageCursor cursor, int pageSize) throws ConnectorException {
+        int start = cursor.getOffset();
         try {
             // -- convert SearchQuery to arxiv api format --
             String searchQuery = buildArxivQuery(query);
             // -- build full api url with query params --
-            // -- format: /api/query?search_query=xxx&max_results=N --
-            String url = String.format("%s?search_query=%s&start=0&max_results=%d",
+            // -- format: /api/query?search_query=xxx&start=N&max_results=N --
+            String url = String.format("%s?search_query=%s&start=%d&max_results=%d",
                     API_URL,
                     URLEncoder.encode(searchQuery, StandardCharsets.UTF_8),  // -- url-encode query --
-                    maxResults);
+                    start,
+                    pageSize);
 
             logger.debug("arXiv search URL: {}", url);
 
@@ -81,10 +91,14 @@ public class ArxivConnector implements SourceConnector {
                     throw new ConnectorException("arXiv API returned: " + response.code());
                 }
 
-                // -- read response body as string (xml) --
-                String xmlContent = response.body().string();
-                // -- parse xml into SearchResult objects --
-                return parseAtomFeed(xmlContent);
+                // -- parse xml straight from the body stream into SearchResult objects --
+                ResultPage page = parseAtomPage(response.body().byteStream());
+                long total = page.getTotalResults();
+                int nextStart = start + pageSize;
+                // -- an empty page or the reported total ends the result list --
+                boolean more = !page.getResults().isEmpty() && (total < 0 || nextStart < total);
+                return new ResultPage(page.getResults(),
+                        more ? PageCursor.seekable(null, nextStart) : null, total);
             }
 
         } catch (IOException e) {
@@ -93,6 +107,12 @@ public class ArxivConnector implements SourceConnector {
         }
     }
 
+    // -- api docs recommend at most 2000 results per request --
+    @Override
+    public int getMaxPageSize() {
+        return MAX_PAGE_SIZE;
+    }
+
     /**
      * Builds an arXiv API query string from the parsed query.
      */
@@ -135,99 +155,131 @@ public class ArxivConnector implements SourceConnector {
      */
     // -- parses atom xml response from arxiv api --
     // -- atom = xml-based feed format (like rss) --
-    private List<SearchResult> parseAtomFeed(String xml) {
+    // -- stax pull parser: one <entry> at a time, no dom, body never buffered as a string --
+    List<SearchResult> parseAtomFeed(InputStream xml) {
+        return parseAtomPage(xml).getResults();
+    }
+
+    /**
+     * Parses an Atom feed page, including the total hit count (opensearch:totalResults).
+     * The returned page has no next cursor.
+     */
+    ResultPage parseAtomPage(InputStream xml) {
         List<SearchResult> results = new ArrayList<>();
+        long total = -1;
+        XMLStreamReader reader = null;
+
+        try {
+            reader = StaxSupport.createReader(xml);
+            // -- skip feed-level elements, stop at each <entry> (one per paper) --
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if ("entry".equals(reader.getLocalName())) {
+                    results.add(parseEntry(reader));
+                } else if ("totalResults".equals(reader.getLocalName())) {
+                    total = parseTotal(StaxSupport.readText(reader));
+                }
+            }
+
+            logger.info("Parsed {} results from arXiv", results.size());
+
+        } catch (XMLStreamException e) {
+            // -- keep whatever was parsed before the error --
+            logger.error("Failed to parse arXiv XML", e);
+        } finally {
+            StaxSupport.closeQuietly(reader);
+        }
 
+        return new ResultPage(results, null, total);
+    }
+
+    private long parseTotal(String text) {
         try {
-            // -- jsoup with xml parser (not html parser) --
-            Document doc = Jsoup.parse(xml, "", org.jsoup.parser.Parser.xmlParser());
-            // -- select all <entry> elements (one per paper) --
-            Elements entries = doc.select("entry");
-
-            // -- iterate through each entry --
-            for (Element entry : entries) {
-                // -- create AcademicPaper to hold extracted data --
-                AcademicPaper paper = new AcademicPaper();
-                paper.setId(UUID.randomUUID().toString());  // -- generate unique id --
-                paper.setSource(SourceType.ARXIV);
-
-                // Extract basic fields
-                // -- css selector syntax: select("tagname") --
-                String title = entry.select("title").text();
-                // -- normalize whitespace (arxiv titles often have linebreaks) --
-                paper.setTitle(title.replaceAll("\\s+", " ").trim());
-
-                // -- <summary> contains abstract --
-                String summary = entry.select("summary").text();
-                paper.setAbstractText(summary.replaceAll("\\s+", " ").trim());
-                // -- snippet = truncated preview --
-                paper.setSnippet(summary.length() > 200 ?
-                        summary.substring(0, 200) + "..." : summary);
-
-                // Extract authors
-                // -- selector "author > name" = <name> inside <author> --
-                Elements authorElements = entry.select("author > name");
-                // -- eachText() gets text content of each element --
-                List<String> authors = authorElements.eachText();
-                paper.setAuthors(String.join(", ", authors));
-
-                // Extract URLs
-                // -- arxiv has multiple <link> elements --
-                Elements links = entry.select("link");
-                for (Element link : links) {
-                    String rel = link.attr("rel");    // -- link type --
-                    String href = link.attr("href");  // -- actual url --
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 
+    // -- reads one <entry>; reader is on its start tag and ends on its end tag --
+    private AcademicPaper parseEntry(XMLStreamReader reader) throws XMLStreamException {
+        // -- create AcademicPaper to hold extracted data --
+        AcademicPaper paper = new AcademicPaper();
+        paper.setId(UUID.randomUUID().toString());  // -- generate unique id --
+        paper.setSource(SourceType.ARXIV);
+
+        List<String> authors = new ArrayList<>();
+        List<String> keywords = new ArrayList<>();
+
+        while (StaxSupport.nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                // -- readText collapses whitespace (arxiv titles often have linebreaks) --
+                case "title" -> paper.setTitle(StaxSupport.readText(reader));
+                case "summary" -> {
+                    // -- <summary> contains abstract, snippet = truncated preview --
+                    String summary = StaxSupport.readText(reader);
+                    paper.setAbstractText(summary);
+                    paper.setSnippet(summary.length() > 200 ?
+                            summary.substring(0, 200) + "..." : summary);
+                }
+                case "author" -> {
+                    // -- <author><name>..</name></author> --
+                    while (StaxSupport.nextChild(reader)) {
+                        if ("name".equals(reader.getLocalName())) {
+                            authors.add(StaxSupport.readText(reader));
+                        } else {
+                            StaxSupport.skip(reader);
+                        }
+                    }
+                }
+                case "link" -> {
+                    // -- arxiv has multiple <link> elements --
+                    String rel = StaxSupport.attribute(reader, "rel");    // -- link type --
+                    String href = StaxSupport.attribute(reader, "href");  // -- actual url --
                     if ("alternate".equals(rel)) {
                         // -- main paper url --
                         paper.setUrl(href);
-                    } else if ("related".equals(rel) && link.attr("title").equals("pdf")) {
+                    } else if ("related".equals(rel) && "pdf".equals(StaxSupport.attribute(reader, "title"))) {
                         // -- direct pdf link --
                         paper.setPdfUrl(href);
                     }
+                    StaxSupport.skip(reader);
                 }
-
-                // Extract arXiv ID
-                // -- id looks like: http://arxiv.org/abs/2301.12345v1 --
-                String id = entry.select("id").text();
-                if (id.contains("arxiv.org/abs/")) {
-                    // -- extract just the id part --
-                    String arxivId = id.substring(id.lastIndexOf("/") + 1);
-                    paper.setArxivId(arxivId);
+                case "id" -> {
+                    // -- id looks like: http://arxiv.org/abs/2301.12345v1 --
+                    String id = StaxSupport.readText(reader);
+                    if (id.contains("arxiv.org/abs/")) {
+                        // -- extract just the id part --
+                        paper.setArxivId(id.substring(id.lastIndexOf("/") + 1));
+                    }
                 }
-
-                // Extract publication date
-                // -- <published> contains iso timestamp --
-                String published = entry.select("published").text();
-                if (!published.isEmpty()) {
-                    try {
-                        // -- parse first 10 chars (yyyy-mm-dd) --
-                        LocalDate date = LocalDate.parse(published.substring(0, 10));
-                        paper.setPublicationDate(date);
-                    } catch (Exception e) {
-                        logger.warn("Failed to parse date: {}", published);
+                case "published" -> {
+                    // -- <published> contains iso timestamp --
+                    String published = StaxSupport.readText(reader);
+                    if (published.length() >= 10) {
+                        try {
+                            // -- parse first 10 chars (yyyy-mm-dd) --
+                            paper.setPublicationDate(LocalDate.parse(published.substring(0, 10)));
+                        } catch (Exception e) {
+                            logger.warn("Failed to parse date: {}", published);
+                        }
                     }
                 }
-
-                // Extract categories as keywords
-                // -- arxiv categories: cs.AI, physics.hep-th, etc --
-                Elements categories = entry.select("category");
-                List<String> keywords = new ArrayList<>();
-                for (Element cat : categories) {
-                    keywords.add(cat.attr("term"));  // -- term attr has category name --
+                case "category" -> {
+                    // -- arxiv categories: cs.AI, physics.hep-th, etc (term attr) --
+                    // -- arxiv:primary_category has a different local name, not picked up --
+                    keywords.add(StaxSupport.attribute(reader, "term"));
+                    StaxSupport.skip(reader);
                 }
-                paper.setKeywords(keywords);
-
-                results.add(paper);
+                default -> StaxSupport.skip(reader);
             }
-
-            logger.info("Parsed {} results from arXiv", results.size());
-
-        } catch (Exception e) {
-            logger.error("Failed to parse arXiv XML", e);
         }
 
-        return results;
+        paper.setAuthors(String.join(", ", authors));
+        paper.setKeywords(keywords);
+        return paper;
     }
 
     @Override
@@ -235,6 +287,12 @@ public class ArxivConnector implements SourceConnector {
         return SourceType.ARXIV;
     }
 
+    // -- api lives on export.arxiv.org, not the arxiv.org website --
+    @Override
+    public String getApiHost() {
+        return "export.arxiv.org";
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -244,9 +302,9 @@ public class ArxivConnector implements SourceConnector {
                     .get()
                     .build();
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                // Consider available even if rate limited (503 with Retry-After)
-                return response.isSuccessful() || response.code() == 503;
+            try (Response response = HttpClientFactory.getDefaultClient().newCall(request).execute()) {
+                // 503 means arxiv is shedding load - report it as unavailable
+                return response.isSuccessful();
             }
         } catch (Exception e) {
             logger.debug("arXiv availability check failed: {}", e.getMessage());
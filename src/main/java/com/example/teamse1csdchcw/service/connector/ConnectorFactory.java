@@ -1,6 +1,8 @@
 package com.example.teamse1csdchcw.service.connector;
 
+import com.example.teamse1csdchcw.config.ConfigService;
 import com.example.teamse1csdchcw.domain.source.SourceType;
+import com.example.teamse1csdchcw.util.http.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,9 +76,31 @@ public class ConnectorFactory {
         // use source type as map key for O(1) lookup
         SourceType type = connector.getSourceType();
         connectors.put(type, connector);
+        configureRateLimit(connector);
         logger.debug("Registered connector: {}", type.getDisplayName());
     }
 
+    /**
+     * Apply the source's rate limit (sources.<name>.rate_limit) to its api host.
+     */
+    // sources w/o a rate_limit block keep the limiter's default spacing
+    private void configureRateLimit(SourceConnector connector) {
+        ConfigService config = ConfigService.getInstance();
+        String prefix = "sources." + connector.getSourceType().name().toLowerCase() + ".rate_limit.";
+
+        double rate = config.getDouble(prefix + "requests_per_second", 0);
+        if (connector.hasApiKey()) {
+            // api key raises the quota on some apis (pubmed 3/s -> 10/s)
+            rate = config.getDouble(prefix + "requests_per_second_with_key", rate);
+        }
+        if (rate <= 0) {
+            return;
+        }
+
+        int burst = Math.max(1, config.getInt(prefix + "burst", 1));
+        RateLimiter.getInstance().configure(connector.getApiHost(), rate, burst);
+    }
+
     /**
      * Get a connector for the specified source type.
      *
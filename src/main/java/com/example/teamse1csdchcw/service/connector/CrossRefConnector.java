@@ -7,6 +7,8 @@ import com.example.teamse1csdchcw.domain.source.SourceType;
 import com.example.teamse1csdchcw.exception.ConnectorException;
 import com.example.teamse1csdchcw.service.resolver.PdfUrlResolver;
 import com.example.teamse1csdchcw.util.http.HttpClientFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.OkHttpClient;
@@ -16,12 +18,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 /**
  * Connector for CrossRef API - scholarly metadata database.
@@ -33,9 +40,14 @@ import java.util.UUID;
  * - Citation counts
  * - Links to full text (when available)
  */
-public class CrossRefConnector implements SourceConnector {
+public class CrossRefConnector implements SourceConnector, DoiBatchLookup {
     private static final Logger logger = LoggerFactory.getLogger(CrossRefConnector.class);
     private static final String API_URL = "https://api.crossref.org/works";
+    // JATS tags (<jats:p> etc) in abstracts; compiled once instead of per item
+    private static final Pattern MARKUP_TAG = Pattern.compile("<[^>]+>");
+    private static final int MAX_PAGE_SIZE = 1000;
+    // DOIs per filter lookup; the filter goes in the URL, so keep it short
+    private static final int MAX_DOI_BATCH_SIZE = 50;
     private static final String USER_AGENT = "LibSearch/1.0 (https://github.com/libsearch; mailto:support@example.com)";
     private final PdfUrlResolver pdfResolver;
 
@@ -43,19 +55,31 @@ public class CrossRefConnector implements SourceConnector {
     private final ObjectMapper objectMapper;
 
     public CrossRefConnector() {
-        this.httpClient = HttpClientFactory.getDefaultClient();
+        this.httpClient = HttpClientFactory.getConnectorClient();
         this.objectMapper = new ObjectMapper();
-        this.pdfResolver = new PdfUrlResolver(httpClient);
+        this.pdfResolver = new PdfUrlResolver();
     }
 
     @Override
     public List<SearchResult> search(SearchQuery query, int maxResults) throws ConnectorException {
+        return fetchPage(query, PageCursor.start(), maxResults).getResults();
+    }
+
+    /**
+     * Fetch one page using deep paging cursors: the first request sends cursor=*,
+     * each response carries the cursor for the next page. Cursors expire after a few
+     * minutes of disuse and cannot be skipped ahead, so pages are fetched in order.
+     */
+    @Override
+    public ResultPage fetchPage(SearchQuery query, PageCursor cursor, int pageSize) throws ConnectorException {
         try {
             String searchQuery = buildCrossRefQuery(query);
 
             StringBuilder url = new StringBuilder(API_URL);
             url.append("?query=").append(URLEncoder.encode(searchQuery, StandardCharsets.UTF_8));
-            url.append("&rows=").append(maxResults);
+            url.append("&rows=").append(pageSize);
+            url.append("&cursor=").append(cursor.isStart() ? "*"
+                    : URLEncoder.encode(cursor.getToken(), StandardCharsets.UTF_8));
             url.append("&select=DOI,title,author,published,publisher,container-title,abstract,type,is-referenced-by-count,link");
 
             // Add filters if available
@@ -85,8 +109,13 @@ public class CrossRefConnector implements SourceConnector {
                     throw new ConnectorException("CrossRef API returned: " + response.code());
                 }
 
-                String jsonContent = response.body().string();
-                return parseJsonResponse(jsonContent);
+                ResultPage page = parsePage(response.body().byteStream());
+                int nextOffset = cursor.getOffset() + page.getResults().size();
+                long total = page.getTotalResults();
+                // an empty page ends the cursor; the last page still carries a next-cursor
+                boolean more = page.hasNext() && !page.getResults().isEmpty() && (total < 0 || nextOffset < total);
+                return new ResultPage(page.getResults(),
+                        more ? PageCursor.sequential(page.getNext().getToken(), nextOffset) : null, total);
             }
 
         } catch (IOException e) {
@@ -123,167 +152,237 @@ public class CrossRefConnector implements SourceConnector {
     /**
      * Parse CrossRef JSON response into search results.
      */
-    private List<SearchResult> parseJsonResponse(String json) {
-        List<SearchResult> results = new ArrayList<>();
+    List<SearchResult> parseJsonResponse(InputStream json) {
+        return parsePage(json).getResults();
+    }
 
-        try {
-            JsonNode root = objectMapper.readTree(json);
-            JsonNode message = root.get("message");
+    /**
+     * Parse a CrossRef response page: the items plus next-cursor and total-results.
+     * The returned page carries the raw next-cursor as a sequential cursor at offset 0;
+     * fetchPage moves it to the right offset.
+     */
+    ResultPage parsePage(InputStream json) {
+        List<SearchResult> results = new ArrayList<>();
+        String nextCursor = null;
+        long total = -1;
 
-            if (message == null) {
-                logger.warn("No 'message' field in CrossRef response");
-                return results;
+        // stream through message and bind one item at a time; the page is never held as a whole
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (!JsonStreams.moveToObject(parser, "message")) {
+                logger.warn("No items found in CrossRef response");
+                return new ResultPage(results, null, total);
             }
 
-            JsonNode items = message.get("items");
-            if (items == null || !items.isArray()) {
-                logger.warn("No items found in CrossRef response");
-                return results;
+            // next-cursor and total-results may come before or after the items
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        results.add(parseItem(objectMapper.readTree(parser)));
+                    }
+                } else if ("next-cursor".equals(field)) {
+                    nextCursor = parser.getValueAsString();
+                } else if ("total-results".equals(field)) {
+                    total = parser.getValueAsLong(-1);
+                } else {
+                    parser.skipChildren();
+                }
             }
 
-            for (JsonNode item : items) {
-                AcademicPaper paper = new AcademicPaper();
-                paper.setId(UUID.randomUUID().toString());
-                paper.setSource(SourceType.CROSSREF);
+            logger.info("Parsed {} results from CrossRef", results.size());
+
+        } catch (Exception e) {
+            logger.error("Failed to parse CrossRef JSON", e);
+        }
 
-                // Extract DOI
-                JsonNode doiNode = item.get("DOI");
-                if (doiNode != null) {
-                    String doi = doiNode.asText();
-                    paper.setDoi(doi);
+        return new ResultPage(results, nextCursor != null ? PageCursor.sequential(nextCursor, 0) : null, total);
+    }
 
-                    String doiUrl = "https://doi.org/" + doi;
-                    paper.setUrl(doiUrl);
+    /**
+     * Convert one CrossRef work item into a paper.
+     */
+    private AcademicPaper parseItem(JsonNode item) {
+        AcademicPaper paper = new AcademicPaper();
+        paper.setId(UUID.randomUUID().toString());
+        paper.setSource(SourceType.CROSSREF);
+
+        // Extract DOI
+        JsonNode doiNode = item.get("DOI");
+        if (doiNode != null) {
+            String doi = doiNode.asText();
+            paper.setDoi(doi);
+
+            String doiUrl = "https://doi.org/" + doi;
+            paper.setUrl(doiUrl);
+
+            // Store DOI URL directly - will be resolved on-demand during download
+            paper.setPdfUrl(doiUrl);
+        }
 
-                    // Store DOI URL directly - will be resolved on-demand during download
-                    paper.setPdfUrl(doiUrl);
-                }
+        // Extract title
+        JsonNode titleNode = item.get("title");
+        // Extracts title from CrossRef JSON response
+        if (titleNode != null && titleNode.isArray() && titleNode.size() > 0) {
+            paper.setTitle(titleNode.get(0).asText());
+        }
 
-                // Extract title
-                JsonNode titleNode = item.get("title");
-                // Extracts title from CrossRef JSON response
-                if (titleNode != null && titleNode.isArray() && titleNode.size() > 0) {
-                    paper.setTitle(titleNode.get(0).asText());
-                }
+        // Extract authors
+        JsonNode authorNode = item.get("author");
+        if (authorNode != null && authorNode.isArray()) {
+            List<String> authors = new ArrayList<>();
+            for (JsonNode author : authorNode) {
+                String given = author.has("given") ? author.get("given").asText() : "";
+                String family = author.has("family") ? author.get("family").asText() : "";
 
-                // Extract authors
-                JsonNode authorNode = item.get("author");
-                if (authorNode != null && authorNode.isArray()) {
-                    List<String> authors = new ArrayList<>();
-                    for (JsonNode author : authorNode) {
-                        String given = author.has("given") ? author.get("given").asText() : "";
-                        String family = author.has("family") ? author.get("family").asText() : "";
-
-                        if (!family.isEmpty()) {
-                            authors.add(given.isEmpty() ? family : given + " " + family);
-                        }
-                    }
-                    paper.setAuthors(String.join(", ", authors));
+                if (!family.isEmpty()) {
+                    authors.add(given.isEmpty() ? family : given + " " + family);
                 }
+            }
+            paper.setAuthors(String.join(", ", authors));
+        }
 
-                // Extract abstract (if available)
-                JsonNode abstractNode = item.get("abstract");
-                if (abstractNode != null) {
-                    String abstractText = abstractNode.asText();
-                    // CrossRef abstracts sometimes contain XML tags, remove them
-                    abstractText = abstractText.replaceAll("<[^>]+>", "").trim();
-                    paper.setAbstractText(abstractText);
-                    paper.setSnippet(abstractText.length() > 200 ?
-                            abstractText.substring(0, 200) + "..." : abstractText);
-                } else {
-                    // Use title as snippet if no abstract
-                    String title = paper.getTitle();
-                    if (title != null) {
-                        paper.setSnippet(title.length() > 200 ?
-                                title.substring(0, 200) + "..." : title);
-                    }
-                }
+        // Extract abstract (if available)
+        JsonNode abstractNode = item.get("abstract");
+        if (abstractNode != null) {
+            String abstractText = abstractNode.asText();
+            // CrossRef abstracts sometimes contain XML tags, remove them
+            abstractText = MARKUP_TAG.matcher(abstractText).replaceAll("").trim();
+            paper.setAbstractText(abstractText);
+            paper.setSnippet(abstractText.length() > 200 ?
+                    abstractText.substring(0, 200) + "..." : abstractText);
+        } else {
+            // Use title as snippet if no abstract
+            String title = paper.getTitle();
+            if (title != null) {
+                paper.setSnippet(title.length() > 200 ?
+                        title.substring(0, 200) + "..." : title);
+            }
+        }
 
-                // Extract publication date
-                JsonNode publishedNode = item.get("published");
-                if (publishedNode == null) {
-                    publishedNode = item.get("published-print");
-                }
-                if (publishedNode == null) {
-                    publishedNode = item.get("published-online");
-                }
+        // Extract publication date
+        JsonNode publishedNode = item.get("published");
+        if (publishedNode == null) {
+            publishedNode = item.get("published-print");
+        }
+        if (publishedNode == null) {
+            publishedNode = item.get("published-online");
+        }
 
-                if (publishedNode != null) {
-                    JsonNode dateParts = publishedNode.get("date-parts");
-                    if (dateParts != null && dateParts.isArray() && dateParts.size() > 0) {
-                        JsonNode dateArray = dateParts.get(0);
-                        if (dateArray != null && dateArray.isArray() && dateArray.size() > 0) {
-                            try {
-                                int year = dateArray.get(0).asInt();
-                                int month = dateArray.size() > 1 ? dateArray.get(1).asInt() : 1;
-                                int day = dateArray.size() > 2 ? dateArray.get(2).asInt() : 1;
-
-                                LocalDate date = LocalDate.of(year, month, day);
-                                paper.setPublicationDate(date);
-                            } catch (Exception e) {
-                                logger.warn("Failed to parse CrossRef date: {}", dateParts);
-                            }
-                        }
+        if (publishedNode != null) {
+            JsonNode dateParts = publishedNode.get("date-parts");
+            if (dateParts != null && dateParts.isArray() && dateParts.size() > 0) {
+                JsonNode dateArray = dateParts.get(0);
+                if (dateArray != null && dateArray.isArray() && dateArray.size() > 0) {
+                    try {
+                        int year = dateArray.get(0).asInt();
+                        int month = dateArray.size() > 1 ? dateArray.get(1).asInt() : 1;
+                        int day = dateArray.size() > 2 ? dateArray.get(2).asInt() : 1;
+
+                        LocalDate date = LocalDate.of(year, month, day);
+                        paper.setPublicationDate(date);
+                    } catch (Exception e) {
+                        logger.warn("Failed to parse CrossRef date: {}", dateParts);
                     }
                 }
+            }
+        }
 
-                // Extract journal/container title
-                JsonNode containerNode = item.get("container-title");
-                if (containerNode != null && containerNode.isArray() && containerNode.size() > 0) {
-                    paper.setJournal(containerNode.get(0).asText());
-                }
+        // Extract journal/container title
+        JsonNode containerNode = item.get("container-title");
+        if (containerNode != null && containerNode.isArray() && containerNode.size() > 0) {
+            paper.setJournal(containerNode.get(0).asText());
+        }
 
-                // Extract publisher
-                JsonNode publisherNode = item.get("publisher");
-                if (publisherNode != null) {
-                    // Store publisher in venue field if journal is not set
-                    if (paper.getJournal() == null || paper.getJournal().isEmpty()) {
-                        paper.setVenue(publisherNode.asText());
-                    }
-                }
+        // Extract publisher
+        JsonNode publisherNode = item.get("publisher");
+        if (publisherNode != null) {
+            // Store publisher in venue field if journal is not set
+            if (paper.getJournal() == null || paper.getJournal().isEmpty()) {
+                paper.setVenue(publisherNode.asText());
+            }
+        }
 
-                // Extract citation count
-                JsonNode citationNode = item.get("is-referenced-by-count");
-                if (citationNode != null) {
-                    paper.setCitationCount(citationNode.asInt());
-                }
+        // Extract citation count
+        JsonNode citationNode = item.get("is-referenced-by-count");
+        if (citationNode != null) {
+            paper.setCitationCount(citationNode.asInt());
+        }
 
-                // Extract type
-                JsonNode typeNode = item.get("type");
-                if (typeNode != null) {
-                    String type = typeNode.asText();
-                    // Normalize type
-                    String normalizedType = normalizeType(type);
-                    // Store in keywords for filtering
-                    List<String> keywords = new ArrayList<>();
-                    keywords.add(normalizedType);
-                    paper.setKeywords(keywords);
-                }
+        // Extract type
+        JsonNode typeNode = item.get("type");
+        if (typeNode != null) {
+            String type = typeNode.asText();
+            // Normalize type
+            String normalizedType = normalizeType(type);
+            // Store in keywords for filtering
+            List<String> keywords = new ArrayList<>();
+            keywords.add(normalizedType);
+            paper.setKeywords(keywords);
+        }
 
-                // Extract links (for PDF if available)
-                JsonNode linkNode = item.get("link");
-                if (linkNode != null && linkNode.isArray()) {
-                    for (JsonNode link : linkNode) {
-                        String contentType = link.has("content-type") ? link.get("content-type").asText() : "";
-                        String linkUrl = link.has("URL") ? link.get("URL").asText() : "";
-
-                        if (contentType.contains("pdf") || contentType.contains("application/pdf")) {
-                            paper.setPdfUrl(linkUrl);
-                            break;
-                        }
-                    }
+        // Extract links (for PDF if available)
+        JsonNode linkNode = item.get("link");
+        if (linkNode != null && linkNode.isArray()) {
+            for (JsonNode link : linkNode) {
+                String contentType = link.has("content-type") ? link.get("content-type").asText() : "";
+                String linkUrl = link.has("URL") ? link.get("URL").asText() : "";
+
+                if (contentType.contains("pdf") || contentType.contains("application/pdf")) {
+                    paper.setPdfUrl(linkUrl);
+                    break;
                 }
+            }
+        }
+
+        return paper;
+    }
+
+    /**
+     * Look up many works at once with a filter of OR-ed doi: clauses.
+     */
+    @Override
+    public Map<String, AcademicPaper> lookupDois(List<String> dois) throws ConnectorException {
+        StringBuilder filter = new StringBuilder();
+        for (String doi : dois) {
+            if (filter.length() > 0) filter.append(',');
+            filter.append("doi:").append(doi);
+        }
+
+        String url = API_URL + "?filter=" + URLEncoder.encode(filter.toString(), StandardCharsets.UTF_8)
+                + "&rows=" + dois.size()
+                + "&select=DOI,title,author,published,publisher,container-title,abstract,type,is-referenced-by-count,link";
+
+        Request request = new Request.Builder()
+                .url(url)
+                .header("User-Agent", USER_AGENT)
+                .get()
+                .build();
 
-                results.add(paper);
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new ConnectorException("CrossRef API returned: " + response.code());
             }
 
-            logger.info("Parsed {} results from CrossRef", results.size());
+            Map<String, AcademicPaper> found = new HashMap<>();
+            for (SearchResult result : parseJsonResponse(response.body().byteStream())) {
+                AcademicPaper paper = (AcademicPaper) result;
+                if (paper.getDoi() != null) {
+                    found.put(paper.getDoi().toLowerCase(Locale.ROOT), paper);
+                }
+            }
+            logger.debug("CrossRef knew {} of {} DOIs", found.size(), dois.size());
+            return found;
 
-        } catch (Exception e) {
-            logger.error("Failed to parse CrossRef JSON", e);
+        } catch (IOException e) {
+            logger.error("CrossRef DOI lookup failed", e);
+            throw new ConnectorException("CrossRef DOI lookup failed", e);
         }
+    }
 
-        return results;
+    @Override
+    public int getMaxDoiBatchSize() {
+        return MAX_DOI_BATCH_SIZE;
     }
 
     /**
@@ -304,11 +403,22 @@ public class CrossRefConnector implements SourceConnector {
         };
     }
 
+    // rows is capped at 1000 per request
+    @Override
+    public int getMaxPageSize() {
+        return MAX_PAGE_SIZE;
+    }
+
     @Override
     public SourceType getSourceType() {
         return SourceType.CROSSREF;
     }
 
+    @Override
+    public String getApiHost() {
+        return "api.crossref.org";
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -318,7 +428,7 @@ public class CrossRefConnector implements SourceConnector {
                     .get()  // Use GET instead of HEAD for more reliable check
                     .build();
 
-            try (Response response = httpClient.newCall(request).execute()) {
+            try (Response response = HttpClientFactory.getDefaultClient().newCall(request).execute()) {
                 return response.isSuccessful();
             }
         } catch (Exception e) {
@@ -0,0 +1,28 @@
+package com.example.teamse1csdchcw.service.connector;
+
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.exception.ConnectorException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A source that can return metadata for many DOIs in one request.
+ * Used to fill in missing abstracts, citation counts and PDF links after a search.
+ */
+public interface DoiBatchLookup {
+
+    /**
+     * Looks up papers by DOI.
+     *
+     * @param dois DOIs to look up, at most {@link #getMaxDoiBatchSize()}
+     * @return the papers the source knows, keyed by lower-case DOI
+     * @throws ConnectorException if the request fails
+     */
+    Map<String, AcademicPaper> lookupDois(List<String> dois) throws ConnectorException;
+
+    /**
+     * Largest number of DOIs one lookup may contain.
+     */
+    int getMaxDoiBatchSize();
+}
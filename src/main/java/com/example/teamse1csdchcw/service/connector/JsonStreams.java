@@ -0,0 +1,65 @@
+package com.example.teamse1csdchcw.service.connector;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Helpers for reading JSON API responses as a token stream.
+ * Connectors walk to the result array without building a tree, then
+ * bind one item at a time, so a large page never exists in memory as a whole.
+ */
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    /**
+     * Advances the parser to the start of the array found at the given field path,
+     * e.g. {"message": {"items": [...]}} for path message, items. Fields before it
+     * are skipped without being materialized.
+     *
+     * @return true if the parser is now on the array's START_ARRAY token
+     */
+    static boolean moveToArray(JsonParser parser, String... path) throws IOException {
+        return moveTo(parser, path) && parser.currentToken() == JsonToken.START_ARRAY;
+    }
+
+    /**
+     * Advances the parser to the start of the object found at the given field path,
+     * so the caller can read its fields one by one.
+     *
+     * @return true if the parser is now on the object's START_OBJECT token
+     */
+    static boolean moveToObject(JsonParser parser, String... path) throws IOException {
+        return moveTo(parser, path) && parser.currentToken() == JsonToken.START_OBJECT;
+    }
+
+    // leaves the parser on the first token of the value at the path
+    private static boolean moveTo(JsonParser parser, String... path) throws IOException {
+        if (parser.currentToken() == null && parser.nextToken() == null) {
+            return false;
+        }
+
+        for (int level = 0; level < path.length; level++) {
+            if (parser.currentToken() != JsonToken.START_OBJECT || !moveToField(parser, path[level])) {
+                return false;
+            }
+            parser.nextToken();
+        }
+        return true;
+    }
+
+    // scans the fields of the current object; leaves the parser on the matching field name
+    private static boolean moveToField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (name.equals(parser.currentName())) {
+                return true;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
+}
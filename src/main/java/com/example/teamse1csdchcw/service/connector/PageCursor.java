@@ -0,0 +1,77 @@
+package com.example.teamse1csdchcw.service.connector;
+
+import java.util.Objects;
+
+/**
+ * Position of a page in a source's result list.
+ * The token is source specific (a CrossRef cursor, a PubMed history key, nothing for arXiv).
+ * A seekable cursor reaches any offset with the same token, so several pages can be
+ * requested at once; a sequential one only leads to the page right after it.
+ */
+public final class PageCursor {
+    private static final PageCursor START = new PageCursor(null, 0, false);
+
+    private final String token;
+    private final int offset;
+    private final boolean seekable;
+
+    private PageCursor(String token, int offset, boolean seekable) {
+        this.token = token;
+        this.offset = offset;
+        this.seekable = seekable;
+    }
+
+    /**
+     * The first page of a new search.
+     */
+    public static PageCursor start() {
+        return START;
+    }
+
+    /**
+     * A cursor whose token works for any offset (offset paging, server-side result sets).
+     */
+    public static PageCursor seekable(String token, int offset) {
+        return new PageCursor(token, offset, true);
+    }
+
+    /**
+     * A cursor that is only valid for the page at the given offset (e.g. CrossRef's next-cursor).
+     */
+    public static PageCursor sequential(String token, int offset) {
+        return new PageCursor(Objects.requireNonNull(token), offset, false);
+    }
+
+    /**
+     * Same token at another offset.
+     *
+     * @throws IllegalStateException if the cursor is not seekable
+     */
+    public PageCursor at(int offset) {
+        if (!seekable) {
+            throw new IllegalStateException("Cursor can only be followed page by page");
+        }
+        return new PageCursor(token, offset, true);
+    }
+
+    public boolean isStart() {
+        return this == START;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean isSeekable() {
+        return seekable;
+    }
+
+    @Override
+    public String toString() {
+        return isStart() ? "PageCursor{start}" : "PageCursor{offset=" + offset + ", seekable=" + seekable + "}";
+    }
+}
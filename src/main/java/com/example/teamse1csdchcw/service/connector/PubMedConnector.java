@@ -1,30 +1,44 @@
 package com.example.teamse1csdchcw.service.connector;
 
+import com.example.teamse1csdchcw.config.ConfigService;
 import com.example.teamse1csdchcw.service.resolver.PdfUrlResolver;
 import com.example.teamse1csdchcw.domain.search.AcademicPaper;
 import com.example.teamse1csdchcw.domain.search.SearchQuery;
 import com.example.teamse1csdchcw.domain.search.SearchResult;
 import com.example.teamse1csdchcw.domain.source.SourceType;
 import com.example.teamse1csdchcw.exception.ConnectorException;
+import com.example.teamse1csdchcw.util.http.HttpCallScope;
 import com.example.teamse1csdchcw.util.http.HttpClientFactory;
+import com.example.teamse1csdchcw.util.http.RateLimiter;
+import okhttp3.FormBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Connector for PubMed (NCBI) academic database.
@@ -46,12 +60,24 @@ public class PubMedConnector implements SourceConnector {
             DateTimeFormatter.ofPattern("yyyy")
     };
 
+    // WebEnv and query_key are joined into one cursor token
+    private static final String HISTORY_KEY_SEPARATOR = "|";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_EFETCH_BATCH_SIZE = 200;
+    // longer EFetch requests are sent as POST
+    private static final int MAX_GET_URL_LENGTH = 2000;
+    // EFetch chunks run here; their number is bounded by the rate limiter, not the executor
+    private static final ExecutorService EFETCH_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("pubmed-efetch-", 0).factory());
+
     private final OkHttpClient httpClient;
     private final String apiKey;
+    private final int efetchBatchSize;
 
     public PubMedConnector() {
-        this.httpClient = HttpClientFactory.getDefaultClient();
-        this.pdfResolver = new PdfUrlResolver(httpClient);
+        this.httpClient = HttpClientFactory.getConnectorClient();
+        this.pdfResolver = new PdfUrlResolver();
+        this.efetchBatchSize = loadBatchSize();
         // API key should be loaded from config/environment
         this.apiKey = System.getenv("PUBMED_API_KEY");
         if (apiKey == null || apiKey.isEmpty()) {
@@ -60,24 +86,53 @@ public class PubMedConnector implements SourceConnector {
     }
 
     public PubMedConnector(String apiKey) {
-        this.httpClient = HttpClientFactory.getDefaultClient();
-        this.pdfResolver = new PdfUrlResolver(httpClient);
+        this.httpClient = HttpClientFactory.getConnectorClient();
+        this.pdfResolver = new PdfUrlResolver();
         this.apiKey = apiKey;
+        this.efetchBatchSize = loadBatchSize();
+    }
+
+    private static int loadBatchSize() {
+        return Math.max(1, ConfigService.getInstance()
+                .getInt("sources.pubmed.efetch_batch_size", DEFAULT_EFETCH_BATCH_SIZE));
     }
 
     @Override
     public List<SearchResult> search(SearchQuery query, int maxResults) throws ConnectorException {
+        return fetchPage(query, PageCursor.start(), maxResults).getResults();
+    }
+
+    /**
+     * Fetch one page of records.
+     * The first page runs ESearch with usehistory=y, which keeps the whole result set on
+     * the NCBI history server (WebEnv + query_key). Later pages are EFetch calls against
+     * that set with retstart, so they need no new search and can be fetched in any order.
+     */
+    @Override
+    public ResultPage fetchPage(SearchQuery query, PageCursor cursor, int pageSize) throws ConnectorException {
         try {
+            if (!cursor.isStart()) {
+                List<SearchResult> results = fetchHistoryRecords(cursor, pageSize);
+                return new ResultPage(results,
+                        results.isEmpty() ? null : cursor.at(cursor.getOffset() + pageSize), -1);
+            }
+
             // Step 1: Search for PMIDs
-            List<String> pmids = searchPMIDs(query, maxResults);
+            SearchHits hits = searchPMIDs(query, pageSize);
 
-            if (pmids.isEmpty()) {
+            if (hits.pmids.isEmpty()) {
                 logger.info("No PubMed results found for query: {}", query.getOriginalQuery());
-                return new ArrayList<>();
+                return new ResultPage(new ArrayList<>(), null, hits.count);
             }
 
             // Step 2: Fetch full records
-            return fetchRecords(pmids);
+            List<SearchResult> results = fetchRecords(hits.pmids);
+
+            boolean more = hits.webEnv != null && hits.queryKey != null && pageSize < hits.count;
+            PageCursor next = more
+                    ? PageCursor.seekable(hits.webEnv + HISTORY_KEY_SEPARATOR + hits.queryKey, pageSize)
+                    : null;
+            return new ResultPage(results, next, hits.count);
 
         } catch (IOException e) {
             logger.error("PubMed search failed", e);
@@ -85,10 +140,16 @@ public class PubMedConnector implements SourceConnector {
         }
     }
 
+    // a page is fetched as several concurrent EFetch chunks
+    @Override
+    public int getMaxPageSize() {
+        return MAX_PAGE_SIZE;
+    }
+
     /**
-     * Step 1: Search PubMed and retrieve list of PMIDs.
+     * Step 1: Search PubMed and retrieve the first PMIDs plus the history server keys.
      */
-    private List<String> searchPMIDs(SearchQuery query, int maxResults) throws IOException, ConnectorException {
+    private SearchHits searchPMIDs(SearchQuery query, int maxResults) throws IOException, ConnectorException {
         String searchTerm = buildPubMedQuery(query);
 
         StringBuilder url = new StringBuilder(ESEARCH_URL);
@@ -114,186 +175,414 @@ public class PubMedConnector implements SourceConnector {
                 throw new ConnectorException("PubMed ESearch API returned: " + response.code());
             }
 
-            String xmlContent = response.body().string();
-            return parsePMIDs(xmlContent);
+            return parseSearch(response.body().byteStream());
         }
     }
 
     /**
      * Parse PMIDs from ESearch XML response.
      */
-    private List<String> parsePMIDs(String xml) {
-        List<String> pmids = new ArrayList<>();
+    List<String> parsePMIDs(InputStream xml) {
+        return parseSearch(xml).pmids;
+    }
 
-        try {
-            Document doc = Jsoup.parse(xml, "", org.jsoup.parser.Parser.xmlParser());
-            Elements idElements = doc.select("IdList > Id");
+    /**
+     * Parse an ESearch XML response: Count, WebEnv, QueryKey and the PMIDs of the first page.
+     * Only direct children of eSearchResult are read; the translation stack has Counts of its own.
+     */
+    SearchHits parseSearch(InputStream xml) {
+        SearchHits hits = new SearchHits();
+        XMLStreamReader reader = null;
 
-            for (Element idElement : idElements) {
-                pmids.add(idElement.text());
+        try {
+            reader = StaxSupport.createReader(xml);
+            StaxSupport.moveToRoot(reader);
+            while (StaxSupport.nextChild(reader)) {
+                switch (reader.getLocalName()) {
+                    case "Count" -> hits.count = parseCount(StaxSupport.readText(reader));
+                    case "WebEnv" -> hits.webEnv = StaxSupport.readText(reader);
+                    case "QueryKey" -> hits.queryKey = StaxSupport.readText(reader);
+                    case "IdList" -> {
+                        while (StaxSupport.nextChild(reader)) {
+                            if ("Id".equals(reader.getLocalName())) {
+                                hits.pmids.add(StaxSupport.readText(reader));
+                            } else {
+                                StaxSupport.skip(reader);
+                            }
+                        }
+                    }
+                    default -> StaxSupport.skip(reader);
+                }
             }
 
-            logger.debug("Found {} PMIDs", pmids.size());
+            logger.debug("Found {} PMIDs of {}", hits.pmids.size(), hits.count);
 
-        } catch (Exception e) {
+        } catch (XMLStreamException e) {
             logger.error("Failed to parse PubMed PMIDs", e);
+        } finally {
+            StaxSupport.closeQuietly(reader);
         }
 
-        return pmids;
+        return hits;
+    }
+
+    private long parseCount(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     /**
-     * Step 2: Fetch full records for the given PMIDs.
+     * Step 2: Fetch full records for the given PMIDs, in chunks of efetchBatchSize IDs.
      */
     private List<SearchResult> fetchRecords(List<String> pmids) throws IOException, ConnectorException {
-        String pmidList = String.join(",", pmids);
+        List<Map<String, String>> chunks = new ArrayList<>();
+        for (int i = 0; i < pmids.size(); i += efetchBatchSize) {
+            Map<String, String> params = new LinkedHashMap<>();
+            params.put("id", String.join(",", pmids.subList(i, Math.min(pmids.size(), i + efetchBatchSize))));
+            chunks.add(params);
+        }
+        // the search call used the caller's rate limit slot, every chunk needs its own
+        return fetchChunks(chunks, 0);
+    }
 
-        StringBuilder url = new StringBuilder(EFETCH_URL);
-        url.append("?db=").append(DATABASE);
-        url.append("&id=").append(pmidList);
-        url.append("&retmode=xml");
+    /**
+     * Fetch a page of a stored result set from the history server, in retstart ranges.
+     */
+    private List<SearchResult> fetchHistoryRecords(PageCursor cursor, int pageSize)
+            throws IOException, ConnectorException {
+        String token = cursor.getToken();
+        int separator = token.indexOf(HISTORY_KEY_SEPARATOR);
+        List<Map<String, String>> chunks = new ArrayList<>();
+        for (int start = 0; start < pageSize; start += efetchBatchSize) {
+            Map<String, String> params = new LinkedHashMap<>();
+            params.put("WebEnv", token.substring(0, separator));
+            params.put("query_key", token.substring(separator + 1));
+            params.put("retstart", String.valueOf(cursor.getOffset() + start));
+            params.put("retmax", String.valueOf(Math.min(efetchBatchSize, pageSize - start)));
+            chunks.add(params);
+        }
+        // the caller was rate limited for this page, which covers the first chunk
+        return fetchChunks(chunks, 1);
+    }
+
+    /**
+     * Run EFetch chunks concurrently and return their records in chunk order.
+     * Each chunk past the prepaid ones waits for its own rate limit slot, so the
+     * chunks together stay within the PubMed request budget. The chunks run in the
+     * caller's HTTP call scope: cancelling the search cancels all of them.
+     */
+    private List<SearchResult> fetchChunks(List<Map<String, String>> chunks, int prepaidPermits)
+            throws IOException, ConnectorException {
+        RateLimiter rateLimiter = RateLimiter.getInstance();
+        if (chunks.size() == 1) {
+            if (prepaidPermits < 1) {
+                rateLimiter.acquire(getApiHost());
+            }
+            return efetch(chunks.get(0));
+        }
+
+        HttpCallScope scope = HttpCallScope.current();
+        List<CompletableFuture<List<SearchResult>>> futures = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<String, String> params = chunks.get(i);
+            CompletableFuture<Void> permit = i < prepaidPermits
+                    ? CompletableFuture.completedFuture(null)
+                    : rateLimiter.acquireAsync(getApiHost());
+            futures.add(permit.thenApplyAsync(ready -> efetchInScope(scope, params), EFETCH_EXECUTOR));
+        }
+
+        List<SearchResult> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<SearchResult>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PubMed EFetch interrupted");
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof ConnectorException ce) {
+                throw ce;
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new ConnectorException("PubMed EFetch failed", cause);
+        }
+
+        logger.debug("Fetched {} PubMed records in {} chunks", results.size(), chunks.size());
+        return results;
+    }
+
+    private List<SearchResult> efetchInScope(HttpCallScope scope, Map<String, String> params) {
+        try {
+            return scope != null ? scope.call(() -> efetch(params)) : efetch(params);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * One EFetch request. Long parameter lists are sent as a form POST, which
+     * E-utilities accept for any request that would not fit in a URL.
+     */
+    private List<SearchResult> efetch(Map<String, String> selection) throws IOException, ConnectorException {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("db", DATABASE);
+        params.putAll(selection);
+        params.put("retmode", "xml");
 
         if (apiKey != null && !apiKey.isEmpty()) {
-            url.append("&api_key=").append(apiKey);
+            params.put("api_key", apiKey);
         }
 
-        logger.debug("PubMed EFetch URL: {}", url);
+        StringBuilder url = new StringBuilder(EFETCH_URL);
+        char separator = '?';
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            url.append(separator).append(param.getKey()).append('=')
+                    .append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+            separator = '&';
+        }
 
-        Request request = new Request.Builder()
-                .url(url.toString())
-                .get()
-                .build();
+        Request request;
+        if (url.length() <= MAX_GET_URL_LENGTH) {
+            logger.debug("PubMed EFetch URL: {}", url);
+            request = new Request.Builder()
+                    .url(url.toString())
+                    .get()
+                    .build();
+        } else {
+            FormBody.Builder form = new FormBody.Builder();
+            params.forEach(form::add);
+            logger.debug("PubMed EFetch POST: {}", selection.keySet());
+            request = new Request.Builder()
+                    .url(EFETCH_URL)
+                    .post(form.build())
+                    .build();
+        }
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 throw new ConnectorException("PubMed EFetch API returned: " + response.code());
             }
 
-            String xmlContent = response.body().string();
-            return parseRecords(xmlContent);
+            return parseRecords(response.body().byteStream());
         }
     }
 
     /**
      * Parse full PubMed records from EFetch XML response.
+     * Streams the body with a pull parser and builds one paper per PubmedArticle.
      */
-    private List<SearchResult> parseRecords(String xml) {
+    List<SearchResult> parseRecords(InputStream xml) {
         List<SearchResult> results = new ArrayList<>();
+        XMLStreamReader reader = null;
 
         try {
-            Document doc = Jsoup.parse(xml, "", org.jsoup.parser.Parser.xmlParser());
-            Elements articles = doc.select("PubmedArticle");
-
-            for (Element article : articles) {
-                AcademicPaper paper = new AcademicPaper();
-                paper.setId(UUID.randomUUID().toString());
-                paper.setSource(SourceType.PUBMED);
-
-                // Extract PMID
-                String pmid = article.select("MedlineCitation > PMID").text();
-                paper.setPmid(pmid);
-                paper.setUrl("https://pubmed.ncbi.nlm.nih.gov/" + pmid + "/");
-
-                // Extract title
-                String title = article.select("ArticleTitle").text();
-                paper.setTitle(title);
-
-                // Extract abstract
-                Elements abstractTexts = article.select("Abstract > AbstractText");
-                StringBuilder abstractBuilder = new StringBuilder();
-                for (Element abstractText : abstractTexts) {
-                    String label = abstractText.attr("Label");
-                    if (!label.isEmpty()) {
-                        abstractBuilder.append(label).append(": ");
-                    }
-                    abstractBuilder.append(abstractText.text()).append(" ");
+            reader = StaxSupport.createReader(xml);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && "PubmedArticle".equals(reader.getLocalName())) {
+                    results.add(parseArticle(reader));
                 }
-                String abstractContent = abstractBuilder.toString().trim();
-                paper.setAbstractText(abstractContent);
-                paper.setSnippet(abstractContent.length() > 200 ?
-                        abstractContent.substring(0, 200) + "..." : abstractContent);
-
-                // Extract authors
-                Elements authorElements = article.select("AuthorList > Author");
-                List<String> authors = new ArrayList<>();
-                for (Element author : authorElements) {
-                    String lastName = author.select("LastName").text();
-                    String foreName = author.select("ForeName").text();
+            }
+
+            logger.info("Parsed {} records from PubMed", results.size());
+
+        } catch (XMLStreamException e) {
+            logger.error("Failed to parse PubMed XML", e);
+        } finally {
+            StaxSupport.closeQuietly(reader);
+        }
+
+        return results;
+    }
+
+    /**
+     * Read one PubmedArticle. The reader starts on its start tag and ends on its end tag.
+     * Elements are matched by name and parent, e.g. Title only counts under Journal.
+     */
+    private AcademicPaper parseArticle(XMLStreamReader reader) throws XMLStreamException {
+        AcademicPaper paper = new AcademicPaper();
+        paper.setId(UUID.randomUUID().toString());
+        paper.setSource(SourceType.PUBMED);
+
+        StringBuilder abstractBuilder = new StringBuilder();
+        List<String> authors = new ArrayList<>();
+        List<String> keywords = new ArrayList<>();
+        String pmid = "";
+        String journalTitle = "";
+        String isoAbbreviation = "";
+        String year = "";
+        String month = "";
+        String day = "";
+        String lastName = "";
+        String foreName = "";
+
+        // path of open elements below PubmedArticle
+        Deque<String> path = new ArrayDeque<>();
+        path.push("PubmedArticle");
+
+        while (!path.isEmpty() && reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                // Author is complete once its end tag is reached
+                if ("Author".equals(path.pop()) && "AuthorList".equals(path.peek())) {
                     if (!lastName.isEmpty()) {
                         authors.add(foreName.isEmpty() ? lastName : foreName + " " + lastName);
                     }
+                    lastName = "";
+                    foreName = "";
                 }
-                paper.setAuthors(String.join(", ", authors));
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
 
-                // Extract journal
-                String journal = article.select("Journal > Title").text();
-                if (journal.isEmpty()) {
-                    journal = article.select("Journal > ISOAbbreviation").text();
+            String name = reader.getLocalName();
+            String parent = path.peek();
+
+            // text elements are consumed whole (reader ends on their end tag), so never pushed
+            switch (name) {
+                case "PMID" -> {
+                    if ("MedlineCitation".equals(parent)) {
+                        pmid = StaxSupport.readText(reader);
+                        continue;
+                    }
                 }
-                paper.setJournal(journal);
-
-                // Extract publication date
-                String year = article.select("PubDate > Year").text();
-                String month = article.select("PubDate > Month").text();
-                String day = article.select("PubDate > Day").text();
-
-                if (!year.isEmpty()) {
-                    try {
-                        String dateString = year;
-                        if (!month.isEmpty()) {
-                            // Convert month name to number
-                            int monthNum = parseMonth(month);
-                            if (monthNum > 0) {
-                                dateString += "/" + String.format("%02d", monthNum);
-                                if (!day.isEmpty()) {
-                                    dateString += "/" + String.format("%02d", Integer.parseInt(day));
-                                }
-                            }
+                case "ArticleTitle" -> {
+                    if (paper.getTitle() == null) {
+                        paper.setTitle(StaxSupport.readText(reader));
+                        continue;
+                    }
+                }
+                case "AbstractText" -> {
+                    if ("Abstract".equals(parent)) {
+                        String label = StaxSupport.attribute(reader, "Label");
+                        if (!label.isEmpty()) {
+                            abstractBuilder.append(label).append(": ");
                         }
-
-                        LocalDate date = parseDate(dateString);
-                        if (date != null) {
-                            paper.setPublicationDate(date);
+                        abstractBuilder.append(StaxSupport.readText(reader)).append(" ");
+                        continue;
+                    }
+                }
+                case "LastName" -> {
+                    if ("Author".equals(parent)) {
+                        lastName = StaxSupport.readText(reader);
+                        continue;
+                    }
+                }
+                case "ForeName" -> {
+                    if ("Author".equals(parent)) {
+                        foreName = StaxSupport.readText(reader);
+                        continue;
+                    }
+                }
+                case "Title" -> {
+                    if ("Journal".equals(parent)) {
+                        journalTitle = StaxSupport.readText(reader);
+                        continue;
+                    }
+                }
+                case "ISOAbbreviation" -> {
+                    if ("Journal".equals(parent)) {
+                        isoAbbreviation = StaxSupport.readText(reader);
+                        continue;
+                    }
+                }
+                case "Year", "Month", "Day" -> {
+                    if ("PubDate".equals(parent)) {
+                        String value = StaxSupport.readText(reader);
+                        switch (name) {
+                            case "Year" -> year = value;
+                            case "Month" -> month = value;
+                            default -> day = value;
                         }
-                    } catch (Exception e) {
-                        logger.warn("Failed to parse date: {}/{}/{}", year, month, day);
+                        continue;
                     }
                 }
-
-                // Extract DOI
-                Elements articleIds = article.select("ArticleIdList > ArticleId");
-                for (Element articleId : articleIds) {
-                    if ("doi".equals(articleId.attr("IdType"))) {
-                        paper.setDoi(articleId.text());
-                        break;
+                case "ArticleId" -> {
+                    // only the article's own ids, not those of its references
+                    if ("ArticleIdList".equals(parent) && !path.contains("ReferenceList")) {
+                        boolean isDoi = "doi".equals(StaxSupport.attribute(reader, "IdType"));
+                        String value = StaxSupport.readText(reader);
+                        if (isDoi && paper.getDoi() == null) {
+                            paper.setDoi(value);
+                        }
+                        continue;
                     }
                 }
-
-                // Extract keywords/MeSH terms
-                Elements meshHeadings = article.select("MeshHeadingList > MeshHeading > DescriptorName");
-                List<String> keywords = new ArrayList<>();
-                for (Element mesh : meshHeadings) {
-                    keywords.add(mesh.text());
+                case "DescriptorName" -> {
+                    if ("MeshHeading".equals(parent)) {
+                        keywords.add(StaxSupport.readText(reader));
+                        continue;
+                    }
                 }
-                paper.setKeywords(keywords);
-
-                // Store DOI URL directly - resolve PDF on-demand during download
-                if (paper.getDoi() != null && !paper.getDoi().isEmpty()) {
-                    paper.setPdfUrl("https://doi.org/" + paper.getDoi());
-                } else {
-                    paper.setPdfUrl(""); // No DOI available
+                default -> {
                 }
-
-                results.add(paper);
             }
+            path.push(name);
+        }
 
-            logger.info("Parsed {} records from PubMed", results.size());
+        paper.setPmid(pmid);
+        paper.setUrl("https://pubmed.ncbi.nlm.nih.gov/" + pmid + "/");
 
-        } catch (Exception e) {
-            logger.error("Failed to parse PubMed XML", e);
+        String abstractContent = abstractBuilder.toString().trim();
+        paper.setAbstractText(abstractContent);
+        paper.setSnippet(abstractContent.length() > 200 ?
+                abstractContent.substring(0, 200) + "..." : abstractContent);
+
+        paper.setAuthors(String.join(", ", authors));
+        paper.setJournal(journalTitle.isEmpty() ? isoAbbreviation : journalTitle);
+        applyPublicationDate(paper, year, month, day);
+        paper.setKeywords(keywords);
+
+        // Store DOI URL directly - resolve PDF on-demand during download
+        if (paper.getDoi() != null && !paper.getDoi().isEmpty()) {
+            paper.setPdfUrl("https://doi.org/" + paper.getDoi());
+        } else {
+            paper.setPdfUrl(""); // No DOI available
         }
 
-        return results;
+        return paper;
+    }
+
+    /**
+     * Set the publication date from PubDate's Year/Month/Day parts.
+     */
+    private void applyPublicationDate(AcademicPaper paper, String year, String month, String day) {
+        if (year.isEmpty()) {
+            return;
+        }
+
+        try {
+            String dateString = year;
+            if (!month.isEmpty()) {
+                // Convert month name to number
+                int monthNum = parseMonth(month);
+                if (monthNum > 0) {
+                    dateString += "/" + String.format("%02d", monthNum);
+                    if (!day.isEmpty()) {
+                        dateString += "/" + String.format("%02d", Integer.parseInt(day));
+                    }
+                }
+            }
+
+            LocalDate date = parseDate(dateString);
+            if (date != null) {
+                paper.setPublicationDate(date);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to parse date: {}/{}/{}", year, month, day);
+        }
     }
 
     /**
@@ -384,6 +673,16 @@ public class PubMedConnector implements SourceConnector {
         return SourceType.PUBMED;
     }
 
+    @Override
+    public String getApiHost() {
+        return "eutils.ncbi.nlm.nih.gov";
+    }
+
+    @Override
+    public boolean hasApiKey() {
+        return apiKey != null && !apiKey.isEmpty();
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -393,7 +692,7 @@ public class PubMedConnector implements SourceConnector {
                     .get()
                     .build();
 
-            try (Response response = httpClient.newCall(request).execute()) {
+            try (Response response = HttpClientFactory.getDefaultClient().newCall(request).execute()) {
                 return response.isSuccessful();
             }
         } catch (Exception e) {
@@ -402,4 +701,14 @@ public class PubMedConnector implements SourceConnector {
             return true;
         }
     }
+
+    /**
+     * What ESearch returned: the first PMIDs, the total count and the history server keys.
+     */
+    static final class SearchHits {
+        final List<String> pmids = new ArrayList<>();
+        long count = -1;
+        String webEnv;
+        String queryKey;
+    }
 }
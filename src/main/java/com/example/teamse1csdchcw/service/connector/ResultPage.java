@@ -0,0 +1,47 @@
+package com.example.teamse1csdchcw.service.connector;
+
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+
+import java.util.List;
+
+/**
+ * One page of results from a source, with the cursor for the page after it.
+ */
+public final class ResultPage {
+    private final List<SearchResult> results;
+    private final PageCursor next;
+    private final long totalResults;
+
+    /**
+     * @param results the results on this page
+     * @param next cursor for the following page, null if this is the last one
+     * @param totalResults total hits reported by the source, -1 if unknown
+     */
+    public ResultPage(List<SearchResult> results, PageCursor next, long totalResults) {
+        this.results = results;
+        this.next = next;
+        this.totalResults = totalResults;
+    }
+
+    public List<SearchResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Cursor for the following page, or null if there is none.
+     */
+    public PageCursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Total number of hits reported by the source, -1 if unknown.
+     */
+    public long getTotalResults() {
+        return totalResults;
+    }
+}
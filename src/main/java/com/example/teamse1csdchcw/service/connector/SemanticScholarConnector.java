@@ -6,20 +6,30 @@ import com.example.teamse1csdchcw.domain.search.SearchResult;
 import com.example.teamse1csdchcw.domain.source.SourceType;
 import com.example.teamse1csdchcw.exception.ConnectorException;
 import com.example.teamse1csdchcw.util.http.HttpClientFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.RequestBody;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -32,19 +42,21 @@ import java.util.UUID;
  * - Author information
  * - Links to open access PDFs
  */
-public class SemanticScholarConnector implements SourceConnector {
+public class SemanticScholarConnector implements SourceConnector, DoiBatchLookup {
     private static final Logger logger = LoggerFactory.getLogger(SemanticScholarConnector.class);
     private static final String API_URL = "https://api.semanticscholar.org/graph/v1/paper/search";
+    private static final String BATCH_URL = "https://api.semanticscholar.org/graph/v1/paper/batch";
+    // the batch endpoint accepts up to 500 IDs per request
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private static final String FIELDS = "paperId,externalIds,title,abstract,year,authors,publicationDate,venue,citationCount,openAccessPdf,fieldsOfStudy";
 
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final String apiKey;
-    private long lastRequestTime = 0;
-    private static final long MIN_REQUEST_INTERVAL_MS = 1000; // 1 request per second for free tier
 
     public SemanticScholarConnector() {
-        this.httpClient = HttpClientFactory.getDefaultClient();
+        this.httpClient = HttpClientFactory.getConnectorClient();
         this.objectMapper = new ObjectMapper();
         // API key is optional but recommended for higher rate limits
         this.apiKey = System.getenv("SEMANTIC_SCHOLAR_API_KEY");
@@ -54,7 +66,7 @@ public class SemanticScholarConnector implements SourceConnector {
     }
 
     public SemanticScholarConnector(String apiKey) {
-        this.httpClient = HttpClientFactory.getDefaultClient();
+        this.httpClient = HttpClientFactory.getConnectorClient();
         this.objectMapper = new ObjectMapper();
         this.apiKey = apiKey;
     }
@@ -82,18 +94,6 @@ public class SemanticScholarConnector implements SourceConnector {
 
             logger.debug("Semantic Scholar search URL: {}", url);
 
-            // Implement rate limiting
-            synchronized (this) {
-                long now = System.currentTimeMillis();
-                long timeSinceLastRequest = now - lastRequestTime;
-                if (timeSinceLastRequest < MIN_REQUEST_INTERVAL_MS) {
-                    long sleepTime = MIN_REQUEST_INTERVAL_MS - timeSinceLastRequest;
-                    logger.debug("Rate limiting: sleeping for {}ms", sleepTime);
-                    Thread.sleep(sleepTime);
-                }
-                lastRequestTime = System.currentTimeMillis();
-            }
-
             Request.Builder requestBuilder = new Request.Builder()
                     .url(url.toString())
                     .get();
@@ -105,44 +105,15 @@ public class SemanticScholarConnector implements SourceConnector {
 
             Request request = requestBuilder.build();
 
-            // Retry logic with exponential backoff for 429 errors
-            int maxRetries = 3;
-            int retryCount = 0;
-            long backoffMs = 2000; // Start with 2 seconds
-
-            while (retryCount < maxRetries) {
-                try (Response response = httpClient.newCall(request).execute()) {
-                    if (response.code() == 429) {
-                        // Rate limited - backoff and retry
-                        retryCount++;
-                        if (retryCount >= maxRetries) {
-                            logger.warn("Semantic Scholar rate limit exceeded after {} retries", maxRetries);
-                            throw new ConnectorException("Semantic Scholar API returned: " + response.code());
-                        }
-
-                        logger.info("Rate limited by Semantic Scholar, backing off for {}ms (attempt {}/{})",
-                                backoffMs, retryCount, maxRetries);
-                        Thread.sleep(backoffMs);
-                        backoffMs *= 2; // Exponential backoff
-                        continue;
-                    }
-
-                    if (!response.isSuccessful()) {
-                        throw new ConnectorException("Semantic Scholar API returned: " + response.code());
-                    }
-
-                    String jsonContent = response.body().string();
-                    return parseJsonResponse(jsonContent);
+            // 429 backoff is handled by RetryAfterInterceptor in the shared client
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new ConnectorException("Semantic Scholar API returned: " + response.code());
                 }
-            }
 
-            // If we exhausted retries
-            throw new ConnectorException("Semantic Scholar rate limit exceeded after retries");
+                return parseJsonResponse(response.body().byteStream());
+            }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.error("Semantic Scholar search interrupted", e);
-            throw new ConnectorException("Semantic Scholar search interrupted", e);
         } catch (IOException e) {
             logger.error("Semantic Scholar search failed", e);
             throw new ConnectorException("Semantic Scholar search failed", e);
@@ -177,161 +148,232 @@ public class SemanticScholarConnector implements SourceConnector {
     /**
      * Parse Semantic Scholar JSON response into search results.
      */
-    private List<SearchResult> parseJsonResponse(String json) {
+    List<SearchResult> parseJsonResponse(InputStream json) {
         List<SearchResult> results = new ArrayList<>();
 
-        try {
-            JsonNode root = objectMapper.readTree(json);
-            JsonNode data = root.get("data");
-
-            if (data == null || !data.isArray()) {
+        // stream to the data array and bind one paper at a time; the page is never held as a whole
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (!JsonStreams.moveToArray(parser, "data")) {
                 logger.warn("No data found in Semantic Scholar response");
                 return results;
             }
 
-            for (JsonNode item : data) {
-                AcademicPaper paper = new AcademicPaper();
-                paper.setId(UUID.randomUUID().toString());
-                paper.setSource(SourceType.SEMANTIC_SCHOLAR);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                results.add(parsePaper(objectMapper.readTree(parser)));
+            }
 
-                // Extract paper ID
-                JsonNode paperIdNode = item.get("paperId");
-                if (paperIdNode != null) {
-                    String paperId = paperIdNode.asText();
-                    paper.setUrl("https://www.semanticscholar.org/paper/" + paperId);
-                }
+            logger.info("Parsed {} results from Semantic Scholar", results.size());
 
-                // Extract external IDs (DOI, ArXiv, etc.)
-                JsonNode externalIds = item.get("externalIds");
-                if (externalIds != null) {
-                    if (externalIds.has("DOI")) {
-                        paper.setDoi(externalIds.get("DOI").asText());
-                    }
-                    if (externalIds.has("ArXiv")) {
-                        paper.setArxivId(externalIds.get("ArXiv").asText());
-                    }
-                    if (externalIds.has("PubMed")) {
-                        paper.setPmid(externalIds.get("PubMed").asText());
-                    }
-                }
+        } catch (Exception e) {
+            logger.error("Failed to parse Semantic Scholar JSON", e);
+        }
 
-                // Extract title
-                JsonNode titleNode = item.get("title");
-                if (titleNode != null) {
-                    paper.setTitle(titleNode.asText());
-                }
+        return results;
+    }
 
-                // Extract abstract
-                JsonNode abstractNode = item.get("abstract");
-                if (abstractNode != null && !abstractNode.isNull()) {
-                    String abstractText = abstractNode.asText();
-                    paper.setAbstractText(abstractText);
-                    paper.setSnippet(abstractText.length() > 200 ?
-                            abstractText.substring(0, 200) + "..." : abstractText);
-                } else {
-                    // Use title as snippet if no abstract
-                    String title = paper.getTitle();
-                    if (title != null) {
-                        paper.setSnippet(title.length() > 200 ?
-                                title.substring(0, 200) + "..." : title);
-                    }
-                }
+    /**
+     * Convert one Semantic Scholar paper object into a paper.
+     */
+    private AcademicPaper parsePaper(JsonNode item) {
+        AcademicPaper paper = new AcademicPaper();
+        paper.setId(UUID.randomUUID().toString());
+        paper.setSource(SourceType.SEMANTIC_SCHOLAR);
+
+        // Extract paper ID
+        JsonNode paperIdNode = item.get("paperId");
+        if (paperIdNode != null) {
+            String paperId = paperIdNode.asText();
+            paper.setUrl("https://www.semanticscholar.org/paper/" + paperId);
+        }
 
-                // Extract authors
-                JsonNode authorsNode = item.get("authors");
-                if (authorsNode != null && authorsNode.isArray()) {
-                    List<String> authors = new ArrayList<>();
-                    for (JsonNode author : authorsNode) {
-                        if (author.has("name")) {
-                            authors.add(author.get("name").asText());
-                        }
-                    }
-                    paper.setAuthors(String.join(", ", authors));
+        // Extract external IDs (DOI, ArXiv, etc.)
+        JsonNode externalIds = item.get("externalIds");
+        if (externalIds != null) {
+            if (externalIds.has("DOI")) {
+                paper.setDoi(externalIds.get("DOI").asText());
+            }
+            if (externalIds.has("ArXiv")) {
+                paper.setArxivId(externalIds.get("ArXiv").asText());
+            }
+            if (externalIds.has("PubMed")) {
+                paper.setPmid(externalIds.get("PubMed").asText());
+            }
+        }
+
+        // Extract title
+        JsonNode titleNode = item.get("title");
+        if (titleNode != null) {
+            paper.setTitle(titleNode.asText());
+        }
+
+        // Extract abstract
+        JsonNode abstractNode = item.get("abstract");
+        if (abstractNode != null && !abstractNode.isNull()) {
+            String abstractText = abstractNode.asText();
+            paper.setAbstractText(abstractText);
+            paper.setSnippet(abstractText.length() > 200 ?
+                    abstractText.substring(0, 200) + "..." : abstractText);
+        } else {
+            // Use title as snippet if no abstract
+            String title = paper.getTitle();
+            if (title != null) {
+                paper.setSnippet(title.length() > 200 ?
+                        title.substring(0, 200) + "..." : title);
+            }
+        }
+
+        // Extract authors
+        JsonNode authorsNode = item.get("authors");
+        if (authorsNode != null && authorsNode.isArray()) {
+            List<String> authors = new ArrayList<>();
+            for (JsonNode author : authorsNode) {
+                if (author.has("name")) {
+                    authors.add(author.get("name").asText());
                 }
+            }
+            paper.setAuthors(String.join(", ", authors));
+        }
 
-                // Extract publication date
-                JsonNode dateNode = item.get("publicationDate");
-                if (dateNode != null && !dateNode.isNull()) {
+        // Extract publication date
+        JsonNode dateNode = item.get("publicationDate");
+        if (dateNode != null && !dateNode.isNull()) {
+            try {
+                String dateStr = dateNode.asText();
+                LocalDate date = LocalDate.parse(dateStr);
+                paper.setPublicationDate(date);
+            } catch (Exception e) {
+                // Try year only
+                JsonNode yearNode = item.get("year");
+                if (yearNode != null && !yearNode.isNull()) {
                     try {
-                        String dateStr = dateNode.asText();
-                        LocalDate date = LocalDate.parse(dateStr);
-                        paper.setPublicationDate(date);
-                    } catch (Exception e) {
-                        // Try year only
-                        JsonNode yearNode = item.get("year");
-                        if (yearNode != null && !yearNode.isNull()) {
-                            try {
-                                int year = yearNode.asInt();
-                                paper.setPublicationDate(LocalDate.of(year, 1, 1));
-                            } catch (Exception ex) {
-                                logger.warn("Failed to parse Semantic Scholar date");
-                            }
-                        }
-                    }
-                } else {
-                    // Use year field
-                    JsonNode yearNode = item.get("year");
-                    if (yearNode != null && !yearNode.isNull()) {
-                        try {
-                            int year = yearNode.asInt();
-                            paper.setPublicationDate(LocalDate.of(year, 1, 1));
-                        } catch (Exception e) {
-                            logger.warn("Failed to parse Semantic Scholar year");
-                        }
+                        int year = yearNode.asInt();
+                        paper.setPublicationDate(LocalDate.of(year, 1, 1));
+                    } catch (Exception ex) {
+                        logger.warn("Failed to parse Semantic Scholar date");
                     }
                 }
-
-                // Extract venue
-                JsonNode venueNode = item.get("venue");
-                if (venueNode != null && !venueNode.isNull()) {
-                    String venue = venueNode.asText();
-                    if (!venue.isEmpty()) {
-                        paper.setVenue(venue);
-                        // Also set as journal if it looks like a journal
-                        if (venue.toLowerCase().contains("journal") ||
-                            venue.toLowerCase().contains("proceedings")) {
-                            paper.setJournal(venue);
-                        }
-                    }
+            }
+        } else {
+            // Use year field
+            JsonNode yearNode = item.get("year");
+            if (yearNode != null && !yearNode.isNull()) {
+                try {
+                    int year = yearNode.asInt();
+                    paper.setPublicationDate(LocalDate.of(year, 1, 1));
+                } catch (Exception e) {
+                    logger.warn("Failed to parse Semantic Scholar year");
                 }
+            }
+        }
 
-                // Extract citation count
-                JsonNode citationNode = item.get("citationCount");
-                if (citationNode != null && !citationNode.isNull()) {
-                    paper.setCitationCount(citationNode.asInt());
+        // Extract venue
+        JsonNode venueNode = item.get("venue");
+        if (venueNode != null && !venueNode.isNull()) {
+            String venue = venueNode.asText();
+            if (!venue.isEmpty()) {
+                paper.setVenue(venue);
+                // Also set as journal if it looks like a journal
+                if (venue.toLowerCase().contains("journal") ||
+                    venue.toLowerCase().contains("proceedings")) {
+                    paper.setJournal(venue);
                 }
+            }
+        }
 
-                // Extract fields of study (keywords)
-                JsonNode fieldsNode = item.get("fieldsOfStudy");
-                if (fieldsNode != null && fieldsNode.isArray()) {
-                    List<String> keywords = new ArrayList<>();
-                    for (JsonNode field : fieldsNode) {
-                        keywords.add(field.asText());
-                    }
-                    paper.setKeywords(keywords);
+        // Extract citation count
+        JsonNode citationNode = item.get("citationCount");
+        if (citationNode != null && !citationNode.isNull()) {
+            paper.setCitationCount(citationNode.asInt());
+        }
+
+        // Extract fields of study (keywords)
+        JsonNode fieldsNode = item.get("fieldsOfStudy");
+        if (fieldsNode != null && fieldsNode.isArray()) {
+            List<String> keywords = new ArrayList<>();
+            for (JsonNode field : fieldsNode) {
+                keywords.add(field.asText());
+            }
+            paper.setKeywords(keywords);
+        }
+
+        // Extract open access PDF
+        JsonNode openAccessNode = item.get("openAccessPdf");
+        if (openAccessNode != null && !openAccessNode.isNull()) {
+            if (openAccessNode.has("url")) {
+                String pdfUrl = openAccessNode.get("url").asText();
+                if (pdfUrl != null && !pdfUrl.isEmpty()) {
+                    paper.setPdfUrl(pdfUrl);
                 }
+            }
+        }
 
-                // Extract open access PDF
-                JsonNode openAccessNode = item.get("openAccessPdf");
-                if (openAccessNode != null && !openAccessNode.isNull()) {
-                    if (openAccessNode.has("url")) {
-                        String pdfUrl = openAccessNode.get("url").asText();
-                        if (pdfUrl != null && !pdfUrl.isEmpty()) {
-                            paper.setPdfUrl(pdfUrl);
-                        }
-                    }
+        return paper;
+    }
+
+    /**
+     * Look up many papers by DOI with one POST to the /paper/batch endpoint.
+     * The response lists the papers in request order, with null for unknown IDs.
+     */
+    @Override
+    public Map<String, AcademicPaper> lookupDois(List<String> dois) throws ConnectorException {
+        try {
+            ObjectNode body = objectMapper.createObjectNode();
+            ArrayNode ids = body.putArray("ids");
+            dois.forEach(doi -> ids.add("DOI:" + doi));
+
+            Request.Builder requestBuilder = new Request.Builder()
+                    .url(BATCH_URL + "?fields=" + FIELDS)
+                    .post(RequestBody.create(objectMapper.writeValueAsString(body), JSON));
+
+            if (apiKey != null && !apiKey.isEmpty()) {
+                requestBuilder.header("x-api-key", apiKey);
+            }
+
+            try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new ConnectorException("Semantic Scholar batch API returned: " + response.code());
                 }
 
-                results.add(paper);
+                return parseBatchResponse(response.body().byteStream(), dois);
             }
 
-            logger.info("Parsed {} results from Semantic Scholar", results.size());
+        } catch (IOException e) {
+            logger.error("Semantic Scholar batch lookup failed", e);
+            throw new ConnectorException("Semantic Scholar batch lookup failed", e);
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to parse Semantic Scholar JSON", e);
+    /**
+     * Parse a /paper/batch response, keyed by the lower-case DOI that was asked for.
+     */
+    Map<String, AcademicPaper> parseBatchResponse(InputStream json, List<String> dois) throws IOException {
+        Map<String, AcademicPaper> found = new HashMap<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                logger.warn("Unexpected Semantic Scholar batch response");
+                return found;
+            }
+
+            int index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token == JsonToken.START_OBJECT && index < dois.size()) {
+                    found.put(dois.get(index).toLowerCase(Locale.ROOT), parsePaper(objectMapper.readTree(parser)));
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
         }
 
-        return results;
+        logger.debug("Semantic Scholar knew {} of {} DOIs", found.size(), dois.size());
+        return found;
+    }
+
+    @Override
+    public int getMaxDoiBatchSize() {
+        return MAX_BATCH_SIZE;
     }
 
     @Override
@@ -339,6 +381,16 @@ public class SemanticScholarConnector implements SourceConnector {
         return SourceType.SEMANTIC_SCHOLAR;
     }
 
+    @Override
+    public String getApiHost() {
+        return "api.semanticscholar.org";
+    }
+
+    @Override
+    public boolean hasApiKey() {
+        return apiKey != null && !apiKey.isEmpty();
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -352,7 +404,7 @@ public class SemanticScholarConnector implements SourceConnector {
 
             Request request = requestBuilder.build();
 
-            try (Response response = httpClient.newCall(request).execute()) {
+            try (Response response = HttpClientFactory.getDefaultClient().newCall(request).execute()) {
                 // Consider available if we get 200 OK or 429 Rate Limited
                 // 429 means the API is working, just rate limited
                 return response.isSuccessful() || response.code() == 429;
@@ -7,6 +7,7 @@ import com.example.teamse1csdchcw.domain.source.SourceType;
 // -- custom exception for connector failures --
 import com.example.teamse1csdchcw.exception.ConnectorException;
 
+import java.net.URI;
 import java.util.List;
 
 /**
@@ -31,6 +32,33 @@ public interface SourceConnector {
     // -- each impl translates query to api-specific format --
     List<SearchResult> search(SearchQuery query, int maxResults) throws ConnectorException;
 
+    /**
+     * Fetches one page of results.
+     * Start with {@link PageCursor#start()} and follow {@link ResultPage#getNext()}.
+     *
+     * @param query    The parsed search query
+     * @param cursor   Position of the page to fetch
+     * @param pageSize Number of results to request, at most {@link #getMaxPageSize()}
+     * @return the page and the cursor of the page after it
+     * @throws ConnectorException if the request fails
+     */
+    // -- default: sources without paging support return a single page --
+    default ResultPage fetchPage(SearchQuery query, PageCursor cursor, int pageSize) throws ConnectorException {
+        if (!cursor.isStart()) {
+            return new ResultPage(List.of(), null, -1);
+        }
+        return new ResultPage(search(query, pageSize), null, -1);
+    }
+
+    /**
+     * Largest page the source returns in one request.
+     * Searches asking for more results than this are paged.
+     */
+    // -- unlimited for sources that cannot page: one request returns everything --
+    default int getMaxPageSize() {
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * Gets the source type this connector handles.
      */
@@ -60,4 +88,19 @@ public interface SourceConnector {
     default String getBaseUrl() {
         return getSourceType().getBaseUrl();
     }
+
+    /**
+     * Gets the host the API requests go to, used as the rate limiting key.
+     */
+    // -- api host often differs from the website (export.arxiv.org vs arxiv.org) --
+    default String getApiHost() {
+        return URI.create(getBaseUrl()).getHost();
+    }
+
+    /**
+     * Whether requests are sent with an API key (raises some sources' rate limits).
+     */
+    default boolean hasApiKey() {
+        return false;
+    }
 }
@@ -0,0 +1,135 @@
+package com.example.teamse1csdchcw.service.connector;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Helpers for the StAX pull parsers used by the XML connectors.
+ * Parsing straight from the response stream means only the entry being
+ * read is held in memory, instead of the whole body plus a DOM.
+ */
+final class StaxSupport {
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private StaxSupport() {
+    }
+
+    // the factory is thread-safe once configured; DTDs and external entities are never loaded
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+        return FACTORY.createXMLStreamReader(in);
+    }
+
+    static void closeQuietly(XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // nothing left to do
+        }
+    }
+
+    /**
+     * Moves past the prolog (declaration, DOCTYPE, comments) to the root element's start tag.
+     * Does nothing if the reader is already on a start tag.
+     */
+    static void moveToRoot(XMLStreamReader reader) throws XMLStreamException {
+        while (!reader.isStartElement() && reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    /**
+     * Advances to the next child of the current element.
+     * Each child returned must be consumed completely (readText, skip or its own loop).
+     *
+     * @return true if positioned on a child's start tag, false once the current element ends
+     */
+    static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads all text inside the current element, including nested markup
+     * such as &lt;i&gt;, with whitespace collapsed. Leaves the reader on the end tag.
+     */
+    static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        sb.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                default -> {
+                }
+            }
+        }
+        return collapseWhitespace(sb);
+    }
+
+    /**
+     * Skips the current element and everything inside it.
+     */
+    static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Gets an attribute of the current start tag, or "" if absent.
+     */
+    static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+    // same normalization as Jsoup's text(): runs of whitespace become one space, trimmed
+    private static String collapseWhitespace(CharSequence text) {
+        StringBuilder out = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.teamse1csdchcw.service.download;
+
+import com.example.teamse1csdchcw.config.ConfigService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Caps download bandwidth, for all downloads together and per host, with token buckets
+ * counting bytes. Download segments report every chunk they write and are held back
+ * until the buckets have refilled, so several downloads share the configured rate.
+ * Limits come from download.bandwidth and can be changed while downloads run; 0 means
+ * unlimited. Also measures the current throughput for the Download Manager.
+ */
+public class BandwidthLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(BandwidthLimiter.class);
+    // largest chunk a segment writes between checks when unlimited
+    private static final long MAX_CHUNK = 1024 * 1024;
+    private static final long MIN_CHUNK = 16 * 1024;
+    // a bucket holds at most this much of its rate, so an idle link does not allow a long burst
+    private static final double BURST_SECONDS = 0.5;
+
+    private static BandwidthLimiter instance;
+
+    private final ByteBucket global;
+    private final ConcurrentMap<String, ByteBucket> hosts = new ConcurrentHashMap<>();
+    private final ThroughputMeter totalMeter = new ThroughputMeter();
+    private final ConcurrentMap<String, ThroughputMeter> hostMeters = new ConcurrentHashMap<>();
+    private volatile long perHostBytesPerSecond;
+
+    private BandwidthLimiter() {
+        ConfigService config = ConfigService.getInstance();
+        this.global = new ByteBucket(1024L * config.getInt("download.bandwidth.max_kbps", 0));
+        this.perHostBytesPerSecond = 1024L * config.getInt("download.bandwidth.per_host_kbps", 0);
+    }
+
+    /**
+     * Get singleton instance.
+     */
+    public static synchronized BandwidthLimiter getInstance() {
+        if (instance == null) {
+            instance = new BandwidthLimiter();
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the total bandwidth of all downloads, in bytes per second; 0 for no limit.
+     */
+    public void setGlobalLimit(long bytesPerSecond) {
+        global.setRate(bytesPerSecond);
+        logger.info("Download bandwidth limit: {}", bytesPerSecond > 0 ? bytesPerSecond + " B/s" : "none");
+    }
+
+    public long getGlobalLimit() {
+        return global.getRate();
+    }
+
+    /**
+     * Sets the bandwidth of each host, in bytes per second; 0 for no limit.
+     */
+    public void setPerHostLimit(long bytesPerSecond) {
+        perHostBytesPerSecond = Math.max(0, bytesPerSecond);
+        hosts.values().forEach(bucket -> bucket.setRate(perHostBytesPerSecond));
+        logger.info("Per-host download bandwidth limit: {}", bytesPerSecond > 0 ? bytesPerSecond + " B/s" : "none");
+    }
+
+    public long getPerHostLimit() {
+        return perHostBytesPerSecond;
+    }
+
+    /**
+     * How many bytes a segment should move before calling {@link #consume} again:
+     * about a tenth of a second at the tightest limit that applies, so waits stay short.
+     */
+    long chunkSize(String host) {
+        long rate = tightest(global.getRate(), perHostBytesPerSecond);
+        if (rate <= 0) {
+            return MAX_CHUNK;
+        }
+        return Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, rate / 10));
+    }
+
+    /**
+     * Records bytes received from a host and waits until the limits allow them.
+     * The bytes are already read: the wait delays the next read instead, which is
+     * what slows the sender down through TCP flow control.
+     */
+    void consume(String host, long bytes) throws InterruptedIOException {
+        totalMeter.record(bytes);
+        hostMeters.computeIfAbsent(host, h -> new ThroughputMeter()).record(bytes);
+
+        long waitNanos = Math.max(global.take(bytes), hostBucket(host).take(bytes));
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Download interrupted while throttled");
+            }
+        }
+    }
+
+    /**
+     * Bytes per second received by all downloads, averaged over the last few seconds.
+     */
+    public double getThroughput() {
+        return totalMeter.bytesPerSecond();
+    }
+
+    /**
+     * Bytes per second received per host, for hosts that sent anything recently.
+     */
+    public Map<String, Double> getHostThroughput() {
+        Map<String, Double> result = new TreeMap<>();
+        hostMeters.forEach((host, meter) -> {
+            double rate = meter.bytesPerSecond();
+            if (rate > 0) {
+                result.put(host, rate);
+            }
+        });
+        return result;
+    }
+
+    private ByteBucket hostBucket(String host) {
+        return hosts.computeIfAbsent(host, h -> new ByteBucket(perHostBytesPerSecond));
+    }
+
+    private static long tightest(long a, long b) {
+        if (a <= 0) {
+            return b;
+        }
+        return b <= 0 ? a : Math.min(a, b);
+    }
+
+    /**
+     * Token bucket over bytes. Like the request buckets in RateLimiter it may go into
+     * debt: a chunk is always accepted and the deficit becomes the caller's wait.
+     */
+    private static class ByteBucket {
+        private long bytesPerSecond;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+
+        ByteBucket(long bytesPerSecond) {
+            setRate(bytesPerSecond);
+        }
+
+        synchronized void setRate(long bytesPerSecond) {
+            this.bytesPerSecond = Math.max(0, bytesPerSecond);
+            this.tokens = Math.min(tokens, burst());
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized long getRate() {
+            return bytesPerSecond;
+        }
+
+        /**
+         * Takes bytes from the bucket.
+         *
+         * @return nanoseconds until the deficit is refilled, 0 if there is none
+         */
+        synchronized long take(long bytes) {
+            if (bytesPerSecond <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(burst(), tokens + (now - lastRefillNanos) * bytesPerSecond / 1e9);
+            lastRefillNanos = now;
+            tokens -= bytes;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1e9 / bytesPerSecond);
+        }
+
+        private double burst() {
+            return bytesPerSecond * BURST_SECONDS;
+        }
+    }
+
+    /**
+     * Bytes per second over a sliding window of one-second slots.
+     */
+    private static class ThroughputMeter {
+        private static final int SLOTS = 4;
+        private final long[] bytes = new long[SLOTS];
+        private final long[] seconds = {Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE};
+
+        synchronized void record(long count) {
+            long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+            int slot = Math.floorMod(second, SLOTS);
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                bytes[slot] = 0;
+            }
+            bytes[slot] += count;
+        }
+
+        // the current second is still filling up, so only complete seconds count
+        synchronized double bytesPerSecond() {
+            long now = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+            long total = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                if (seconds[i] < now && seconds[i] >= now - (SLOTS - 1)) {
+                    total += bytes[i];
+                }
+            }
+            return (double) total / (SLOTS - 1);
+        }
+    }
+}
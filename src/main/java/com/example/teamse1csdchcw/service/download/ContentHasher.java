@@ -0,0 +1,107 @@
+package com.example.teamse1csdchcw.service.download;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of a download, computed while it streams. A digest only takes bytes in file
+ * order, so only the segment that starts where the hash stands is hashed on the fly;
+ * whatever other segments wrote is read back from the ".part" file when the download is done.
+ * For the usual single-segment download that means the file is never read twice.
+ */
+final class ContentHasher {
+    private static final int READ_BUFFER = 256 * 1024;
+
+    private MessageDigest digest = newDigest();
+    // bytes of the file, from offset 0, that are in the digest
+    private long hashed;
+    private boolean streaming;
+
+    /**
+     * Forgets everything hashed so far; the file is being downloaded again.
+     */
+    synchronized void reset() {
+        digest = newDigest();
+        hashed = 0;
+        streaming = false;
+    }
+
+    /**
+     * Wraps the body of a segment starting at position so its bytes are hashed as they are read.
+     * Returns the source unchanged if it does not continue the hash.
+     */
+    synchronized ReadableByteChannel wrap(ReadableByteChannel source, long position) {
+        if (streaming || position != hashed) {
+            return source;
+        }
+        streaming = true;
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                int start = dst.position();
+                int read = source.read(dst);
+                if (read > 0) {
+                    update(dst.duplicate().position(start).limit(start + read));
+                }
+                return read;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return source.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                source.close();
+            }
+        };
+    }
+
+    /**
+     * Hashes the rest of the file and returns the lower-case hex digest.
+     */
+    synchronized String finish(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER);
+            long position = hashed;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                position += read;
+            }
+            hashed = position;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hashes a whole file, used to check stored files.
+     */
+    static String sha256(Path file) throws IOException {
+        return new ContentHasher().finish(file);
+    }
+
+    private synchronized void update(ByteBuffer bytes) {
+        hashed += bytes.remaining();
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every jdk ships sha-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
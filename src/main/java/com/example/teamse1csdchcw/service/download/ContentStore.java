@@ -0,0 +1,219 @@
+package com.example.teamse1csdchcw.service.download;
+
+import com.example.teamse1csdchcw.repository.PdfBlobRepository;
+import com.example.teamse1csdchcw.repository.PdfBlobRepository.Blob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Content-addressed store for downloaded PDFs. Each file is kept once, named by its SHA-256
+ * (~/.libsearch/data/pdfs/ab/ab12...ef.pdf), so the same paper fetched from two mirrors
+ * takes the space of one and generic names like "pdf.pdf" cannot overwrite each other.
+ * The pdf_blob_refs table maps DOIs, result IDs and URLs to stored files; the files users
+ * see in their download folder are hard links to the store (symbolic links, or copies,
+ * where the file system has no hard links).
+ */
+public class ContentStore {
+    private static final Logger logger = LoggerFactory.getLogger(ContentStore.class);
+    private static final String DEFAULT_STORE_DIR = System.getProperty("user.home") + "/.libsearch/data/pdfs";
+
+    private final Path root;
+    private final PdfBlobRepository repository;
+
+    public ContentStore() {
+        this(Paths.get(DEFAULT_STORE_DIR), new PdfBlobRepository());
+    }
+
+    public ContentStore(Path root, PdfBlobRepository repository) {
+        this.root = root;
+        this.repository = repository;
+    }
+
+    /**
+     * Keys a download is indexed under, most specific first. Null values are skipped.
+     */
+    public static List<String> keys(String doi, String resultId, String url) {
+        List<String> keys = new ArrayList<>(3);
+        if (doi != null && !doi.isBlank()) {
+            keys.add("doi:" + doi.trim().toLowerCase(Locale.ROOT));
+        }
+        if (resultId != null) {
+            keys.add("result:" + resultId);
+        }
+        if (url != null) {
+            keys.add("url:" + url);
+        }
+        return keys;
+    }
+
+    /**
+     * Where a download keeps its bytes until it is complete and hashed.
+     */
+    public Path partFile(String downloadId) {
+        return root.resolve("tmp").resolve(downloadId + ".part");
+    }
+
+    public Path blobPath(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256 + ".pdf");
+    }
+
+    /**
+     * Finds a stored file for any of the keys. A file that is missing or whose content no
+     * longer matches its hash is dropped from the index, so the paper is downloaded again.
+     * Only size and modification time are checked here, since this runs on every click;
+     * the file is hashed again only if it was modified after it was stored.
+     *
+     * @return the stored file, or null if there is none or it failed its check
+     */
+    public Blob find(List<String> keys) {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        try {
+            Blob blob = repository.findByKeys(keys);
+            if (blob == null) {
+                return null;
+            }
+            if (isIntact(blob)) {
+                return blob;
+            }
+            logger.warn("Stored PDF {} is missing or corrupt, dropping it", blob.getSha256());
+            Files.deleteIfExists(blobPath(blob.getSha256()));
+            repository.deleteBlob(blob.getSha256());
+        } catch (SQLException | IOException e) {
+            logger.warn("PDF store lookup failed: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Moves a completed download into the store under its hash and indexes it under the keys.
+     * If the store already has this content the new copy is deleted.
+     */
+    public Blob put(Path partFile, String sha256, List<String> keys) throws IOException {
+        Path blobPath = blobPath(sha256);
+        long size = Files.size(partFile);
+        if (Files.exists(blobPath) && Files.size(blobPath) == size) {
+            logger.info("PDF already stored as {}, discarding duplicate download", sha256);
+            Files.delete(partFile);
+        } else {
+            Files.createDirectories(blobPath.getParent());
+            try {
+                Files.move(partFile, blobPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partFile, blobPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            blobPath.toFile().setReadOnly();
+        }
+
+        Blob blob = new Blob(sha256, size, System.currentTimeMillis());
+        try {
+            repository.saveBlob(blob);
+            repository.saveRefs(keys, sha256);
+        } catch (SQLException e) {
+            // the file is stored either way; without the index it is only downloaded again next time
+            logger.warn("Failed to index stored PDF {}: {}", sha256, e.getMessage());
+        }
+        return blob;
+    }
+
+    /**
+     * Adds keys to an already stored file, e.g. the result ID of a new search hit for a known DOI.
+     */
+    public void addKeys(String sha256, List<String> keys) {
+        try {
+            repository.saveRefs(keys, sha256);
+        } catch (SQLException e) {
+            logger.warn("Failed to index stored PDF {}: {}", sha256, e.getMessage());
+        }
+    }
+
+    /**
+     * Makes a stored file visible at destination. If another file already has that name,
+     * the link gets the first characters of the hash appended instead of replacing it.
+     *
+     * @return the path the file is visible at
+     */
+    public Path link(String sha256, Path destination) throws IOException {
+        Path blobPath = blobPath(sha256);
+        Files.createDirectories(destination.getParent());
+
+        Path target = destination;
+        if (Files.exists(target) && !Files.isSameFile(target, blobPath)) {
+            target = withSuffix(destination, sha256.substring(0, 8));
+        }
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            if (Files.exists(target) && Files.isSameFile(target, blobPath)) {
+                return target;
+            }
+            // a dangling link or an older copy of this name
+            Files.delete(target);
+        }
+
+        try {
+            Files.createLink(target, blobPath);
+        } catch (UnsupportedOperationException | IOException e) {
+            try {
+                Files.createSymbolicLink(target, blobPath.toAbsolutePath());
+            } catch (UnsupportedOperationException | IOException symlinkFailure) {
+                logger.debug("Cannot link {} ({}), copying it", target, symlinkFailure.getMessage());
+                Files.copy(blobPath, target);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Hashes a stored file again. A file that still matches gets the blob's stored time
+     * as modification time, so lookups trust it again without hashing.
+     *
+     * @return true if the file exists and matches its hash
+     */
+    public boolean verify(Blob blob) throws IOException {
+        Path blobPath = blobPath(blob.getSha256());
+        if (!Files.exists(blobPath) || !blob.getSha256().equals(ContentHasher.sha256(blobPath))) {
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(blobPath, FileTime.fromMillis(blob.getStoredAt()));
+        } catch (IOException e) {
+            logger.debug("Cannot reset modification time of {}: {}", blobPath, e.getMessage());
+        }
+        return true;
+    }
+
+    // the move into the store keeps the download's mtime, so an untouched file is never newer than storedAt
+    private boolean isIntact(Blob blob) throws IOException {
+        Path blobPath = blobPath(blob.getSha256());
+        if (!Files.exists(blobPath) || Files.size(blobPath) != blob.getSize()) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(blobPath).toMillis() <= blob.getStoredAt()) {
+            return true;
+        }
+        return verify(blob);
+    }
+
+    // "paper.pdf" + "ab12cd34" -> "paper-ab12cd34.pdf"
+    private static Path withSuffix(Path path, String suffix) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String renamed = dot > 0
+                ? name.substring(0, dot) + "-" + suffix + name.substring(dot)
+                : name + "-" + suffix;
+        return path.resolveSibling(renamed);
+    }
+}
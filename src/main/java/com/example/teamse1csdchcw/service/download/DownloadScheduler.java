@@ -0,0 +1,147 @@
+package com.example.teamse1csdchcw.service.download;
+
+import com.example.teamse1csdchcw.repository.DownloadRepository;
+import com.example.teamse1csdchcw.repository.DownloadRepository.Download;
+import com.example.teamse1csdchcw.repository.DownloadRepository.Download.DownloadStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decides which queued downloads run. The queue is the downloads table itself: pending
+ * rows are taken by priority, then in the order they were queued, and claimed with a
+ * conditional update, so nothing is lost when the application exits mid-download.
+ * Besides the global limit, at most maxPerHost downloads run against one host at a time;
+ * a bulk download of a session then spreads over publishers instead of queueing up
+ * behind a single one.
+ */
+final class DownloadScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(DownloadScheduler.class);
+
+    private final DownloadRepository repository;
+    private final int maxConcurrent;
+    private final int maxPerHost;
+    private final Consumer<Download> launcher;
+    private final Map<String, String> runningHosts = new HashMap<>();
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+
+    /**
+     * @param launcher runs a claimed download and calls {@link #finished} when it is done
+     */
+    DownloadScheduler(DownloadRepository repository, int maxConcurrent, int maxPerHost,
+                      Consumer<Download> launcher) {
+        this.repository = repository;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.launcher = launcher;
+    }
+
+    /**
+     * Puts downloads that were IN_PROGRESS when the application last stopped back in the queue.
+     * Call once, before the first {@link #schedule}.
+     */
+    synchronized void recover() {
+        try {
+            int recovered = repository.requeueInProgress();
+            if (recovered > 0) {
+                logger.info("Requeued {} interrupted download(s)", recovered);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to recover interrupted downloads", e);
+        }
+    }
+
+    /**
+     * Starts pending downloads, in queue order, until the global limit is reached.
+     * Downloads whose host is at its limit are skipped and keep their place.
+     */
+    synchronized void schedule() {
+        if (runningHosts.size() >= maxConcurrent) {
+            return;
+        }
+
+        List<Download> pending;
+        try {
+            pending = repository.findPending();
+        } catch (SQLException e) {
+            logger.error("Failed to read download queue", e);
+            return;
+        }
+
+        for (Download download : pending) {
+            if (runningHosts.size() >= maxConcurrent) {
+                break;
+            }
+            String host = host(download.getUrl());
+            if (runningPerHost.getOrDefault(host, 0) >= maxPerHost) {
+                continue;
+            }
+            if (!claim(download)) {
+                continue;
+            }
+
+            runningHosts.put(download.getId(), host);
+            runningPerHost.merge(host, 1, Integer::sum);
+            try {
+                launcher.accept(download);
+            } catch (RuntimeException e) {
+                // e.g. executor shut down; the row is requeued on the next start
+                logger.error("Failed to start download {}", download.getId(), e);
+                release(download.getId());
+            }
+        }
+    }
+
+    /**
+     * Frees the download's slot and starts whatever can run next.
+     */
+    void finished(String downloadId) {
+        synchronized (this) {
+            release(downloadId);
+        }
+        schedule();
+    }
+
+    synchronized int runningCount() {
+        return runningHosts.size();
+    }
+
+    private boolean claim(Download download) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (!repository.claim(download.getId(), now)) {
+                return false;
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to claim download {}", download.getId(), e);
+            return false;
+        }
+        download.setStatus(DownloadStatus.IN_PROGRESS);
+        download.setStartedAt(now);
+        return true;
+    }
+
+    private void release(String downloadId) {
+        String host = runningHosts.remove(downloadId);
+        if (host != null) {
+            runningPerHost.computeIfPresent(host, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return "";
+        }
+    }
+}
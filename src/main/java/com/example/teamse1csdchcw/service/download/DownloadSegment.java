@@ -0,0 +1,122 @@
+package com.example.teamse1csdchcw.service.download;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A byte range of a download and how much of it is already in the ".part" file.
+ * A download's segments are stored in downloads.segments as "start:end:written" entries
+ * separated by commas, so an interrupted download resumes where each segment stopped.
+ */
+final class DownloadSegment {
+    // -1 while the total size is unknown: the segment runs until the body ends
+    static final long OPEN_END = -1;
+
+    private final long start;
+    private volatile long end;
+    private volatile long written;
+
+    DownloadSegment(long start, long end, long written) {
+        this.start = start;
+        this.end = end;
+        this.written = written;
+    }
+
+    /**
+     * Splits a file of known size into count segments of about equal size.
+     */
+    static List<DownloadSegment> plan(long totalBytes, int count) {
+        List<DownloadSegment> segments = new ArrayList<>(count);
+        long size = totalBytes / count;
+        for (int i = 0; i < count; i++) {
+            long start = i * size;
+            long end = i == count - 1 ? totalBytes - 1 : start + size - 1;
+            segments.add(new DownloadSegment(start, end, 0));
+        }
+        return segments;
+    }
+
+    /**
+     * Parses the stored form, an empty list for null or malformed values.
+     */
+    static List<DownloadSegment> parse(String value) {
+        List<DownloadSegment> segments = new ArrayList<>();
+        if (value == null || value.isBlank()) {
+            return segments;
+        }
+        try {
+            for (String entry : value.split(",")) {
+                String[] parts = entry.split(":");
+                segments.add(new DownloadSegment(
+                        Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+            }
+        } catch (RuntimeException e) {
+            // unreadable state only costs a restart from zero
+            segments.clear();
+        }
+        return segments;
+    }
+
+    static String format(List<DownloadSegment> segments) {
+        return segments.stream()
+                .map(s -> s.start + ":" + s.end + ":" + s.written)
+                .collect(Collectors.joining(","));
+    }
+
+    static long written(List<DownloadSegment> segments) {
+        return segments.stream().mapToLong(DownloadSegment::getWritten).sum();
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    /**
+     * File offset of the next byte to fetch.
+     */
+    long position() {
+        return start + written;
+    }
+
+    long remaining() {
+        return end == OPEN_END ? Long.MAX_VALUE : end - position() + 1;
+    }
+
+    boolean isOpenEnded() {
+        return end == OPEN_END;
+    }
+
+    boolean isComplete() {
+        return end != OPEN_END && position() > end;
+    }
+
+    // only the thread fetching the segment writes to it
+    void advance(long bytes) {
+        written += bytes;
+    }
+
+    /**
+     * Closes an open-ended segment at the bytes received so far, once the body ended.
+     */
+    void finish() {
+        if (end == OPEN_END) {
+            end = position() - 1;
+        }
+    }
+
+    /**
+     * Value of the Range header that fetches the rest of this segment.
+     */
+    String rangeHeader() {
+        return "bytes=" + position() + "-" + (end == OPEN_END ? "" : String.valueOf(end));
+    }
+}
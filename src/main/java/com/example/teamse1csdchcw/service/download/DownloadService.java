@@ -1,16 +1,16 @@
 package com.example.teamse1csdchcw.service.download;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
+import com.example.teamse1csdchcw.config.ConfigService;
 import com.example.teamse1csdchcw.repository.DownloadRepository;
 import com.example.teamse1csdchcw.repository.DownloadRepository.Download;
 import com.example.teamse1csdchcw.repository.DownloadRepository.Download.DownloadStatus;
+import com.example.teamse1csdchcw.repository.PdfBlobRepository.Blob;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -22,13 +22,27 @@ import java.util.function.Consumer;
 
 public class DownloadService {
     private static final Logger logger = LoggerFactory.getLogger(DownloadService.class);
-    private static final int MAX_CONCURRENT_DOWNLOADS = 3;
-    private static final int BUFFER_SIZE = 8192;
+    // queue priorities; higher runs first
+    public static final int PRIORITY_LOW = -10;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 10;
+
+    private static final int DEFAULT_MAX_CONCURRENT = 3;
+    private static final int DEFAULT_MAX_PER_HOST = 2;
+    private static final int DEFAULT_MAX_SEGMENTS = 4;
+    private static final int DEFAULT_MIN_SEGMENT_KB = 2048;
+    private static final int DEFAULT_PROGRESS_INTERVAL_MS = 250;
+    private static final int DEFAULT_PERSIST_INTERVAL_MS = 1000;
 
     private final DownloadRepository repository;
     private final OkHttpClient httpClient;
+    private final ContentStore contentStore;
     private final ExecutorService executorService;
     private final ConcurrentHashMap<String, CompletableFuture<Void>> activeDownloads;
+    private final ConcurrentHashMap<String, SegmentedDownload> activeTransfers;
+    private final ConcurrentHashMap<String, Consumer<Double>> progressCallbacks;
+    private final SegmentedDownload.Options transferOptions;
+    private final DownloadScheduler scheduler;
 
     public DownloadService() {
         this.repository = new DownloadRepository();
@@ -36,11 +50,49 @@ public class DownloadService {
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS)
                 .build();
-        this.executorService = Executors.newFixedThreadPool(MAX_CONCURRENT_DOWNLOADS);
+        this.contentStore = new ContentStore();
+
+        ConfigService config = ConfigService.getInstance();
+        int maxConcurrent = Math.max(1, config.getInt("download.max_concurrent", DEFAULT_MAX_CONCURRENT));
+        this.executorService = Executors.newFixedThreadPool(maxConcurrent);
         this.activeDownloads = new ConcurrentHashMap<>();
+        this.activeTransfers = new ConcurrentHashMap<>();
+        this.progressCallbacks = new ConcurrentHashMap<>();
+
+        this.transferOptions = new SegmentedDownload.Options(
+                config.getInt("download.segments.max", DEFAULT_MAX_SEGMENTS),
+                1024L * config.getInt("download.segments.min_size_kb", DEFAULT_MIN_SEGMENT_KB),
+                config.getInt("download.progress_interval_ms", DEFAULT_PROGRESS_INTERVAL_MS),
+                config.getInt("download.progress_persist_interval_ms", DEFAULT_PERSIST_INTERVAL_MS),
+                BandwidthLimiter.getInstance());
+
+        this.scheduler = new DownloadScheduler(repository, maxConcurrent,
+                config.getInt("download.max_per_host", DEFAULT_MAX_PER_HOST), this::launch);
+        // downloads cut off by a crash or forced exit resume from their saved segments
+        scheduler.recover();
+        scheduler.schedule();
     }
 
     public String queueDownload(String resultId, String url, String destinationDir) {
+        return queueDownload(resultId, null, url, destinationDir);
+    }
+
+    /**
+     * Queues a PDF download. A paper whose DOI, result ID or URL is already in the
+     * content store is linked into destinationDir right away instead of downloaded again.
+     *
+     * @param doi the paper's DOI, or null; names the file and indexes it in the store
+     * @return the download ID, or null if the download could not be queued
+     */
+    public String queueDownload(String resultId, String doi, String url, String destinationDir) {
+        return queueDownload(resultId, doi, url, destinationDir, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Queues a PDF download with a priority, e.g. {@link #PRIORITY_LOW} for bulk downloads
+     * that should not hold up downloads the user is waiting for.
+     */
+    public String queueDownload(String resultId, String doi, String url, String destinationDir, int priority) {
         // Add this check at the very start
         if (url != null && url.startsWith("UNRESOLVED:")) {
             String failedUrl = url.substring("UNRESOLVED:".length());
@@ -62,22 +114,30 @@ public class DownloadService {
         }
 
         try {
-            String filename = extractFilename(url);
+            String filename = doi != null && !doi.isBlank() ? filenameForDoi(doi) : extractFilename(url);
             Path destPath = Paths.get(destinationDir, filename);
 
             Files.createDirectories(destPath.getParent());
 
             Download download = new Download();
             download.setResultId(resultId);
+            download.setDoi(doi);
             download.setUrl(url);
             download.setDestinationPath(destPath.toString());
             download.setStatus(DownloadStatus.PENDING);
             download.setProgress(0.0);
+            download.setPriority(priority);
+            download.setQueuedAt(LocalDateTime.now());
+
+            if (linkStored(download)) {
+                logger.info("Already downloaded, linked {} -> {}", url, download.getDestinationPath());
+                return download.getId();
+            }
 
             repository.save(download);
             logger.info("Queued download: {} -> {}", url, destPath);
 
-            startNextDownload();
+            scheduler.schedule();
 
             return download.getId();
 
@@ -87,23 +147,41 @@ public class DownloadService {
         }
     }
 
+    /**
+     * Moves a queued download to the front of the queue and reports its progress to the callback.
+     * It still waits for a free slot, globally and for its host.
+     */
     public void startDownload(String downloadId, Consumer<Double> progressCallback) {
-        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-            try {
-                Download download = repository.findById(downloadId);
-                if (download == null) {
-                    logger.error("Download not found: {}", downloadId);
-                    return;
-                }
+        if (progressCallback != null) {
+            progressCallbacks.put(downloadId, progressCallback);
+        }
+        setPriority(downloadId, PRIORITY_HIGH);
+    }
 
-                download.setStatus(DownloadStatus.IN_PROGRESS);
-                download.setStartedAt(LocalDateTime.now());
-                download.setProgress(0.0);
-                repository.save(download);
+    /**
+     * Changes the queue priority of a download that has not started yet.
+     */
+    public void setPriority(String downloadId, int priority) {
+        try {
+            repository.updatePriority(downloadId, priority);
+        } catch (SQLException e) {
+            logger.error("Failed to change download priority", e);
+        }
+        scheduler.schedule();
+    }
+
+    // runs a download the scheduler has claimed (already IN_PROGRESS in the table)
+    private void launch(Download download) {
+        String downloadId = download.getId();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        activeDownloads.put(downloadId, future);
 
+        executorService.execute(() -> {
+            try {
                 logger.info("Starting download: {}", download.getUrl());
 
-                downloadFile(download, progressCallback);
+                // progress is kept: a retried or recovered download resumes from its partial file
+                downloadFile(download, progressCallbacks.get(downloadId));
 
                 download.setStatus(DownloadStatus.COMPLETED);
                 download.setProgress(1.0);
@@ -115,107 +193,96 @@ public class DownloadService {
             } catch (Exception e) {
                 logger.error("Download failed", e);
                 try {
-                    Download download = repository.findById(downloadId);
-                    if (download != null) {
-                        download.setStatus(DownloadStatus.FAILED);
-                        download.setErrorMessage(e.getMessage());
-                        download.setCompletedAt(LocalDateTime.now());
-                        repository.save(download);
+                    Download failed = repository.findById(downloadId);
+                    if (failed != null) {
+                        failed.setStatus(DownloadStatus.FAILED);
+                        failed.setErrorMessage(e.getMessage());
+                        failed.setCompletedAt(LocalDateTime.now());
+                        repository.save(failed);
                     }
                 } catch (SQLException ex) {
                     logger.error("Failed to update download status", ex);
                 }
             } finally {
                 activeDownloads.remove(downloadId);
-                startNextDownload();
+                progressCallbacks.remove(downloadId);
+                future.complete(null);
+                scheduler.finished(downloadId);
             }
-        }, executorService);
-
-        activeDownloads.put(downloadId, future);
+        });
     }
 
     private void downloadFile(Download download, Consumer<Double> progressCallback) throws IOException, SQLException {
-        Request request = new Request.Builder()
-                .url(download.getUrl())
-                .header("User-Agent", "LibSearch/1.0 (Academic Search Tool)")
-                .build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Download failed: HTTP " + response.code());
-            }
-
-            // verify response is actually a PDF, not an HTML landing page
-            String contentType = response.header("Content-Type", "");
-            if (contentType.contains("text/html")) {
-                throw new IOException("URL resolved to HTML page, not a PDF. The publisher may not provide direct PDF access.");
-            }
-
-            long contentLength = response.body().contentLength();
-            download.setFileSize(contentLength);
-
-            try (InputStream input = response.body().byteStream();
-                 OutputStream output = new FileOutputStream(download.getDestinationPath())) {
-
-                byte[] buffer = new byte[BUFFER_SIZE];
-                long totalBytesRead = 0;
-                int bytesRead;
-
-                while ((bytesRead = input.read(buffer)) != -1) {
-                    output.write(buffer, 0, bytesRead);
-                    totalBytesRead += bytesRead;
-
-                    if (contentLength > 0) {
-                        double progress = (double) totalBytesRead / contentLength;
-                        download.setProgress(progress);
-
-                        if (progressCallback != null) {
-                            progressCallback.accept(progress);
-                        }
-
-                        if (totalBytesRead % (BUFFER_SIZE * 100) == 0) {
-                            repository.save(download);
-                        }
-                    }
-                }
+        // an identical download queued earlier may have finished in the meantime
+        if (linkStored(download)) {
+            logger.info("Already downloaded, linked {}", download.getDestinationPath());
+            return;
+        }
 
-                output.flush();
-            }
+        SegmentedDownload transfer = new SegmentedDownload(httpClient, repository, contentStore, download,
+                transferOptions, progressCallback);
+        activeTransfers.put(download.getId(), transfer);
+        try {
+            transfer.run();
+        } finally {
+            activeTransfers.remove(download.getId());
         }
     }
 
-    private void startNextDownload() {
-        if (activeDownloads.size() >= MAX_CONCURRENT_DOWNLOADS) {
-            return;
+    /**
+     * Completes a download from the content store if the paper is already there.
+     *
+     * @return true if the stored file was linked to the download's destination
+     */
+    private boolean linkStored(Download download) throws IOException, SQLException {
+        List<String> keys = ContentStore.keys(download.getDoi(), download.getResultId(), download.getUrl());
+        Blob blob = contentStore.find(keys);
+        if (blob == null) {
+            return false;
         }
 
-        try {
-            List<Download> pending = repository.findPending();
-            if (!pending.isEmpty()) {
-                Download next = pending.get(0);
-                startDownload(next.getId(), null);
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to start next download", e);
+        // index the stored file under this download's keys too, e.g. a new result id
+        contentStore.addKeys(blob.getSha256(), keys);
+        Path linked = contentStore.link(blob.getSha256(), Paths.get(download.getDestinationPath()));
+
+        LocalDateTime now = LocalDateTime.now();
+        download.setDestinationPath(linked.toString());
+        download.setSha256(blob.getSha256());
+        download.setFileSize(blob.getSize());
+        download.setBytesDownloaded(blob.getSize());
+        download.setSegments(null);
+        download.setProgress(1.0);
+        download.setStatus(DownloadStatus.COMPLETED);
+        if (download.getStartedAt() == null) {
+            download.setStartedAt(now);
         }
+        download.setCompletedAt(now);
+        repository.save(download);
+        return true;
     }
 
     public void cancelDownload(String downloadId) {
         CompletableFuture<Void> future = activeDownloads.get(downloadId);
         if (future != null) {
             future.cancel(true);
+            // cancelling the future does not stop a running transfer; its calls do
+            SegmentedDownload transfer = activeTransfers.remove(downloadId);
+            if (transfer != null) {
+                transfer.cancel();
+            }
             activeDownloads.remove(downloadId);
+        }
 
-            try {
-                Download download = repository.findById(downloadId);
-                if (download != null) {
-                    download.setStatus(DownloadStatus.FAILED);
-                    download.setErrorMessage("Cancelled by user");
-                    repository.save(download);
-                }
-            } catch (SQLException e) {
-                logger.error("Failed to update cancelled download", e);
+        // running or still queued: either way it must not be (re)started by the scheduler
+        try {
+            Download download = repository.findById(downloadId);
+            if (download != null && download.getStatus() != DownloadStatus.COMPLETED) {
+                download.setStatus(DownloadStatus.FAILED);
+                download.setErrorMessage("Cancelled by user");
+                repository.save(download);
             }
+        } catch (SQLException e) {
+            logger.error("Failed to update cancelled download", e);
         }
     }
 
@@ -231,12 +298,13 @@ public class DownloadService {
         try {
             Download download = repository.findById(downloadId);
             if (download != null && download.getStatus() == DownloadStatus.FAILED) {
+                // keep progress and segments so the partial file is resumed
                 download.setStatus(DownloadStatus.PENDING);
-                download.setProgress(0.0);
                 download.setErrorMessage(null);
+                download.setQueuedAt(LocalDateTime.now());
                 repository.save(download);
 
-                startNextDownload();
+                scheduler.schedule();
             }
         } catch (SQLException e) {
             logger.error("Failed to retry download", e);
@@ -256,6 +324,11 @@ public class DownloadService {
         }
     }
 
+    // "10.1000/xyz.123" -> "10.1000_xyz.123.pdf"
+    private String filenameForDoi(String doi) {
+        return doi.trim().replaceAll("[^a-zA-Z0-9._-]", "_") + ".pdf";
+    }
+
     private String extractFilename(String url) {
         String filename = url.substring(url.lastIndexOf('/') + 1);
 
@@ -0,0 +1,430 @@
+package com.example.teamse1csdchcw.service.download;
+
+import com.example.teamse1csdchcw.repository.DownloadRepository;
+import com.example.teamse1csdchcw.repository.DownloadRepository.Download;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One attempt at a download. Bytes go to a ".part" file in the {@link ContentStore}; once
+ * complete, the file is stored under its SHA-256, hashed while it streams, and linked to
+ * its destination. When the server supports ranges, large files are split into
+ * segments fetched concurrently and written at their offsets; the segments' progress is
+ * saved on the downloads row, so a failed or cancelled download resumes with Range
+ * requests instead of starting over. If-Range with the saved ETag/Last-Modified makes
+ * the server send the whole file again if it changed in between.
+ */
+class SegmentedDownload {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedDownload.class);
+    private static final String USER_AGENT = "LibSearch/1.0 (Academic Search Tool)";
+    // segments block on socket reads; virtual threads keep that cheap
+    private static final ExecutorService SEGMENT_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("download-segment-", 0).factory());
+
+    private final OkHttpClient httpClient;
+    private final DownloadRepository repository;
+    private final ContentStore store;
+    private final Download download;
+    private final String host;
+    private final Path destination;
+    private final Path partFile;
+    private final Options options;
+    private final Consumer<Double> progressCallback;
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+    private final ContentHasher hasher = new ContentHasher();
+
+    private volatile boolean cancelled;
+    private boolean finished;
+    private volatile List<DownloadSegment> segments = List.of();
+    // System.nanoTime() deadlines; segments race for them so only one reports per interval
+    private final AtomicLong nextProgressAt = new AtomicLong(System.nanoTime());
+    private final AtomicLong nextPersistAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * Tuning shared by all downloads of a {@link DownloadService}.
+     */
+    static class Options {
+        // most concurrent range requests for one file
+        final int maxSegments;
+        // files are only split into segments of at least this size
+        final long minSegmentBytes;
+        // progress callbacks and saves of the resume state are coalesced to these intervals
+        final long progressIntervalNanos;
+        final long persistIntervalNanos;
+        // global and per-host bandwidth caps
+        final BandwidthLimiter bandwidth;
+
+        Options(int maxSegments, long minSegmentBytes, long progressIntervalMillis, long persistIntervalMillis,
+                BandwidthLimiter bandwidth) {
+            this.maxSegments = Math.max(1, maxSegments);
+            this.minSegmentBytes = Math.max(1, minSegmentBytes);
+            this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis);
+            this.persistIntervalNanos = TimeUnit.MILLISECONDS.toNanos(persistIntervalMillis);
+            this.bandwidth = bandwidth;
+        }
+    }
+
+    SegmentedDownload(OkHttpClient httpClient, DownloadRepository repository, ContentStore store,
+                      Download download, Options options, Consumer<Double> progressCallback) {
+        this.httpClient = httpClient;
+        this.repository = repository;
+        this.store = store;
+        this.download = download;
+        this.host = DownloadScheduler.host(download.getUrl());
+        this.destination = Paths.get(download.getDestinationPath());
+        this.partFile = store.partFile(download.getId());
+        this.options = options;
+        this.progressCallback = progressCallback;
+    }
+
+    /**
+     * Downloads the file, resuming from the saved segments if the ".part" file is still there,
+     * and stores it. The resume state is saved even when the download fails.
+     */
+    void run() throws IOException {
+        try {
+            if (!resume()) {
+                startOver();
+            }
+            if (download.getFileSize() == null) {
+                download.setFileSize(DownloadSegment.written(segments));
+            }
+            storeAndLink();
+            synchronized (this) {
+                finished = true;
+                download.setBytesDownloaded(download.getFileSize());
+                download.setSegments(null);
+            }
+        } finally {
+            persist();
+        }
+    }
+
+    /**
+     * Cancels the requests in flight. The bytes received so far stay for a later resume.
+     */
+    void cancel() {
+        cancelled = true;
+        calls.forEach(Call::cancel);
+    }
+
+    private boolean resume() throws IOException {
+        List<DownloadSegment> saved = DownloadSegment.parse(download.getSegments());
+        if (saved.isEmpty() || !Files.exists(partFile)) {
+            return false;
+        }
+        segments = saved;
+        long done = DownloadSegment.written(saved);
+        logger.info("Resuming download at {} bytes: {}", done, download.getUrl());
+        reportProgress();
+        try {
+            transfer(null);
+            return true;
+        } catch (RangeNotHonoredException e) {
+            logger.info("Cannot resume ({}), downloading again: {}", e.getMessage(), download.getUrl());
+            return false;
+        }
+    }
+
+    private void startOver() throws IOException {
+        Files.createDirectories(partFile.getParent());
+        Files.deleteIfExists(partFile);
+        hasher.reset();
+        download.setValidator(null);
+
+        // an open range asks for everything and tells us whether ranges work at all
+        Response first = execute(request("bytes=0-", null));
+        try {
+            if (!first.isSuccessful()) {
+                throw new IOException("Download failed: HTTP " + first.code());
+            }
+
+            // verify response is actually a PDF, not an HTML landing page
+            String contentType = first.header("Content-Type", "");
+            if (contentType.contains("text/html")) {
+                throw new IOException("URL resolved to HTML page, not a PDF. The publisher may not provide direct PDF access.");
+            }
+
+            boolean ranged = first.code() == 206;
+            long total = ranged ? totalFromContentRange(first.header("Content-Range"))
+                    : first.body().contentLength();
+            download.setFileSize(total > 0 ? total : null);
+            download.setValidator(validator(first));
+
+            if (ranged && total > 0) {
+                segments = DownloadSegment.plan(total, segmentCount(total));
+            } else {
+                // no ranges: one segment, resumable only if the server learns ranges later
+                segments = List.of(new DownloadSegment(0, total > 0 ? total - 1 : DownloadSegment.OPEN_END, 0));
+            }
+            download.setProgress(0.0);
+            persist();
+            logger.debug("Downloading {} bytes in {} segment(s): {}", total, segments.size(), download.getUrl());
+        } catch (IOException | RuntimeException e) {
+            first.close();
+            throw e;
+        }
+
+        // the first segment keeps reading the response that is already open
+        try {
+            transfer(first);
+        } finally {
+            first.close();
+        }
+    }
+
+    private int segmentCount(long total) {
+        return (int) Math.max(1, Math.min(options.maxSegments, total / options.minSegmentBytes));
+    }
+
+    /**
+     * Fetches all unfinished segments concurrently into the ".part" file.
+     *
+     * @param first an open response for the first segment, or null to request it
+     */
+    private void transfer(Response first) throws IOException {
+        try (FileChannel channel = FileChannel.open(partFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+            // transferFrom does nothing past the end of the file, so give it its full (sparse) length first
+            Long total = download.getFileSize();
+            if (total != null && total > 0 && channel.size() < total) {
+                channel.write(ByteBuffer.allocate(1), total - 1);
+            }
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < segments.size(); i++) {
+                DownloadSegment segment = segments.get(i);
+                Response initial = i == 0 ? first : null;
+                if (segment.isComplete()) {
+                    continue;
+                }
+                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                    try {
+                        fetchSegment(segment, initial, channel);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, SEGMENT_EXECUTOR);
+                // one failed segment fails the attempt; stop the others instead of waiting for them
+                future.whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        calls.forEach(Call::cancel);
+                    }
+                });
+                futures.add(future);
+            }
+
+            awaitAll(futures);
+            channel.force(true);
+            reportProgress();
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<Void>> futures) throws IOException {
+        IOException failure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException unchecked
+                        ? unchecked.getCause() : e.getCause();
+                // a range the server ignores decides what happens next; other errors are just failures
+                if (failure == null || cause instanceof RangeNotHonoredException) {
+                    failure = cause instanceof IOException io ? io : new IOException(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw cancelled ? new IOException("Cancelled by user", failure) : failure;
+        }
+    }
+
+    private void fetchSegment(DownloadSegment segment, Response initial, FileChannel channel) throws IOException {
+        Response response = initial != null ? initial
+                : execute(request(segment.rangeHeader(), download.getValidator()));
+        try (response) {
+            if (initial == null) {
+                checkRange(response, segment);
+            }
+            copy(hasher.wrap(response.body().source(), segment.position()), segment, channel);
+        }
+
+        if (segment.isOpenEnded()) {
+            segment.finish();
+        } else if (!segment.isComplete()) {
+            throw new IOException("Connection closed at byte " + segment.position() + " of " + download.getUrl());
+        }
+    }
+
+    /**
+     * Moves the body into the file with transferFrom: the JDK reads the channel into its own
+     * direct buffer and writes that at the segment's offset, with no byte[] loop of ours.
+     * Positional writes let segments share the channel without sharing a file pointer.
+     * Chunks shrink when a bandwidth limit applies, and after each one the segment waits
+     * for the limiter before reading on.
+     */
+    private void copy(ReadableByteChannel source, DownloadSegment segment, FileChannel channel) throws IOException {
+        while (!segment.isComplete()) {
+            long count = Math.min(options.bandwidth.chunkSize(host), segment.remaining());
+            long transferred = channel.transferFrom(source, segment.position(), count);
+            if (transferred == 0) {
+                // end of the body
+                return;
+            }
+            segment.advance(transferred);
+            onBytes();
+            options.bandwidth.consume(host, transferred);
+        }
+    }
+
+    private void checkRange(Response response, DownloadSegment segment) throws IOException {
+        if (response.code() == 200) {
+            // If-Range failed (file changed) or the server ignores ranges
+            throw new RangeNotHonoredException("server sent the whole file");
+        }
+        if (response.code() != 206) {
+            throw new IOException("Download failed: HTTP " + response.code());
+        }
+
+        String contentRange = response.header("Content-Range");
+        long total = totalFromContentRange(contentRange);
+        Long expected = download.getFileSize();
+        if (expected != null && total >= 0 && total != expected) {
+            throw new RangeNotHonoredException("size changed from " + expected + " to " + total);
+        }
+        if (contentRange == null || !contentRange.startsWith("bytes " + segment.position() + "-")) {
+            throw new RangeNotHonoredException("unexpected range " + contentRange);
+        }
+    }
+
+    // called by every segment after each chunk; at most one caller per interval gets through
+    private void onBytes() {
+        long now = System.nanoTime();
+        if (claim(nextProgressAt, now, options.progressIntervalNanos)) {
+            reportProgress();
+        }
+        if (claim(nextPersistAt, now, options.persistIntervalNanos)) {
+            persist();
+        }
+    }
+
+    private static boolean claim(AtomicLong deadline, long now, long interval) {
+        long due = deadline.get();
+        return now - due >= 0 && deadline.compareAndSet(due, now + interval);
+    }
+
+    private void reportProgress() {
+        Long total = download.getFileSize();
+        if (total == null || total <= 0) {
+            return;
+        }
+        double progress = Math.min(1.0, (double) DownloadSegment.written(segments) / total);
+        download.setProgress(progress);
+        if (progressCallback != null) {
+            progressCallback.accept(progress);
+        }
+    }
+
+    // losing the resume state only means downloading more again, so failures are not fatal
+    private synchronized void persist() {
+        if (!finished) {
+            download.setSegments(segments.isEmpty() ? null : DownloadSegment.format(segments));
+            download.setBytesDownloaded(DownloadSegment.written(segments));
+        }
+        try {
+            repository.save(download);
+        } catch (SQLException e) {
+            logger.warn("Failed to save download progress: {}", e.getMessage());
+        }
+    }
+
+    // the destination may change: a different file already using the name is not replaced
+    private void storeAndLink() throws IOException {
+        String sha256 = hasher.finish(partFile);
+        store.put(partFile, sha256,
+                ContentStore.keys(download.getDoi(), download.getResultId(), download.getUrl()));
+        Path linked = store.link(sha256, destination);
+        download.setSha256(sha256);
+        download.setDestinationPath(linked.toString());
+    }
+
+    private Request request(String range, String ifRange) {
+        Request.Builder builder = new Request.Builder()
+                .url(download.getUrl())
+                .header("User-Agent", USER_AGENT)
+                .header("Range", range);
+        if (ifRange != null) {
+            builder.header("If-Range", ifRange);
+        }
+        return builder.build();
+    }
+
+    private Response execute(Request request) throws IOException {
+        Call call = httpClient.newCall(request);
+        calls.add(call);
+        if (cancelled) {
+            call.cancel();
+        }
+        return call.execute();
+    }
+
+    // "bytes 0-1023/146515" -> 146515, -1 if missing or "*"
+    private static long totalFromContentRange(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        try {
+            return slash < 0 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // If-Range needs a strong etag; a weak one is useless, so fall back to the date
+    private static String validator(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    /**
+     * The server answered a resume request with something other than the requested range.
+     */
+    private static class RangeNotHonoredException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RangeNotHonoredException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.teamse1csdchcw.service.enrichment;
+
+import com.example.teamse1csdchcw.config.ConfigService;
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import com.example.teamse1csdchcw.repository.SearchResultRepository;
+import com.example.teamse1csdchcw.service.connector.ConnectorFactory;
+import com.example.teamse1csdchcw.service.connector.DoiBatchLookup;
+import com.example.teamse1csdchcw.service.connector.SourceConnector;
+import com.example.teamse1csdchcw.service.search.CircuitBreaker;
+import com.example.teamse1csdchcw.service.search.SourceCircuitBreakers;
+import com.example.teamse1csdchcw.util.http.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fills in missing abstracts, citation counts and PDF links after a search.
+ * Papers with a DOI are grouped by DOI and looked up in batches (Semantic Scholar's
+ * /paper/batch, then CrossRef doi filters for what is still missing), so one request
+ * enriches hundreds of results. Updates are written to search_results for every
+ * stored row with the same DOI.
+ */
+public class MetadataEnrichmentService {
+    private static final Logger logger = LoggerFactory.getLogger(MetadataEnrichmentService.class);
+    private static final int SNIPPET_LENGTH = 200;
+    // sources asked in order; later ones only see DOIs that still have gaps
+    private static final List<SourceType> LOOKUP_ORDER = List.of(SourceType.SEMANTIC_SCHOLAR, SourceType.CROSSREF);
+
+    private static MetadataEnrichmentService instance;
+
+    private final ConnectorFactory connectorFactory;
+    private final SearchResultRepository repository;
+    private final RateLimiter rateLimiter;
+    private final SourceCircuitBreakers circuitBreakers;
+    private final boolean enabled;
+    // one enrichment at a time: runs share the sources' rate limits anyway
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "metadata-enrichment");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private MetadataEnrichmentService() {
+        this.connectorFactory = ConnectorFactory.getInstance();
+        this.repository = new SearchResultRepository();
+        this.rateLimiter = RateLimiter.getInstance();
+        this.circuitBreakers = SourceCircuitBreakers.getInstance();
+        this.enabled = ConfigService.getInstance().getBoolean("enrichment.enabled", true);
+    }
+
+    /**
+     * Get singleton instance.
+     */
+    public static synchronized MetadataEnrichmentService getInstance() {
+        if (instance == null) {
+            instance = new MetadataEnrichmentService();
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enriches the results in the background. The given objects are not touched: the work
+     * is done on copies, which may be on screen or being indexed meanwhile. Their stored rows
+     * in search_results are updated, so call this after the results were saved.
+     *
+     * @return future completing with enriched copies of the papers that gained metadata,
+     *         with the same ids as the originals; apply them with {@link #applyEnrichment}
+     */
+    public CompletableFuture<List<AcademicPaper>> enrichAsync(List<SearchResult> results) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<SearchResult> copies = new ArrayList<>(results.size());
+        for (SearchResult result : results) {
+            copies.add(result.copy());
+        }
+        return CompletableFuture.supplyAsync(() -> new ArrayList<>(enrichPapers(copies)), executor);
+    }
+
+    /**
+     * Enriches the results on the calling thread, updating them in place.
+     *
+     * @return number of papers that gained metadata
+     */
+    public int enrich(List<SearchResult> results) {
+        return enrichPapers(results).size();
+    }
+
+    /**
+     * Copies what enrichment fills in (abstract, snippet, citation count, PDF link) onto
+     * the paper it was computed for. Call on the thread that owns the target, e.g. the FX thread.
+     */
+    public static void applyEnrichment(AcademicPaper target, AcademicPaper enriched) {
+        target.setAbstractText(enriched.getAbstractText());
+        target.setSnippet(enriched.getSnippet());
+        target.setCitationCount(enriched.getCitationCount());
+        target.setPdfUrl(enriched.getPdfUrl());
+    }
+
+    private Set<AcademicPaper> enrichPapers(List<SearchResult> results) {
+        Map<String, List<AcademicPaper>> byDoi = groupIncompleteByDoi(results);
+        if (byDoi.isEmpty()) {
+            return Set.of();
+        }
+        logger.info("Enriching {} papers ({} distinct DOIs)",
+                byDoi.values().stream().mapToInt(List::size).sum(), byDoi.size());
+
+        Set<AcademicPaper> changed = new LinkedHashSet<>();
+        for (SourceType sourceType : LOOKUP_ORDER) {
+            List<String> pending = byDoi.entrySet().stream()
+                    .filter(e -> isIncomplete(e.getValue().get(0)))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (pending.isEmpty()) {
+                break;
+            }
+            lookup(sourceType, pending, byDoi, changed);
+        }
+
+        if (!changed.isEmpty()) {
+            try {
+                repository.updateEnrichedMetadata(changed);
+            } catch (SQLException e) {
+                logger.error("Failed to store enriched metadata: {}", e.getMessage());
+            }
+        }
+        logger.info("Enrichment filled gaps in {} papers", changed.size());
+        return changed;
+    }
+
+    /**
+     * Looks up the pending DOIs at one source, batch by batch, and applies what it returns.
+     */
+    private void lookup(SourceType sourceType, List<String> pending, Map<String, List<AcademicPaper>> byDoi,
+                        Set<AcademicPaper> changed) {
+        SourceConnector connector = connectorFactory.getConnector(sourceType);
+        if (!(connector instanceof DoiBatchLookup batchLookup)) {
+            return;
+        }
+        // an open circuit means the source is failing; do not add to its load
+        if (circuitBreakers.isEnabled() && circuitBreakers.getState(sourceType) == CircuitBreaker.State.OPEN) {
+            logger.debug("Skipping {} enrichment: circuit open", sourceType);
+            return;
+        }
+
+        int batchSize = Math.max(1, batchLookup.getMaxDoiBatchSize());
+        for (int i = 0; i < pending.size(); i += batchSize) {
+            List<String> batch = pending.subList(i, Math.min(pending.size(), i + batchSize));
+            try {
+                rateLimiter.acquire(connector.getApiHost());
+                Map<String, AcademicPaper> found = batchLookup.lookupDois(batch);
+                for (Map.Entry<String, AcademicPaper> entry : found.entrySet()) {
+                    List<AcademicPaper> papers = byDoi.get(entry.getKey());
+                    if (papers == null) {
+                        continue;
+                    }
+                    for (AcademicPaper paper : papers) {
+                        if (fillGaps(paper, entry.getValue())) {
+                            changed.add(paper);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // keep what earlier batches gave us; the next source may cover the rest
+                logger.warn("{} enrichment failed: {}", sourceType, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Papers with a DOI and at least one gap, grouped by lower-case DOI.
+     * Duplicates of the same DOI share one lookup.
+     */
+    private Map<String, List<AcademicPaper>> groupIncompleteByDoi(List<SearchResult> results) {
+        Map<String, List<AcademicPaper>> byDoi = new LinkedHashMap<>();
+        for (SearchResult result : results) {
+            if (result instanceof AcademicPaper paper && !isEmpty(paper.getDoi()) && isIncomplete(paper)) {
+                byDoi.computeIfAbsent(paper.getDoi().trim().toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(paper);
+            }
+        }
+        return byDoi;
+    }
+
+    private boolean isIncomplete(AcademicPaper paper) {
+        return isEmpty(paper.getAbstractText()) || paper.getCitationCount() == 0 || !hasDirectPdf(paper);
+    }
+
+    // a doi.org link is only a placeholder that still has to be resolved
+    private boolean hasDirectPdf(AcademicPaper paper) {
+        return !isEmpty(paper.getPdfUrl()) && !paper.getPdfUrl().contains("doi.org/");
+    }
+
+    /**
+     * Copies abstract, citation count and PDF link from the lookup result where the paper has none.
+     *
+     * @return true if anything changed
+     */
+    private boolean fillGaps(AcademicPaper paper, AcademicPaper found) {
+        boolean changed = false;
+
+        if (isEmpty(paper.getAbstractText()) && !isEmpty(found.getAbstractText())) {
+            String abstractText = found.getAbstractText();
+            paper.setAbstractText(abstractText);
+            // the title stands in as snippet when there was no abstract
+            if (isEmpty(paper.getSnippet()) || paper.getSnippet().equals(paper.getTitle())) {
+                paper.setSnippet(abstractText.length() > SNIPPET_LENGTH
+                        ? abstractText.substring(0, SNIPPET_LENGTH) + "..." : abstractText);
+            }
+            changed = true;
+        }
+
+        if (found.getCitationCount() > paper.getCitationCount()) {
+            paper.setCitationCount(found.getCitationCount());
+            changed = true;
+        }
+
+        if (!hasDirectPdf(paper) && hasDirectPdf(found)) {
+            paper.setPdfUrl(found.getPdfUrl());
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isBlank();
+    }
+}
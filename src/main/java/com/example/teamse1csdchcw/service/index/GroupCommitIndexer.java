@@ -0,0 +1,216 @@
+package com.example.teamse1csdchcw.service.index;
+
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background indexing queue of an {@link IndexService}. Searches hand their results to
+ * {@link #submit(List)} and return; one thread adds them to the IndexWriter in batches and
+ * commits (an fsync) only once commitBatchSize documents are pending or the oldest pending
+ * one has waited commitIntervalMillis. Local search sees new documents sooner than that,
+ * through the near-real-time refresh after each batch.
+ */
+final class GroupCommitIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitIndexer.class);
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final long IDLE_POLL_MILLIS = 1000;
+    // wakes the thread for close() and flush(); never indexed
+    private static final SearchResult WAKE_UP = new SearchResult();
+
+    private final IndexService indexService;
+    private final int commitBatchSize;
+    private final long commitIntervalNanos;
+    private final BlockingQueue<SearchResult> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> flushRequests = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // only touched by the indexing thread
+    private int uncommitted;
+    private long commitDeadline;
+
+    GroupCommitIndexer(IndexService indexService, int commitBatchSize, long commitIntervalMillis) {
+        this.indexService = indexService;
+        this.commitBatchSize = Math.max(1, commitBatchSize);
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, commitIntervalMillis));
+        this.thread = new Thread(this::run, "index-writer");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues results for indexing. Never blocks: if the queue is full the rest are dropped,
+     * since the index is only a cache of what the sources return.
+     *
+     * @return number of results queued
+     */
+    int submit(List<SearchResult> results) {
+        int queued = 0;
+        for (SearchResult result : results) {
+            if (!running || !queue.offer(result)) {
+                logger.warn("Indexing queue full, skipped {} result(s)", results.size() - queued);
+                break;
+            }
+            queued++;
+        }
+        return queued;
+    }
+
+    /**
+     * Indexes and commits everything queued so far.
+     */
+    void flush() throws IOException {
+        if (!thread.isAlive()) {
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        flushRequests.add(done);
+        wakeUp();
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing the index", e);
+        } catch (Exception e) {
+            throw new IOException("Failed to flush the index", e.getCause());
+        }
+    }
+
+    /**
+     * Indexes and commits what is queued, then stops the thread.
+     */
+    void close() {
+        running = false;
+        if (!thread.isAlive()) {
+            return;
+        }
+        wakeUp();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int pending() {
+        return queue.size();
+    }
+
+    private void wakeUp() {
+        // a full queue wakes the thread anyway
+        queue.offer(WAKE_UP);
+    }
+
+    // no Thread.interrupt(): interrupting IndexWriter I/O would close the writer
+    private void run() {
+        List<SearchResult> batch = new ArrayList<>(commitBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SearchResult first = queue.poll(pollMillis(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, commitBatchSize - 1);
+                    apply(batch);
+                    batch.clear();
+                }
+
+                if (uncommitted >= commitBatchSize
+                        || (uncommitted > 0 && System.nanoTime() - commitDeadline >= 0)) {
+                    commit();
+                }
+                completeFlushes();
+            } catch (InterruptedException e) {
+                // not expected; keep draining so nothing queued is lost
+                logger.debug("Indexing thread interrupted");
+            } catch (RuntimeException e) {
+                logger.error("Indexing failed", e);
+                batch.clear();
+            }
+        }
+
+        if (uncommitted > 0) {
+            commit();
+        }
+        completeFlushes();
+    }
+
+    private long pollMillis() {
+        if (uncommitted == 0) {
+            return IDLE_POLL_MILLIS;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(commitDeadline - System.nanoTime()));
+    }
+
+    private void apply(List<SearchResult> batch) {
+        int applied = 0;
+        for (SearchResult result : batch) {
+            if (result == WAKE_UP) {
+                continue;
+            }
+            try {
+                indexService.indexResult(result);
+                applied++;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to index result {}: {}", result.getId(), e.getMessage());
+            }
+        }
+        if (applied == 0) {
+            return;
+        }
+
+        if (uncommitted == 0) {
+            commitDeadline = System.nanoTime() + commitIntervalNanos;
+        }
+        uncommitted += applied;
+        // visible to local search now, durable at the next commit
+        indexService.requestRefresh();
+        logger.debug("Indexed {} results ({} uncommitted)", applied, uncommitted);
+    }
+
+    private boolean commit() {
+        try {
+            indexService.commit();
+            logger.debug("Committed {} indexed results", uncommitted);
+            uncommitted = 0;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // the documents stay in the writer; the next commit retries
+            logger.error("Index commit failed: {}", e.getMessage());
+            commitDeadline = System.nanoTime() + commitIntervalNanos;
+            return false;
+        }
+    }
+
+    // a flush is done once everything queued before it is committed
+    private void completeFlushes() {
+        if (flushRequests.isEmpty() || !queueEmptyOfResults()) {
+            return;
+        }
+        boolean committed = uncommitted == 0 || commit();
+        CompletableFuture<Void> request;
+        while ((request = flushRequests.poll()) != null) {
+            if (committed) {
+                request.complete(null);
+            } else {
+                request.completeExceptionally(new IOException("Index commit failed"));
+            }
+        }
+    }
+
+    private boolean queueEmptyOfResults() {
+        return queue.stream().allMatch(result -> result == WAKE_UP);
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.teamse1csdchcw.service.index;
 
+import com.example.teamse1csdchcw.config.ConfigService;
 import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.PublicationType;
 import com.example.teamse1csdchcw.domain.search.SearchResult;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.index.*;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.LockObtainFailedException;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,16 +27,61 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the Lucene index: one IndexWriter and a SearcherManager opened from it.
+ * Searches borrow a warm near-real-time searcher via {@link #acquireSearcher()} instead of
+ * opening the index per query; a background thread refreshes it after writes, so new
+ * documents become searchable within index.refresh_interval_ms without a commit.
+ * Search results are indexed in the background through {@link #indexResultsAsync(List)},
+ * which commits in groups of index.commit_batch_size documents.
+ * Every document also carries sorted-set doc values facets (the FACET_ dimensions below)
+ * that LocalSearchService counts and drills down into, and doc values
+ * (the SORT_ fields) that it sorts and pages on.
+ */
 public class IndexService {
     private static final Logger logger = LoggerFactory.getLogger(IndexService.class);
     private static final String DEFAULT_INDEX_DIR = System.getProperty("user.home") + "/.libsearch/index";
+    private static final int DEFAULT_REFRESH_INTERVAL_MS = 1000;
+    private static final int DEFAULT_COMMIT_BATCH_SIZE = 100;
+    private static final int DEFAULT_COMMIT_INTERVAL_MS = 10_000;
+
+    // facet dimensions of the local index
+    public static final String FACET_SOURCE = "source";
+    public static final String FACET_YEAR = "year";
+    public static final String FACET_VENUE = "venue";
+    public static final String FACET_KEYWORD = "keyword";
+    public static final String FACET_ACCESS = "access";
+    public static final String FACET_TYPE = "type";
+    static final FacetsConfig FACETS_CONFIG = createFacetsConfig();
+
+    // doc values to sort on; own names because Lucene won't add doc values to the existing point fields
+    static final String SORT_YEAR = "year_sort";
+    static final String SORT_CITATIONS = "citation_count_sort";
+    static final String SORT_INDEXED_AT = "indexed_at_sort";
+    static final String SORT_RELEVANCE = "relevance_sort";
+    // the paper id, last key of every sort: doc ids change when segments merge, ids don't
+    static final String SORT_ID = "id_sort";
 
     private final Path indexPath;
     private final Directory directory;
     private final StandardAnalyzer analyzer;
     private IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+    private final ScheduledExecutorService refresher;
+    private final int commitBatchSize;
+    private final int commitIntervalMillis;
+    // started by the first indexResultsAsync, so the constructor doesn't hand out a half-built this
+    private GroupCommitIndexer indexer;
+    private boolean closed;
+    // facet ordinals of the last searcher asked for; rebuilt when a refresh opens a new reader
+    private SortedSetDocValuesReaderState facetState;
 
     public IndexService() throws IOException {
         this(DEFAULT_INDEX_DIR);
@@ -41,6 +96,20 @@ public class IndexService {
 
         initializeWriter();
 
+        // applyAllDeletes: updateDocument must not show old and new version side by side
+        this.searcherManager = new SearcherManager(indexWriter, true, true, null);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "index-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ConfigService config = ConfigService.getInstance();
+        long refreshMillis = Math.max(10, config.getInt("index.refresh_interval_ms", DEFAULT_REFRESH_INTERVAL_MS));
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+
+        this.commitBatchSize = config.getInt("index.commit_batch_size", DEFAULT_COMMIT_BATCH_SIZE);
+        this.commitIntervalMillis = config.getInt("index.commit_interval_ms", DEFAULT_COMMIT_INTERVAL_MS);
+
         logger.info("IndexService initialized with index directory: {}", indexPath);
     }
 
@@ -93,6 +162,7 @@ public class IndexService {
 
         Document doc = createDocument(result);
 
+        // ids are canonical paper keys (doi:, arxiv:, pmid:, url:), so a paper found again replaces its document
         Term idTerm = new Term("id", result.getId());
         indexWriter.updateDocument(idTerm, doc);
 
@@ -113,13 +183,64 @@ public class IndexService {
         logger.info("Indexed {} results", results.size());
     }
 
-    private Document createDocument(SearchResult result) {
+    /**
+     * Queues results for the background indexer and returns at once.
+     * They are searchable locally after the next refresh and committed in groups.
+     */
+    public void indexResultsAsync(List<SearchResult> results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        GroupCommitIndexer current = startIndexer();
+        if (current == null) {
+            logger.warn("Index closed, skipped {} result(s)", results.size());
+            return;
+        }
+        int queued = current.submit(results);
+        logger.debug("Queued {} results for indexing", queued);
+    }
+
+    /**
+     * Waits until everything queued by {@link #indexResultsAsync(List)} is indexed and committed.
+     */
+    public void flush() throws IOException {
+        GroupCommitIndexer current;
+        synchronized (this) {
+            current = indexer;
+        }
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    private synchronized GroupCommitIndexer startIndexer() {
+        if (indexer == null && !closed) {
+            indexer = new GroupCommitIndexer(this, commitBatchSize, commitIntervalMillis);
+            indexer.start();
+        }
+        return indexer;
+    }
+
+    private static FacetsConfig createFacetsConfig() {
+        FacetsConfig config = new FacetsConfig();
+        config.setMultiValued(FACET_KEYWORD, true);
+        config.setMultiValued(FACET_TYPE, true);
+        return config;
+    }
+
+    private Document createDocument(SearchResult result) throws IOException {
         Document doc = new Document();
 
         doc.add(new StringField("id", result.getId(), Field.Store.YES));
+        doc.add(new SortedDocValuesField(SORT_ID, new BytesRef(result.getId())));
         doc.add(new TextField("title", result.getTitle() != null ? result.getTitle() : "", Field.Store.YES));
         doc.add(new TextField("url", result.getUrl() != null ? result.getUrl() : "", Field.Store.YES));
         doc.add(new StringField("source", result.getSource().name(), Field.Store.YES));
+        doc.add(new StringField("access_level", result.getAccessLevel().name(), Field.Store.YES));
+        addFacet(doc, FACET_SOURCE, result.getSource().name());
+        addFacet(doc, FACET_ACCESS, result.getAccessLevel().name());
+        doc.add(new DoubleDocValuesField(SORT_RELEVANCE, result.getRelevance()));
+        doc.add(new StoredField("relevance_stored", result.getRelevance()));
 
         if (result instanceof AcademicPaper paper) {
             if (paper.getAuthors() != null) {
@@ -135,6 +256,8 @@ public class IndexService {
                 doc.add(new StringField("publication_date", dateStr, Field.Store.YES));
                 doc.add(new IntPoint("year", paper.getPublicationDate().getYear()));
                 doc.add(new StoredField("year_stored", paper.getPublicationDate().getYear()));
+                addFacet(doc, FACET_YEAR, String.valueOf(paper.getPublicationDate().getYear()));
+                doc.add(new NumericDocValuesField(SORT_YEAR, paper.getPublicationDate().getYear()));
             }
 
             if (paper.getJournal() != null) {
@@ -145,6 +268,14 @@ public class IndexService {
                 doc.add(new TextField("venue", paper.getVenue(), Field.Store.YES));
             }
 
+            // journal name for articles, conference / book title otherwise
+            boolean hasJournal = paper.getJournal() != null && !paper.getJournal().isBlank();
+            addFacet(doc, FACET_VENUE, hasJournal ? paper.getJournal() : paper.getVenue());
+
+            for (PublicationType type : PublicationType.of(paper)) {
+                addFacet(doc, FACET_TYPE, type.getDisplayName());
+            }
+
             if (paper.getDoi() != null) {
                 doc.add(new StringField("doi", paper.getDoi(), Field.Store.YES));
             }
@@ -155,6 +286,9 @@ public class IndexService {
 
             if (paper.getKeywords() != null && !paper.getKeywords().isEmpty()) {
                 doc.add(new TextField("keywords", String.join(" ", paper.getKeywords()), Field.Store.YES));
+                for (String keyword : new LinkedHashSet<>(paper.getKeywords())) {
+                    addFacet(doc, FACET_KEYWORD, keyword);
+                }
             }
 
             if (paper.getPdfUrl() != null) {
@@ -165,13 +299,23 @@ public class IndexService {
             if (citationCount >= 0) {
                 doc.add(new IntPoint("citation_count", citationCount));
                 doc.add(new StoredField("citation_count_stored", citationCount));
+                doc.add(new NumericDocValuesField(SORT_CITATIONS, citationCount));
             }
         }
 
-        doc.add(new LongPoint("indexed_at", System.currentTimeMillis()));
-        doc.add(new StoredField("indexed_at_stored", System.currentTimeMillis()));
+        long indexedAt = System.currentTimeMillis();
+        doc.add(new LongPoint("indexed_at", indexedAt));
+        doc.add(new StoredField("indexed_at_stored", indexedAt));
+        doc.add(new NumericDocValuesField(SORT_INDEXED_AT, indexedAt));
+
+        // turns the facet fields into doc values and drill-down terms
+        return FACETS_CONFIG.build(doc);
+    }
 
-        return doc;
+    private static void addFacet(Document doc, String dimension, String value) {
+        if (value != null && !value.isBlank()) {
+            doc.add(new SortedSetDocValuesFacetField(dimension, value.trim()));
+        }
     }
 
     public void deleteResult(String resultId) throws IOException {
@@ -192,6 +336,66 @@ public class IndexService {
     public void commit() throws IOException {
         indexWriter.commit();
         logger.debug("Index committed");
+        // readers opened from the writer see the changes already; refresh without waiting for the timer
+        requestRefresh();
+    }
+
+    /**
+     * Makes everything written so far visible to searchers acquired afterwards.
+     * Blocks until the refresh is done; searches normally rely on the background refresh.
+     */
+    public void refresh() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * Borrows the current searcher. Every call must be paired with
+     * {@link #releaseSearcher(IndexSearcher)} in a finally block.
+     */
+    public IndexSearcher acquireSearcher() throws IOException {
+        return searcherManager.acquire();
+    }
+
+    public void releaseSearcher(IndexSearcher searcher) throws IOException {
+        if (searcher != null) {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Facet ordinals for a searcher acquired from this service, needed to count facets.
+     *
+     * @return null if no document in the searcher's view has facets yet
+     */
+    synchronized SortedSetDocValuesReaderState facetState(IndexSearcher searcher) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        if (facetState == null || facetState.getReader() != reader) {
+            try {
+                facetState = new DefaultSortedSetDocValuesReaderState(reader, FACETS_CONFIG);
+            } catch (IllegalArgumentException e) {
+                // empty index, or only documents written before facets existed
+                return null;
+            }
+        }
+        return facetState;
+    }
+
+    // asks the refresh thread for a refresh now instead of at the next interval
+    void requestRefresh() {
+        try {
+            refresher.execute(this::refreshQuietly);
+        } catch (RejectedExecutionException e) {
+            // closing
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            // returns at once if another thread is refreshing
+            searcherManager.maybeRefresh();
+        } catch (IOException | AlreadyClosedException e) {
+            logger.debug("Index refresh failed: {}", e.getMessage());
+        }
     }
 
     public void optimize() throws IOException {
@@ -201,24 +405,27 @@ public class IndexService {
         logger.info("Index optimized");
     }
 
-    public IndexReader getReader() throws IOException {
-        return DirectoryReader.open(directory);
-    }
-
     public long getDocumentCount() throws IOException {
-        try (IndexReader reader = getReader()) {
-            return reader.numDocs();
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            releaseSearcher(searcher);
         }
     }
 
     public IndexStats getStats() throws IOException {
-        try (IndexReader reader = getReader()) {
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            IndexReader reader = searcher.getIndexReader();
             IndexStats stats = new IndexStats();
             stats.documentCount = reader.numDocs();
             stats.deletedDocCount = reader.numDeletedDocs();
             stats.totalDocCount = reader.maxDoc();
             stats.indexSizeBytes = getIndexSizeBytes();
             return stats;
+        } finally {
+            releaseSearcher(searcher);
         }
     }
 
@@ -236,6 +443,18 @@ public class IndexService {
     }
 
     public void close() throws IOException {
+        // index and commit what searches queued before closing the writer
+        GroupCommitIndexer current;
+        synchronized (this) {
+            closed = true;
+            current = indexer;
+        }
+        if (current != null) {
+            current.close();
+        }
+        refresher.shutdownNow();
+        searcherManager.close();
+
         if (indexWriter != null && indexWriter.isOpen()) {
             indexWriter.close();
         }
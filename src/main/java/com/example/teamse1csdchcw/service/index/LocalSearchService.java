@@ -1,33 +1,94 @@
 package com.example.teamse1csdchcw.service.index;
 
+import com.example.teamse1csdchcw.domain.search.AccessLevel;
 import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.PublicationType;
 import com.example.teamse1csdchcw.domain.search.SearchQuery;
 import com.example.teamse1csdchcw.domain.search.SearchResult;
 import com.example.teamse1csdchcw.domain.source.SourceType;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.facet.DrillDownQuery;
+import org.apache.lucene.facet.DrillSideways;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class LocalSearchService {
     private static final Logger logger = LoggerFactory.getLogger(LocalSearchService.class);
     private static final int DEFAULT_MAX_RESULTS = 100;
+    private static final int DEFAULT_FACET_VALUES = 10;
 
     private final IndexService indexService;
     private final StandardAnalyzer analyzer;
 
+    /**
+     * Orders for paged retrieval. All but SCORE sort on doc values, highest first;
+     * documents without the value come last. Ties are broken by paper id, so a page
+     * cursor stays valid when a refresh or merge renumbers the Lucene doc ids.
+     */
+    public enum SortOrder {
+        // lucene score of the query
+        SCORE(withIdTiebreak(SortField.FIELD_SCORE)),
+        // publication year
+        YEAR(longSort(IndexService.SORT_YEAR)),
+        // citation count
+        CITATIONS(longSort(IndexService.SORT_CITATIONS)),
+        // when the paper was (last) indexed
+        INDEXED_AT(longSort(IndexService.SORT_INDEXED_AT)),
+        // relevance the source reported when the paper was found
+        RELEVANCE(relevanceSort());
+
+        private final Sort sort;
+
+        SortOrder(Sort sort) {
+            this.sort = sort;
+        }
+
+        private static Sort longSort(String field) {
+            SortField sortField = new SortField(field, SortField.Type.LONG, true);
+            sortField.setMissingValue(Long.MIN_VALUE);
+            return withIdTiebreak(sortField);
+        }
+
+        private static Sort relevanceSort() {
+            SortField sortField = new SortField(IndexService.SORT_RELEVANCE, SortField.Type.DOUBLE, true);
+            sortField.setMissingValue(Double.NEGATIVE_INFINITY);
+            return withIdTiebreak(sortField, SortField.FIELD_SCORE);
+        }
+
+        // documents indexed before id_sort existed have none; they tie and fall back to the doc id
+        private static Sort withIdTiebreak(SortField... fields) {
+            SortField idField = new SortField(IndexService.SORT_ID, SortField.Type.STRING);
+            idField.setMissingValue(SortField.STRING_LAST);
+            SortField[] sortFields = Arrays.copyOf(fields, fields.length + 1);
+            sortFields[fields.length] = idField;
+            return new Sort(sortFields);
+        }
+    }
+
     public LocalSearchService(IndexService indexService) {
         this.indexService = indexService;
         this.analyzer = new StandardAnalyzer();
@@ -38,9 +99,8 @@ public class LocalSearchService {
             maxResults = DEFAULT_MAX_RESULTS;
         }
 
-        try (IndexReader reader = indexService.getReader()) {
-            IndexSearcher searcher = new IndexSearcher(reader);
-
+        IndexSearcher searcher = indexService.acquireSearcher();
+        try {
             Query luceneQuery = buildQuery(query);
 
             TopDocs topDocs = searcher.search(luceneQuery, maxResults);
@@ -53,6 +113,133 @@ public class LocalSearchService {
         } catch (Exception e) {
             logger.error("Local search failed", e);
             throw new IOException("Failed to search local index", e);
+        } finally {
+            indexService.releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Fetch one page of hits. Pass the cursor of the previous page to continue after it;
+     * every page costs the same, however deep into the results it is.
+     *
+     * @param cursor {@link Page#getCursor()} of the previous page, null for the first page
+     * @param pageSize hits per page
+     */
+    public Page searchPage(SearchQuery query, SortOrder order, String cursor, int pageSize) throws IOException {
+        if (pageSize <= 0) {
+            pageSize = DEFAULT_MAX_RESULTS;
+        }
+        Sort sort = (order != null ? order : SortOrder.SCORE).sort;
+
+        IndexSearcher searcher = indexService.acquireSearcher();
+        try {
+            Query luceneQuery = buildQuery(query);
+            FieldDoc after = cursor != null ? decodeCursor(cursor, sort, searcher.getIndexReader().maxDoc()) : null;
+
+            // doScores: the score is part of the SCORE and RELEVANCE cursors
+            TopFieldDocs topDocs = searcher.searchAfter(after, luceneQuery, pageSize, sort, true);
+
+            String nextCursor = null;
+            if (topDocs.scoreDocs.length == pageSize) {
+                nextCursor = encodeCursor((FieldDoc) topDocs.scoreDocs[topDocs.scoreDocs.length - 1]);
+            }
+
+            logger.debug("Local search page of {} results ({} total) for query: {}",
+                    topDocs.scoreDocs.length, topDocs.totalHits.value, query.getOriginalQuery());
+
+            return new Page(convertToSearchResults(searcher, topDocs), topDocs.totalHits.value, nextCursor);
+
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid page cursor", e);
+        } catch (Exception e) {
+            logger.error("Local search failed", e);
+            throw new IOException("Failed to search local index", e);
+        } finally {
+            indexService.releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Search with drill-down into facet values, counting the facets of the hits in the same pass.
+     * A dimension that is drilled into is counted as if it were not (drill sideways),
+     * so its other values still show how many hits they would give.
+     *
+     * @param drillDowns facet dimension to value, e.g. IndexService.FACET_YEAR to "2021"
+     * @param facetValues number of values to count per dimension, most frequent first
+     */
+    public FacetedResults searchFaceted(SearchQuery query, Map<String, String> drillDowns,
+                                        int maxResults, int facetValues) throws IOException {
+        return searchFaceted(query, drillDowns, SortOrder.SCORE, null, maxResults, facetValues);
+    }
+
+    /**
+     * Faceted search that returns one page of hits, like {@link #searchPage}.
+     * The facet counts cover all hits, not just the page.
+     *
+     * @param cursor {@link FacetedResults#getCursor()} of the previous page, null for the first page
+     */
+    public FacetedResults searchFaceted(SearchQuery query, Map<String, String> drillDowns, SortOrder order,
+                                        String cursor, int pageSize, int facetValues) throws IOException {
+        if (pageSize <= 0) {
+            pageSize = DEFAULT_MAX_RESULTS;
+        }
+        if (facetValues <= 0) {
+            facetValues = DEFAULT_FACET_VALUES;
+        }
+        Sort sort = (order != null ? order : SortOrder.SCORE).sort;
+
+        IndexSearcher searcher = indexService.acquireSearcher();
+        try {
+            DrillDownQuery drillDownQuery = new DrillDownQuery(IndexService.FACETS_CONFIG, buildQuery(query));
+            if (drillDowns != null) {
+                for (Map.Entry<String, String> drillDown : drillDowns.entrySet()) {
+                    PublicationType type = IndexService.FACET_TYPE.equals(drillDown.getKey())
+                            ? PublicationType.fromName(drillDown.getValue()) : null;
+                    if (type != null) {
+                        drillDownQuery.add(IndexService.FACET_TYPE, typeQuery(type));
+                    } else {
+                        drillDownQuery.add(drillDown.getKey(), drillDown.getValue());
+                    }
+                }
+            }
+            FieldDoc after = cursor != null ? decodeCursor(cursor, sort, searcher.getIndexReader().maxDoc()) : null;
+
+            SortedSetDocValuesReaderState state = indexService.facetState(searcher);
+            TopDocs topDocs;
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            if (state == null) {
+                topDocs = searcher.searchAfter(after, drillDownQuery, pageSize, sort, true);
+            } else {
+                DrillSideways.DrillSidewaysResult result = new DrillSideways(searcher, IndexService.FACETS_CONFIG, state)
+                        .search(drillDownQuery, null, after, pageSize, sort, true);
+                topDocs = result.hits;
+                for (FacetResult facet : result.facets.getAllDims(facetValues)) {
+                    Map<String, Integer> counts = new LinkedHashMap<>();
+                    for (LabelAndValue labelAndValue : facet.labelValues) {
+                        counts.put(labelAndValue.label, labelAndValue.value.intValue());
+                    }
+                    facets.put(facet.dim, counts);
+                }
+            }
+
+            logger.info("Faceted local search found {} results for query: {}",
+                    topDocs.totalHits.value, query.getOriginalQuery());
+
+            String nextCursor = null;
+            if (topDocs.scoreDocs.length == pageSize) {
+                nextCursor = encodeCursor((FieldDoc) topDocs.scoreDocs[topDocs.scoreDocs.length - 1]);
+            }
+
+            return new FacetedResults(convertToSearchResults(searcher, topDocs), topDocs.totalHits.value, facets,
+                    nextCursor);
+
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid page cursor", e);
+        } catch (Exception e) {
+            logger.error("Faceted local search failed", e);
+            throw new IOException("Failed to search local index", e);
+        } finally {
+            indexService.releaseSearcher(searcher);
         }
     }
 
@@ -83,23 +270,11 @@ public class LocalSearchService {
             booleanQueryBuilder.add(yearQuery, BooleanClause.Occur.MUST);
         }
 
-        if (query.getTypeFilter() != null && !query.getTypeFilter().isEmpty()) {
-            BooleanQuery.Builder typeBuilder = new BooleanQuery.Builder();
-            QueryParser venueParser = new QueryParser("venue", analyzer);
-            QueryParser journalParser = new QueryParser("journal", analyzer);
-
-            String typeKeyword = query.getTypeFilter().toLowerCase();
-            try {
-                Query venueQuery = venueParser.parse(QueryParser.escape(typeKeyword));
-                Query journalQuery = journalParser.parse(QueryParser.escape(typeKeyword));
-
-                typeBuilder.add(venueQuery, BooleanClause.Occur.SHOULD);
-                typeBuilder.add(journalQuery, BooleanClause.Occur.SHOULD);
-
-                booleanQueryBuilder.add(typeBuilder.build(), BooleanClause.Occur.MUST);
-            } catch (ParseException e) {
-                logger.warn("Failed to parse document type filter: {}", typeKeyword);
-            }
+        PublicationType type = PublicationType.fromName(query.getTypeFilter());
+        if (type != null) {
+            booleanQueryBuilder.add(typeQuery(type), BooleanClause.Occur.MUST);
+        } else if (query.getTypeFilter() != null && !query.getTypeFilter().isEmpty()) {
+            logger.warn("Unknown document type filter: {}", query.getTypeFilter());
         }
 
         BooleanQuery finalQuery = booleanQueryBuilder.build();
@@ -111,6 +286,30 @@ public class LocalSearchService {
         return finalQuery;
     }
 
+    /**
+     * Matches papers of a publication type. The type is classified at index time (IndexService.FACET_TYPE);
+     * documents indexed before facets existed have none, so for them the type name is
+     * looked up in venue and journal as before.
+     */
+    private static Query typeQuery(PublicationType type) {
+        Term typeTerm = DrillDownQuery.term(FacetsConfig.DEFAULT_INDEX_FIELD_NAME,
+                IndexService.FACET_TYPE, type.getDisplayName());
+
+        String word = type.getDisplayName().toLowerCase(Locale.ROOT);
+        BooleanQuery.Builder venueOrJournal = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("venue", word)), BooleanClause.Occur.SHOULD)
+                .add(new TermQuery(new Term("journal", word)), BooleanClause.Occur.SHOULD);
+        Query legacy = new BooleanQuery.Builder()
+                .add(venueOrJournal.build(), BooleanClause.Occur.MUST)
+                .add(new FieldExistsQuery(FacetsConfig.DEFAULT_INDEX_FIELD_NAME), BooleanClause.Occur.MUST_NOT)
+                .build();
+
+        return new BooleanQuery.Builder()
+                .add(new TermQuery(typeTerm), BooleanClause.Occur.SHOULD)
+                .add(legacy, BooleanClause.Occur.SHOULD)
+                .build();
+    }
+
     private List<SearchResult> convertToSearchResults(IndexSearcher searcher, TopDocs topDocs) throws IOException {
         List<SearchResult> results = new ArrayList<>();
 
@@ -131,6 +330,10 @@ public class LocalSearchService {
             String title = doc.get("title");
             String url = doc.get("url");
             String sourceStr = doc.get("source");
+            String accessStr = doc.get("access_level");
+            AccessLevel accessLevel = accessStr != null ? AccessLevel.valueOf(accessStr) : AccessLevel.UNKNOWN;
+            IndexableField relevanceField = doc.getField("relevance_stored");
+            double relevance = relevanceField != null ? relevanceField.numericValue().doubleValue() : 0.0;
 
             if (id == null || title == null) {
                 logger.warn("Document missing required fields (id or title)");
@@ -148,6 +351,8 @@ public class LocalSearchService {
                 paper.setTitle(title);
                 paper.setUrl(url);
                 paper.setSource(source);
+                paper.setAccessLevel(accessLevel);
+                paper.setRelevance(relevance);
                 paper.setAuthors(authors);
                 paper.setAbstractText(abstractText);
 
@@ -185,6 +390,8 @@ public class LocalSearchService {
                 result.setTitle(title);
                 result.setUrl(url);
                 result.setSource(source);
+                result.setAccessLevel(accessLevel);
+                result.setRelevance(relevance);
                 return result;
             }
 
@@ -213,19 +420,118 @@ public class LocalSearchService {
     }
 
     public List<SearchResult> searchAll(int maxResults) throws IOException {
-        try (IndexReader reader = indexService.getReader()) {
-            IndexSearcher searcher = new IndexSearcher(reader);
-            Query query = new MatchAllDocsQuery();
+        // newest first
+        Page page = searchPage(new SearchQuery(""), SortOrder.INDEXED_AT, null, maxResults);
 
-            Sort sort = new Sort(SortField.FIELD_SCORE,
-                    new SortField("indexed_at", SortField.Type.LONG, true));
+        logger.info("Retrieved {} documents from local index", page.getTotalHits());
 
-            TopDocs topDocs = searcher.search(query, maxResults, sort);
+        return page.getResults();
+    }
 
-            logger.info("Retrieved {} documents from local index", topDocs.totalHits.value);
+    // "doc;value;value..." of the last hit, base64 so it is safe to pass around as a single token;
+    // the id is base64 on its own since ids may contain ';', and empty when the hit has none
+    private static String encodeCursor(FieldDoc last) {
+        StringBuilder cursor = new StringBuilder().append(last.doc);
+        for (Object value : last.fields) {
+            cursor.append(';');
+            if (value instanceof BytesRef id) {
+                cursor.append(Base64.getUrlEncoder().withoutPadding().encodeToString(BytesRef.deepCopyOf(id).bytes));
+            } else if (value != null) {
+                cursor.append(value);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
 
-            return convertToSearchResults(searcher, topDocs);
+    // maxDoc of the searcher the page is read from; the doc id in the cursor may be from an older one
+    private static FieldDoc decodeCursor(String cursor, Sort sort, int maxDoc) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(";", -1);
+        SortField[] sortFields = sort.getSort();
+        if (parts.length != sortFields.length + 1) {
+            throw new IllegalArgumentException("Cursor does not match the sort order");
+        }
+
+        Object[] values = new Object[sortFields.length];
+        float score = Float.NaN;
+        for (int i = 0; i < sortFields.length; i++) {
+            String value = parts[i + 1];
+            values[i] = switch (sortFields[i].getType()) {
+                case SCORE -> Float.parseFloat(value);
+                case LONG -> Long.parseLong(value);
+                case DOUBLE -> Double.parseDouble(value);
+                case INT, DOC -> Integer.parseInt(value);
+                case STRING -> value.isEmpty() ? null : new BytesRef(Base64.getUrlDecoder().decode(value));
+                default -> throw new IllegalArgumentException("Unsupported sort type " + sortFields[i].getType());
+            };
+            if (sortFields[i].getType() == SortField.Type.SCORE) {
+                score = (Float) values[i];
+            }
+        }
+        // the id is unique, so only the last hit itself ties with it - and by now it may have another
+        // doc id; with the highest doc id every tie counts as already seen
+        int doc = Math.min(Integer.parseInt(parts[0]), maxDoc - 1);
+        if (values[values.length - 1] != null) {
+            doc = maxDoc - 1;
         }
+        return new FieldDoc(doc, score, values);
+    }
+
+    /**
+     * One page of hits and the cursor to the next one.
+     */
+    public static class Page {
+        private final List<SearchResult> results;
+        private final long totalHits;
+        private final String cursor;
+
+        Page(List<SearchResult> results, long totalHits, String cursor) {
+            this.results = results;
+            this.totalHits = totalHits;
+            this.cursor = cursor;
+        }
+
+        public List<SearchResult> getResults() { return results; }
+        public long getTotalHits() { return totalHits; }
+
+        /**
+         * Opaque position after the last hit of this page, null if this is the last page.
+         */
+        public String getCursor() { return cursor; }
+        public boolean hasMore() { return cursor != null; }
+    }
+
+    /**
+     * Hits of a faceted search together with their facet counts.
+     */
+    public static class FacetedResults {
+        private final List<SearchResult> results;
+        private final long totalHits;
+        private final Map<String, Map<String, Integer>> facets;
+        private final String cursor;
+
+        FacetedResults(List<SearchResult> results, long totalHits, Map<String, Map<String, Integer>> facets,
+                       String cursor) {
+            this.results = results;
+            this.totalHits = totalHits;
+            this.facets = facets;
+            this.cursor = cursor;
+        }
+
+        public List<SearchResult> getResults() { return results; }
+        public long getTotalHits() { return totalHits; }
+
+        /**
+         * Dimension to value to hit count, values most frequent first.
+         * Empty while the index holds no documents with facets.
+         */
+        public Map<String, Map<String, Integer>> getFacets() { return facets; }
+
+        /**
+         * Opaque position after the last hit of this page, null if this is the last page.
+         */
+        public String getCursor() { return cursor; }
+        public boolean hasMore() { return cursor != null; }
     }
 
     public void close() throws IOException {
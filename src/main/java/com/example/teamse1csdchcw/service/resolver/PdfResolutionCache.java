@@ -0,0 +1,163 @@
+package com.example.teamse1csdchcw.service.resolver;
+
+import com.example.teamse1csdchcw.config.ConfigService;
+import com.example.teamse1csdchcw.repository.PdfResolutionRepository;
+import com.example.teamse1csdchcw.repository.PdfResolutionRepository.CachedResolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier cache of DOI to PDF link resolutions, shared by all {@link PdfUrlResolver}s.
+ * The first tier is a size-bounded in-memory LRU, the second the pdf_resolution_cache table.
+ * Misses are cached as well, with a shorter TTL than hits
+ * (download.resolution_cache.miss_ttl_hours vs hit_ttl_days): a paper behind a paywall
+ * today may be open access next month, but asking again on every click is wasted I/O.
+ */
+public class PdfResolutionCache {
+    private static final Logger logger = LoggerFactory.getLogger(PdfResolutionCache.class);
+    private static final int DEFAULT_MEMORY_ENTRIES = 2000;
+    private static final int DEFAULT_HIT_TTL_DAYS = 30;
+    private static final int DEFAULT_MISS_TTL_HOURS = 24;
+
+    private static PdfResolutionCache instance;
+
+    private final Map<String, CachedResolution> memory;
+    private final PdfResolutionRepository repository;
+    private final long hitTtlMillis;
+    private final long missTtlMillis;
+
+    private PdfResolutionCache() {
+        ConfigService config = ConfigService.getInstance();
+        int maxEntries = config.getInt("download.resolution_cache.memory_max_entries", DEFAULT_MEMORY_ENTRIES);
+        this.hitTtlMillis = TimeUnit.DAYS.toMillis(
+                config.getInt("download.resolution_cache.hit_ttl_days", DEFAULT_HIT_TTL_DAYS));
+        this.missTtlMillis = TimeUnit.HOURS.toMillis(
+                config.getInt("download.resolution_cache.miss_ttl_hours", DEFAULT_MISS_TTL_HOURS));
+
+        // access-ordered linkedhashmap = lru
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResolution> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.repository = new PdfResolutionRepository();
+
+        purgeExpired();
+    }
+
+    /**
+     * Get singleton instance.
+     */
+    public static synchronized PdfResolutionCache getInstance() {
+        if (instance == null) {
+            instance = new PdfResolutionCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Looks up a DOI, memory first, then SQLite.
+     *
+     * @return the cached resolution (a hit or a known miss), or empty if unknown or expired
+     */
+    public Optional<CachedResolution> get(String doi) {
+        String key = normalize(doi);
+        CachedResolution entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+
+        if (entry == null) {
+            entry = loadFromDisk(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            synchronized (memory) {
+                memory.put(key, entry);
+            }
+        }
+
+        long age = System.currentTimeMillis() - entry.getResolvedAt();
+        if (age > (entry.isResolved() ? hitTtlMillis : missTtlMillis)) {
+            synchronized (memory) {
+                memory.remove(key);
+            }
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    /**
+     * Records a resolved PDF link and the strategy that found it.
+     */
+    public void putHit(String doi, String pdfUrl, ResolutionStrategy strategy) {
+        put(new CachedResolution(normalize(doi), pdfUrl, strategy.name(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Records that no strategy found a PDF link for the DOI.
+     */
+    public void putMiss(String doi) {
+        put(new CachedResolution(normalize(doi), null, null, System.currentTimeMillis()));
+    }
+
+    /**
+     * Removes all entries from both tiers.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        try {
+            repository.deleteAll();
+        } catch (SQLException e) {
+            logger.warn("Failed to clear persistent pdf resolution cache: {}", e.getMessage());
+        }
+    }
+
+    private void put(CachedResolution entry) {
+        synchronized (memory) {
+            memory.put(entry.getDoi(), entry);
+        }
+
+        try {
+            repository.save(entry);
+        } catch (SQLException e) {
+            logger.warn("Failed to persist pdf resolution for {}: {}", entry.getDoi(), e.getMessage());
+        }
+    }
+
+    private CachedResolution loadFromDisk(String doi) {
+        try {
+            return repository.findByDoi(doi);
+        } catch (SQLException e) {
+            logger.debug("Persistent pdf resolution cache unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        try {
+            int removed = repository.deleteExpired(now - hitTtlMillis, now - missTtlMillis);
+            if (removed > 0) {
+                logger.info("Purged {} expired pdf resolutions", removed);
+            }
+        } catch (SQLException e) {
+            logger.debug("Skipping pdf resolution cache purge: {}", e.getMessage());
+        }
+    }
+
+    // dois are case-insensitive
+    private static String normalize(String doi) {
+        return doi.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.teamse1csdchcw.service.resolver;
 
+import com.example.teamse1csdchcw.config.ConfigService;
+import com.example.teamse1csdchcw.repository.PdfResolutionRepository.CachedResolution;
+import com.example.teamse1csdchcw.util.http.HttpCallScope;
 import com.example.teamse1csdchcw.util.http.HttpClientFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,9 +13,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,40 +31,89 @@ public class PdfUrlResolver {
     private static final String UNPAYWALL_API = "https://api.unpaywall.org/v2/";
     private static final String UNPAYWALL_EMAIL = "your-email@example.com"; // Required by Unpaywall
 
+    private static final int DEFAULT_MAX_HTML_KB = 256;
+    private static final int READ_CHUNK_CHARS = 8192;
+    private static final Pattern ARXIV_ID_PATTERN = Pattern.compile("(\\d{4}\\.\\d{4,5})");
+    // publisher page patterns, most specific link first
+    private static final List<Pattern> PDF_LINK_PATTERNS = List.of(
+        Pattern.compile("href=\"([^\"]*\\.pdf)\""),
+        Pattern.compile("data-article-pdf=\"([^\"]+)\""),
+        Pattern.compile("\"pdfUrl\"\\s*:\\s*\"([^\"]+)\""),
+        Pattern.compile("class=\"pdf-download\"[^>]*href=\"([^\"]+)\"")
+    );
+    // network strategies run here; each resolution starts at most two
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("pdf-resolver-", 0).factory());
+
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final int maxHtmlChars;
 
     public PdfUrlResolver() {
-        this.httpClient = HttpClientFactory.getDefaultClient();
-        this.objectMapper = new ObjectMapper();
+        this(HttpClientFactory.getDefaultClient());
     }
 
     public PdfUrlResolver(OkHttpClient httpClient) {
         this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
+        this.maxHtmlChars = 1024 * ConfigService.getInstance()
+                .getInt("download.resolution.max_html_kb", DEFAULT_MAX_HTML_KB);
     }
 
     /**
      * Attempts to resolve a DOI URL to an actual PDF download link.
      * Returns "UNRESOLVED:" prefix + original URL if resolution fails.
+     * Results, including failures, are cached per DOI in {@link PdfResolutionCache}.
      */
     public String resolvePdfUrl(String url, String doi) {
         if (!isDOILink(url)) {
             return url;
         }
 
+        // looked up per call: connectors build resolvers before the database is needed
+        PdfResolutionCache cache = PdfResolutionCache.getInstance();
+        boolean cacheable = doi != null && !doi.isBlank();
+        if (cacheable) {
+            Optional<CachedResolution> cached = cache.get(doi);
+            if (cached.isPresent()) {
+                if (cached.get().isResolved()) {
+                    logger.debug("PDF URL for DOI {} from cache ({})", doi, cached.get().getStrategy());
+                    return cached.get().getPdfUrl();
+                }
+                logger.info("DOI known to have no PDF link: {}", doi);
+                return "UNRESOLVED:" + url;
+            }
+        }
+
         logger.info("Attempting to resolve DOI to PDF: {}", doi);
 
-        Optional<String> pdfUrl = tryUnpaywall(doi)
-            .or(() -> tryPreprints(doi))
-            .or(() -> tryPublisherParsing(url));
+        // preprint links are derived from the DOI itself, no request needed
+        Optional<String> preprint = cacheable ? tryPreprints(doi) : Optional.empty();
+        if (preprint.isPresent()) {
+            cache.putHit(doi, preprint.get(), ResolutionStrategy.PREPRINT);
+            return preprint.get();
+        }
+
+        StrategyRace race = new StrategyRace();
+        if (cacheable) {
+            race.start(ResolutionStrategy.UNPAYWALL, () -> tryUnpaywall(doi));
+        }
+        race.start(ResolutionStrategy.PUBLISHER_PAGE, () -> tryPublisherParsing(url));
+        Optional<String> pdfUrl = race.await();
 
         if (pdfUrl.isPresent()) {
-            logger.info("Resolved DOI to PDF URL: {}", pdfUrl.get());
+            logger.info("Resolved DOI to PDF URL via {}: {}", race.getWinner(), pdfUrl.get());
+            if (cacheable) {
+                cache.putHit(doi, pdfUrl.get(), race.getWinner());
+            }
             return pdfUrl.get();
         }
 
         logger.warn("Could not resolve DOI to PDF: {}", doi);
+        // a failed request says nothing about the DOI, so only a clean miss is cached
+        if (cacheable && !race.isLookupFailed()) {
+            cache.putMiss(doi);
+        }
         return "UNRESOLVED:" + url;
     }
 
@@ -62,34 +121,31 @@ public class PdfUrlResolver {
         return url != null && url.contains("doi.org/");
     }
 
-    private Optional<String> tryUnpaywall(String doi) {
-        try {
-            String encodedDoi = URLEncoder.encode(doi, StandardCharsets.UTF_8);
-            String url = UNPAYWALL_API + encodedDoi + "?email=" + UNPAYWALL_EMAIL;
-
-            Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String json = response.body().string();
-                    JsonNode root = objectMapper.readTree(json);
-
-                    JsonNode bestOa = root.get("best_oa_location");
-                    if (bestOa != null) {
-                        JsonNode pdfUrlNode = bestOa.get("url_for_pdf");
-                        if (pdfUrlNode != null && !pdfUrlNode.isNull()) {
-                            String pdfUrl = pdfUrlNode.asText();
-                            logger.info("Found PDF via Unpaywall: {}", pdfUrl);
-                            return Optional.of(pdfUrl);
-                        }
+    private Optional<String> tryUnpaywall(String doi) throws IOException {
+        String encodedDoi = URLEncoder.encode(doi, StandardCharsets.UTF_8);
+        String url = UNPAYWALL_API + encodedDoi + "?email=" + UNPAYWALL_EMAIL;
+
+        Request request = new Request.Builder()
+            .url(url)
+            .get()
+            .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                JsonNode root = objectMapper.readTree(response.body().byteStream());
+
+                JsonNode bestOa = root.get("best_oa_location");
+                if (bestOa != null) {
+                    JsonNode pdfUrlNode = bestOa.get("url_for_pdf");
+                    if (pdfUrlNode != null && !pdfUrlNode.isNull()) {
+                        String pdfUrl = pdfUrlNode.asText();
+                        logger.info("Found PDF via Unpaywall: {}", pdfUrl);
+                        return Optional.of(pdfUrl);
                     }
                 }
+            } else {
+                checkTransient(response);
             }
-        } catch (IOException e) {
-            logger.debug("Unpaywall lookup failed for DOI: {}", doi, e);
         }
 
         return Optional.empty();
@@ -97,8 +153,7 @@ public class PdfUrlResolver {
 
     private Optional<String> tryPreprints(String doi) {
         if (doi.toLowerCase().contains("arxiv")) {
-            Pattern arxivPattern = Pattern.compile("(\\d{4}\\.\\d{4,5})");
-            Matcher matcher = arxivPattern.matcher(doi);
+            Matcher matcher = ARXIV_ID_PATTERN.matcher(doi);
             if (matcher.find()) {
                 String arxivId = matcher.group(1);
                 String pdfUrl = "https://arxiv.org/pdf/" + arxivId + ".pdf";
@@ -116,47 +171,141 @@ public class PdfUrlResolver {
         return Optional.empty();
     }
 
-    private Optional<String> tryPublisherParsing(String doiUrl) {
-        try {
-            Request request = new Request.Builder()
-                .url(doiUrl)
-                .header("User-Agent", "Mozilla/5.0 (compatible; LibSearch/1.0)")
-                .get()
-                .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String html = response.body().string();
-
-                    String[] patterns = {
-                        "href=\"([^\"]*\\.pdf)\"",
-                        "data-article-pdf=\"([^\"]+)\"",
-                        "\"pdfUrl\"\\s*:\\s*\"([^\"]+)\"",
-                        "class=\"pdf-download\"[^>]*href=\"([^\"]+)\""
-                    };
-
-                    for (String patternStr : patterns) {
-                        Pattern pattern = Pattern.compile(patternStr);
-                        Matcher matcher = pattern.matcher(html);
-                        if (matcher.find()) {
-                            String pdfUrl = matcher.group(1);
-
-                            if (pdfUrl.startsWith("/")) {
-                                String baseUrl = response.request().url().scheme() + "://" +
-                                                response.request().url().host();
-                                pdfUrl = baseUrl + pdfUrl;
-                            }
-
-                            logger.info("Found PDF via publisher parsing: {}", pdfUrl);
-                            return Optional.of(pdfUrl);
-                        }
-                    }
+    private Optional<String> tryPublisherParsing(String doiUrl) throws IOException {
+        Request request = new Request.Builder()
+            .url(doiUrl)
+            .header("User-Agent", "Mozilla/5.0 (compatible; LibSearch/1.0)")
+            .get()
+            .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                CharSequence html = readPrefix(response.body().charStream(), maxHtmlChars);
+                Optional<String> pdfUrl = findPdfLink(html);
+
+                if (pdfUrl.isPresent() && pdfUrl.get().startsWith("/")) {
+                    String baseUrl = response.request().url().scheme() + "://" +
+                                    response.request().url().host();
+                    pdfUrl = Optional.of(baseUrl + pdfUrl.get());
                 }
+
+                pdfUrl.ifPresent(link -> logger.info("Found PDF via publisher parsing: {}", link));
+                return pdfUrl;
+            } else {
+                checkTransient(response);
             }
-        } catch (IOException e) {
-            logger.debug("Publisher page parsing failed", e);
         }
 
         return Optional.empty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Searches publisher HTML for a PDF link. Patterns are tried in order, so an
+     * earlier pattern anywhere in the page wins over a later one.
+     */
+    static Optional<String> findPdfLink(CharSequence html) {
+        for (Pattern pattern : PDF_LINK_PATTERNS) {
+            Matcher matcher = pattern.matcher(html);
+            if (matcher.find()) {
+                return Optional.of(matcher.group(1));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads at most maxChars characters. The rest of the body is never downloaded:
+     * PDF links sit in the head or near the top of landing pages, which can run to megabytes.
+     */
+    static CharSequence readPrefix(Reader reader, int maxChars) throws IOException {
+        StringBuilder html = new StringBuilder(Math.min(maxChars, READ_CHUNK_CHARS));
+        char[] buffer = new char[READ_CHUNK_CHARS];
+        int read;
+        while (html.length() < maxChars
+                && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - html.length()))) != -1) {
+            html.append(buffer, 0, read);
+        }
+        return html;
+    }
+
+    // rate limits and server errors are temporary, so they must not end up as a cached miss
+    private static void checkTransient(Response response) throws IOException {
+        if (response.code() == 429 || response.code() >= 500) {
+            throw new IOException("HTTP " + response.code() + " from " + response.request().url().host());
+        }
+    }
+
+    /**
+     * A lookup strategy that needs network I/O.
+     */
+    @FunctionalInterface
+    private interface StrategyLookup {
+        Optional<String> find() throws IOException;
+    }
+
+    /**
+     * Runs the network strategies of one resolution concurrently. The first link found
+     * wins and the other strategies' HTTP calls are cancelled.
+     */
+    private final class StrategyRace {
+        private final CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+        private final List<HttpCallScope> scopes = new CopyOnWriteArrayList<>();
+        // starts at 1 so the race cannot end while strategies are still being started
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile ResolutionStrategy winner;
+        private volatile boolean lookupFailed;
+
+        void start(ResolutionStrategy strategy, StrategyLookup lookup) {
+            HttpCallScope scope = new HttpCallScope();
+            scopes.add(scope);
+            pending.incrementAndGet();
+            LOOKUP_EXECUTOR.execute(() -> {
+                try {
+                    Optional<String> pdfUrl = scope.call(lookup::find);
+                    if (pdfUrl.isPresent()) {
+                        win(strategy, pdfUrl);
+                    }
+                } catch (Exception e) {
+                    // losers fail with "Canceled" once a winner is in; that is not a lookup failure
+                    if (!result.isDone()) {
+                        lookupFailed = true;
+                        logger.debug("{} lookup failed: {}", strategy, e.getMessage());
+                    }
+                } finally {
+                    finishOne();
+                }
+            });
+        }
+
+        /**
+         * Waits for the first link, or until every strategy came up empty.
+         */
+        Optional<String> await() {
+            finishOne();
+            return result.join();
+        }
+
+        ResolutionStrategy getWinner() {
+            return winner;
+        }
+
+        boolean isLookupFailed() {
+            return lookupFailed;
+        }
+
+        private synchronized void win(ResolutionStrategy strategy, Optional<String> pdfUrl) {
+            if (result.isDone()) {
+                return;
+            }
+            winner = strategy;
+            result.complete(pdfUrl);
+            scopes.forEach(HttpCallScope::cancel);
+        }
+
+        private void finishOne() {
+            if (pending.decrementAndGet() == 0) {
+                result.complete(Optional.empty());
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.teamse1csdchcw.service.resolver;
+
+/**
+ * How {@link PdfUrlResolver} found a PDF link for a DOI.
+ * Preprint links are derived from the DOI; the other two strategies race each other.
+ */
+public enum ResolutionStrategy {
+    UNPAYWALL,
+    PREPRINT,
+    PUBLISHER_PAGE
+}
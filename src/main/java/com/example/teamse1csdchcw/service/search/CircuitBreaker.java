@@ -0,0 +1,205 @@
+package com.example.teamse1csdchcw.service.search;
+
+/**
+ * Circuit breaker for one source.
+ * CLOSED lets calls through and records their outcome in a sliding window.
+ * When the error rate or slow-call rate in that window crosses its threshold
+ * the breaker goes OPEN and rejects calls. After the open period a single
+ * probe call is let through (HALF_OPEN); its outcome closes or re-opens the breaker.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Breaker states.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Called when the breaker changes state.
+     */
+    @FunctionalInterface
+    public interface StateListener {
+        void onStateChange(State from, State to);
+    }
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+
+    // ring buffer of outcomes: bit 0 = failed, bit 1 = slow
+    private final byte[] outcomes;
+    private int next;
+    private int count;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+    private StateListener listener;
+
+    /**
+     * @param windowSize number of recent calls the rates are computed over
+     * @param minCalls calls needed in the window before the breaker may open
+     * @param failureRateThreshold error rate (0-1) that opens the breaker
+     * @param slowCallRateThreshold slow-call rate (0-1) that opens the breaker
+     * @param slowCallMillis calls taking longer than this count as slow
+     * @param openMillis how long the breaker stays open before probing
+     */
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMillis, long openMillis) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minCalls = Math.max(1, Math.min(minCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * Asks to make a call. Every granted call must be followed by
+     * {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}.
+     *
+     * @return true if the call may go ahead, false if it should fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            transitionTo(State.HALF_OPEN);
+        }
+
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records a call that returned normally.
+     */
+    public synchronized void onSuccess(long durationMs) {
+        record(false, durationMs > slowCallMillis);
+    }
+
+    /**
+     * Records a call that failed or timed out.
+     */
+    public synchronized void onFailure(long durationMs) {
+        record(true, durationMs > slowCallMillis);
+    }
+
+    /**
+     * Releases a granted call that ended without telling us anything (e.g. cancelled).
+     */
+    public synchronized void onIgnored() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Error rate over the current window, 0 to 1.
+     */
+    public synchronized double getFailureRate() {
+        return rate(1);
+    }
+
+    /**
+     * Slow-call rate over the current window, 0 to 1.
+     */
+    public synchronized double getSlowCallRate() {
+        return rate(2);
+    }
+
+    /**
+     * Time left until an open breaker lets a probe through, 0 if not open.
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openedAt + openMillis - System.currentTimeMillis());
+    }
+
+    public synchronized void setListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Forces the breaker back to CLOSED with an empty window.
+     */
+    public synchronized void reset() {
+        clearWindow();
+        probeInFlight = false;
+        transitionTo(State.CLOSED);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            // the probe decides alone
+            probeInFlight = false;
+            if (failed || slow) {
+                trip();
+            } else {
+                clearWindow();
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+
+        outcomes[next] = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+        next = (next + 1) % windowSize;
+        count = Math.min(count + 1, windowSize);
+
+        if (state == State.CLOSED && count >= minCalls
+                && (rate(1) >= failureRateThreshold || rate(2) >= slowCallRateThreshold)) {
+            trip();
+        }
+    }
+
+    private void trip() {
+        openedAt = System.currentTimeMillis();
+        transitionTo(State.OPEN);
+    }
+
+    private double rate(int mask) {
+        if (count == 0) {
+            return 0;
+        }
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if ((outcomes[i] & mask) != 0) {
+                hits++;
+            }
+        }
+        return (double) hits / count;
+    }
+
+    private void clearWindow() {
+        next = 0;
+        count = 0;
+    }
+
+    private void transitionTo(State newState) {
+        State old = state;
+        state = newState;
+        if (old != newState && listener != null) {
+            listener.onStateChange(old, newState);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.teamse1csdchcw.service.search;
 
+// -- timeout & hedging settings --
+import com.example.teamse1csdchcw.config.ConfigService;
 // -- domain models --
 import com.example.teamse1csdchcw.domain.search.SearchQuery;
 import com.example.teamse1csdchcw.domain.search.SearchResult;
 import com.example.teamse1csdchcw.domain.source.SourceType;
-// -- custom exception for search failures --
+// -- custom exceptions for search & connector failures --
+import com.example.teamse1csdchcw.exception.ConnectorException;
 import com.example.teamse1csdchcw.exception.SearchException;
 // -- connector layer: factory & interface --
 import com.example.teamse1csdchcw.service.connector.ConnectorFactory;
@@ -13,6 +16,8 @@ import com.example.teamse1csdchcw.service.connector.SourceConnector;
 import com.example.teamse1csdchcw.service.index.IndexService;
 // -- rate limiter to avoid api throttling --
 import com.example.teamse1csdchcw.util.http.RateLimiter;
+// -- lets a timed-out source cancel its okhttp calls --
+import com.example.teamse1csdchcw.util.http.HttpCallScope;
 // -- logging --
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +26,8 @@ import java.io.IOException;
 import java.util.*;
 // -- java concurrent utils for parallel execution --
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -29,27 +36,44 @@ import java.util.stream.Collectors;
  */
 // -- core service: searches multiple apis in parallel --
 // -- "federated" = distributed across multiple sources --
-// -- uses thread pool for concurrent api calls --
+// -- uses the shared SearchScheduler for concurrent api calls --
 public class FederatedSearchService {
     // -- logger instance for this class --
     private static final Logger logger = LoggerFactory.getLogger(FederatedSearchService.class);
     // -- config defaults --
     private static final int DEFAULT_MAX_RESULTS = 50;       // -- results per source --
     private static final int DEFAULT_TIMEOUT_SECONDS = 30;   // -- total search timeout --
-    private static final int DEFAULT_MAX_CONCURRENT = 5;     // -- thread pool size --
+    private static final int DEFAULT_MIN_TIMEOUT_SECONDS = 5; // -- floor for adaptive deadlines --
+    private static final double DEFAULT_TIMEOUT_MULTIPLIER = 2.0; // -- deadline = p99 * multiplier --
+    private static final int DEFAULT_PAGINATION_TIMEOUT_SECONDS = 120; // -- deadline for multi-page searches --
+    private static final int DEFAULT_PREFETCH_PAGES = 4;     // -- page requests in flight per source --
+    private static final long PAGED_PUBLISH_GRACE_MS = 1000; // -- time for paged sources to hand in partial results --
+
+    // -- process-wide: coalesces identical source searches from all service instances --
+    private static final SingleFlight<String, SearchSourceResult> IN_FLIGHT =
+            new SingleFlight<>(SearchSourceResult::copy);
 
     // -- dependencies (injected via constructor or direct instantiation) --
     private final ConnectorFactory connectorFactory;  // -- creates api connectors --
     private final ResultAggregator resultAggregator;  // -- merges & dedupes results --
     private final RateLimiter rateLimiter;            // -- prevents api throttling --
-    private final ExecutorService executorService;    // -- thread pool for parallel calls --
+    private final SearchScheduler scheduler;          // -- shared, bounded virtual-thread scheduler --
+    private final SourceLatencyTracker latencyTracker; // -- observed response times per source --
+    private final SearchResultCache resultCache;      // -- memory + sqlite cache per source & query --
+    private final SourceCircuitBreakers circuitBreakers; // -- fail fast on sources that keep failing --
     private IndexService indexService;                // -- lucene index for caching --
 
     // -- configurable settings --
     private int maxResultsPerSource = DEFAULT_MAX_RESULTS;
     private int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
-    private int maxConcurrentSources = DEFAULT_MAX_CONCURRENT;
     private boolean autoIndexEnabled = true;  // -- auto-save results to lucene --
+    private boolean adaptiveTimeoutsEnabled = true;  // -- per-source deadlines from p99 --
+    private boolean hedgingEnabled = true;           // -- second request after p95 --
+    private boolean cacheEnabled = true;             // -- serve repeated queries from cache --
+    private int minTimeoutSeconds = DEFAULT_MIN_TIMEOUT_SECONDS;
+    private double timeoutMultiplier = DEFAULT_TIMEOUT_MULTIPLIER;
+    private int paginationTimeoutSeconds = DEFAULT_PAGINATION_TIMEOUT_SECONDS;
+    private int prefetchPages = DEFAULT_PREFETCH_PAGES;
 
     // -- default constructor: creates all dependencies --
     public FederatedSearchService() {
@@ -59,8 +83,12 @@ public class FederatedSearchService {
         this.resultAggregator = new ResultAggregator();
         // -- singleton rate limiter --
         this.rateLimiter = RateLimiter.getInstance();
-        // -- fixed thread pool: reuses threads for efficiency --
-        this.executorService = Executors.newFixedThreadPool(DEFAULT_MAX_CONCURRENT);
+        // -- process-wide scheduler: all searches share one concurrency limit --
+        this.scheduler = SearchScheduler.getInstance();
+        this.latencyTracker = SourceLatencyTracker.getInstance();
+        this.resultCache = SearchResultCache.getInstance();
+        this.circuitBreakers = SourceCircuitBreakers.getInstance();
+        loadTimeoutSettings();
 
         // -- try to init lucene index for auto-indexing --
         try {
@@ -75,7 +103,25 @@ public class FederatedSearchService {
         this.connectorFactory = connectorFactory;
         this.resultAggregator = resultAggregator;
         this.rateLimiter = RateLimiter.getInstance();
-        this.executorService = Executors.newFixedThreadPool(DEFAULT_MAX_CONCURRENT);
+        this.scheduler = SearchScheduler.getInstance();
+        this.latencyTracker = SourceLatencyTracker.getInstance();
+        this.resultCache = SearchResultCache.getInstance();
+        this.circuitBreakers = SourceCircuitBreakers.getInstance();
+        loadTimeoutSettings();
+    }
+
+    // -- timeout & hedging settings from application.yaml --
+    private void loadTimeoutSettings() {
+        ConfigService config = ConfigService.getInstance();
+        this.timeoutSeconds = config.getInt("search.timeout_seconds", DEFAULT_TIMEOUT_SECONDS);
+        this.adaptiveTimeoutsEnabled = config.getBoolean("search.adaptive_timeouts", true);
+        this.minTimeoutSeconds = config.getInt("search.min_timeout_seconds", DEFAULT_MIN_TIMEOUT_SECONDS);
+        this.timeoutMultiplier = config.getDouble("search.timeout_p99_multiplier", DEFAULT_TIMEOUT_MULTIPLIER);
+        this.hedgingEnabled = config.getBoolean("search.hedging_enabled", true);
+        this.cacheEnabled = config.getBoolean("cache.enabled", true);
+        this.paginationTimeoutSeconds = config.getInt("search.pagination.timeout_seconds",
+                DEFAULT_PAGINATION_TIMEOUT_SECONDS);
+        this.prefetchPages = config.getInt("search.pagination.prefetch_pages", DEFAULT_PREFETCH_PAGES);
     }
 
     /**
@@ -94,119 +140,394 @@ public class FederatedSearchService {
     }
 
     /**
-     * Search specific sources.
+     * Search specific sources, blocking until the streaming search has finished.
      *
      * @param query the search query
      * @param sourceTypes the sources to search
      * @return aggregated search results
      * @throws SearchException if search fails
      */
+    public List<SearchResult> search(SearchQuery query, Set<SourceType> sourceTypes) throws SearchException {
+        try {
+            return searchStreaming(query, sourceTypes, null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new SearchException("Search execution failed", e.getCause());
+        }
+    }
+
+    /**
+     * Search specific sources, publishing each source's results as soon as it completes.
+     * Results are deduplicated incrementally, so the listener only sees each paper once.
+     *
+     * @param query the search query
+     * @param sourceTypes the sources to search
+     * @param listener receives per-source results (may be null)
+     * @return future completing with the final aggregated results (partial on timeout)
+     * @throws SearchException if no connector is available for the requested sources
+     */
     // -- main search method: searches specified sources in parallel --
     // -- uses CompletableFuture for async execution --
-    public List<SearchResult> search(SearchQuery query, Set<SourceType> sourceTypes) throws SearchException {
+    public CompletableFuture<List<SearchResult>> searchStreaming(SearchQuery query, Set<SourceType> sourceTypes,
+                                                                 SearchResultListener listener) throws SearchException {
         logger.info("Starting federated search across {} sources: {}",
                 sourceTypes.size(), sourceTypes);
 
         // -- track total search time --
         long startTime = System.currentTimeMillis();
 
-        try {
-            // Get connectors for requested sources
-            // -- connector = api client for one source --
-            List<SourceConnector> connectors = connectorFactory.getConnectors(sourceTypes);
+        // Get connectors for requested sources
+        // -- connector = api client for one source --
+        List<SourceConnector> connectors = connectorFactory.getConnectors(sourceTypes);
+
+        if (connectors.isEmpty()) {
+            throw new SearchException("No connectors available for requested sources");
+        }
+
+        // -- dedup state shared by all sources of this search --
+        ResultAggregator.IncrementalAggregation aggregation = resultAggregator.startIncremental();
+        // -- set once the search is finished, late sources are dropped after that --
+        AtomicBoolean finished = new AtomicBoolean(false);
+        AtomicInteger completedSources = new AtomicInteger();
+
+        // Execute searches in parallel
+        // -- each future publishes its source's results when done --
+        List<CompletableFuture<SearchSourceResult>> sourceFutures = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (SourceConnector connector : connectors) {
+            CompletableFuture<SearchSourceResult> sourceFuture = fetchSource(connector, query);
+            sourceFutures.add(sourceFuture);
+            futures.add(sourceFuture.thenAccept(
+                    result -> publish(result, aggregation, finished, completedSources, listener)));
+        }
 
-            if (connectors.isEmpty()) {
-                throw new SearchException("No connectors available for requested sources");
+        // -- paged sources run longer & publish partial results at their own deadline, --
+        // -- so the overall timeout is only a backstop for them --
+        boolean paged = connectors.stream().anyMatch(this::needsPaging);
+        long overallTimeoutMs = paged
+                ? Math.max(timeoutSeconds, paginationTimeoutSeconds) * 1000L + PAGED_PUBLISH_GRACE_MS
+                : timeoutSeconds * 1000L;
+
+        // Wait for all searches to complete with timeout
+        // -- completeOnTimeout: stop waiting for slow sources, keep what we have --
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .completeOnTimeout(null, overallTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    List<SearchResult> aggregatedResults;
+                    synchronized (aggregation) {
+                        finished.set(true);
+                        aggregatedResults = aggregation.snapshot();
+                    }
+
+                    if (futures.stream().anyMatch(f -> !f.isDone())) {
+                        logger.warn("Search timeout after {}ms, using partial results", overallTimeoutMs);
+                        // -- cancel slow sources down to their http calls, use results we have --
+                        sourceFutures.forEach(f -> f.cancel(true));
+                    }
+
+                    if (autoIndexEnabled && indexService != null && !aggregatedResults.isEmpty()) {
+                        // -- background indexer commits in groups; the search does not wait for it --
+                        indexService.indexResultsAsync(aggregatedResults);
+                    }
+
+                    long totalDuration = System.currentTimeMillis() - startTime;
+                    logger.info("Federated search completed: {} total results from {} sources in {}ms",
+                            aggregatedResults.size(),
+                            completedSources.get(),
+                            totalDuration);
+
+                    if (listener != null) {
+                        notifyListener(() -> listener.onSearchCompleted(aggregatedResults));
+                    }
+                    return aggregatedResults;
+                });
+    }
+
+    /**
+     * Merge one source's results into the running aggregation and notify the listener.
+     */
+    private void publish(SearchSourceResult result, ResultAggregator.IncrementalAggregation aggregation,
+                         AtomicBoolean finished, AtomicInteger completedSources, SearchResultListener listener) {
+        // -- lock keeps callbacks ordered & prevents publishing after the final snapshot --
+        synchronized (aggregation) {
+            if (finished.get()) {
+                logger.debug("Dropping late results from {}", result.sourceType);
+                return;
             }
 
-            // Execute searches in parallel
-            // -- CompletableFuture: java 8+ async programming --
-            // -- each future represents a pending api call --
-            List<CompletableFuture<SearchSourceResult>> futures = new ArrayList<>();
-
-            for (SourceConnector connector : connectors) {
-                // -- supplyAsync: run task in thread pool, return future --
-                CompletableFuture<SearchSourceResult> future = CompletableFuture.supplyAsync(
-                        () -> searchSource(connector, query),  // -- lambda: task to run --
-                        executorService                        // -- thread pool to use --
-                );
-                futures.add(future);
+            if (result.error != null) {
+                if (listener != null) {
+                    notifyListener(() -> listener.onSourceFailed(result.sourceType, result.error));
+                }
+                return;
             }
 
-            // Wait for all searches to complete with timeout
-            // -- allOf: completes when all futures complete --
-            CompletableFuture<Void> allOf = CompletableFuture.allOf(
-                    futures.toArray(new CompletableFuture[0])  // -- varargs from list --
-            );
+            completedSources.incrementAndGet();
+            logger.info("Source: {} - Found {} results in {}ms",
+                    result.sourceType,
+                    result.results.size(),
+                    result.duration);
+
+            List<SearchResult> newResults = aggregation.add(result.results);
+            if (listener != null) {
+                List<SearchResult> snapshot = aggregation.snapshot();
+                notifyListener(() -> listener.onSourceCompleted(
+                        result.sourceType, newResults, snapshot, result.duration));
+            }
+        }
+    }
 
-            try {
-                // -- block until all complete or timeout --
-                allOf.get(timeoutSeconds, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                logger.warn("Search timeout after {} seconds, using partial results", timeoutSeconds);
-                // Cancel remaining tasks
-                // -- cancel slow sources, use results we have --
-                futures.forEach(f -> f.cancel(true));
+    /**
+     * Run a listener callback, a failing listener must not break the search.
+     */
+    private void notifyListener(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            logger.warn("Search listener failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Serve a source from the result cache when possible, otherwise search it.
+     * Stale entries are returned right away and refreshed in the background.
+     */
+    private CompletableFuture<SearchSourceResult> fetchSource(SourceConnector connector, SearchQuery query) {
+        SourceType sourceType = connector.getSourceType();
+        // -- same key for cache & coalescing: source, max results, canonical query --
+        String requestKey = resultCache.key(sourceType, maxResultsPerSource, query);
+
+        if (cacheEnabled) {
+            Optional<SearchResultCache.Lookup> cached = resultCache.get(sourceType, requestKey);
+            if (cached.isPresent()) {
+                SearchResultCache.Lookup hit = cached.get();
+                if (hit.isStale()) {
+                    // -- stale-while-revalidate: answer now, refresh for the next caller --
+                    logger.debug("Serving stale cache for {} ({}ms old), refreshing", sourceType, hit.getAgeMillis());
+                    IN_FLIGHT.execute(requestKey, () -> searchAndCache(connector, query, requestKey));
+                } else {
+                    logger.debug("Cache hit for {} ({}ms old)", sourceType, hit.getAgeMillis());
+                }
+                return CompletableFuture.completedFuture(
+                        new SearchSourceResult(sourceType, hit.getResults(), 0, null));
             }
+        }
 
-            // Collect results
-            // -- stream pipeline: filter done futures, extract results --
-            List<SearchSourceResult> sourceResults = futures.stream()
-                    .filter(f -> f.isDone() && !f.isCompletedExceptionally() && !f.isCancelled())
-                    .map(f -> {
-                        try {
-                            return f.get();  // -- blocking get (but future is done) --
-                        } catch (Exception e) {
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)  // -- remove nulls --
-                    .collect(Collectors.toList());
+        // -- identical searches already running (other tabs, alerts) share one upstream request --
+        return IN_FLIGHT.execute(requestKey, () -> searchAndCache(connector, query, requestKey));
+    }
 
-            // Log results per source
-            for (SearchSourceResult result : sourceResults) {
-                logger.info("Source: {} - Found {} results in {}ms",
-                        result.sourceType,
-                        result.results.size(),
-                        result.duration);
+    /**
+     * Search a source and store successful results in the cache.
+     */
+    private CompletableFuture<SearchSourceResult> searchAndCache(SourceConnector connector, SearchQuery query,
+                                                                 String cacheKey) {
+        CompletableFuture<SearchSourceResult> search = searchSourceAsync(connector, query);
+        CompletableFuture<SearchSourceResult> cached = search.thenApply(r -> {
+            // -- a deadline-truncated result would be served as complete until it expires --
+            if (r.error == null && !r.partial && cacheEnabled) {
+                resultCache.put(r.sourceType, cacheKey, r.results);
             }
+            return r;
+        });
+        // -- cancelling the returned future must still reach the http calls --
+        cached.whenComplete((r, e) -> {
+            if (cached.isCancelled()) {
+                search.cancel(true);
+            }
+        });
+        return cached;
+    }
 
-            // Aggregate results
-            List<SearchResult> allResults = sourceResults.stream()
-                    .flatMap(r -> r.results.stream())
-                    .collect(Collectors.toList());
+    /**
+     * Search a single source under its own deadline, hedging slow requests.
+     * The first attempt to answer wins; the others are cancelled down to their HTTP calls.
+     */
+    private CompletableFuture<SearchSourceResult> searchSourceAsync(SourceConnector connector, SearchQuery query) {
+        SourceType sourceType = connector.getSourceType();
+
+        // -- open circuit: skip the source instead of waiting for its timeouts --
+        if (!circuitBreakers.tryAcquire(sourceType)) {
+            logger.debug("Skipping {}: circuit open", sourceType);
+            return CompletableFuture.completedFuture(new SearchSourceResult(sourceType, Collections.emptyList(), 0,
+                    new ConnectorException(sourceType.getDisplayName() + " is failing, temporarily skipped")));
+        }
 
-            List<SearchResult> aggregatedResults = resultAggregator.aggregate(allResults);
+        // -- more results than one request returns: page through the source instead --
+        if (needsPaging(connector)) {
+            return searchPaged(connector, query);
+        }
 
-            if (autoIndexEnabled && indexService != null && !aggregatedResults.isEmpty()) {
-                try {
-                    indexService.indexResults(aggregatedResults);
-                    logger.debug("Auto-indexed {} results", aggregatedResults.size());
-                } catch (IOException e) {
-                    logger.error("Failed to auto-index results: {}", e.getMessage());
+        long deadlineMs = deadlineFor(sourceType);
+        CompletableFuture<SearchSourceResult> result = new CompletableFuture<>();
+        List<SourceAttempt> attempts = new CopyOnWriteArrayList<>();
+
+        startAttempt(connector, query, result, attempts);
+
+        // -- hedge: fire a second request if the first has not answered by the source's p95 --
+        OptionalLong hedgeDelay = hedgingEnabled
+                ? latencyTracker.percentile(sourceType, 95)
+                : OptionalLong.empty();
+        if (hedgeDelay.isPresent() && hedgeDelay.getAsLong() < deadlineMs) {
+            CompletableFuture.delayedExecutor(hedgeDelay.getAsLong(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (!result.isDone()) {
+                    logger.debug("Hedging {} after {}ms", sourceType, hedgeDelay.getAsLong());
+                    startAttempt(connector, query, result, attempts);
                 }
+            });
+        }
+
+        // -- per-source deadline: give up on this source only --
+        CompletableFuture.delayedExecutor(deadlineMs, TimeUnit.MILLISECONDS).execute(() -> {
+            TimeoutException timeout = new TimeoutException(
+                    sourceType.getDisplayName() + " did not answer within " + deadlineMs + "ms");
+            if (result.complete(new SearchSourceResult(sourceType, Collections.emptyList(), deadlineMs, timeout))) {
+                logger.warn("Search timeout for source: {} after {}ms", sourceType, deadlineMs);
+                // -- count the miss so the next deadline grows --
+                latencyTracker.record(sourceType, deadlineMs);
+            }
+        });
+
+        // -- once decided (or cancelled), stop every attempt still running --
+        result.whenComplete((r, e) -> attempts.forEach(SourceAttempt::cancel));
+        // -- feed the outcome to the breaker; cancellation says nothing about the source --
+        result.whenComplete((r, e) -> {
+            CircuitBreaker breaker = circuitBreakers.get(sourceType);
+            if (r == null) {
+                breaker.onIgnored();
+            } else if (r.error == null) {
+                breaker.onSuccess(r.duration);
+            } else {
+                breaker.onFailure(r.duration);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Whether the requested number of results takes more than one request to this source.
+     */
+    private boolean needsPaging(SourceConnector connector) {
+        return maxResultsPerSource > connector.getMaxPageSize();
+    }
+
+    /**
+     * Fetch many pages of one source as one pipelined operation.
+     * Runs under the pagination deadline; when it passes, the pages fetched so far are returned.
+     * No hedging: a duplicate of a multi-page search would double the load on the source.
+     */
+    private CompletableFuture<SearchSourceResult> searchPaged(SourceConnector connector, SearchQuery query) {
+        SourceType sourceType = connector.getSourceType();
+        long startTime = System.currentTimeMillis();
+        long deadlineMs = paginationTimeoutSeconds * 1000L;
+        PagedSearch pagedSearch = new PagedSearch(connector, query, maxResultsPerSource, prefetchPages,
+                rateLimiter, scheduler);
+        logger.debug("Paging {} for {} results", sourceType, maxResultsPerSource);
+
+        CompletableFuture<SearchSourceResult> result = new CompletableFuture<>();
+        pagedSearch.start().whenComplete((results, error) -> {
+            long duration = System.currentTimeMillis() - startTime;
+            if (error != null) {
+                logger.error("Search failed for source: {} - {}", sourceType, error.getMessage());
+                result.complete(new SearchSourceResult(sourceType, Collections.emptyList(), duration,
+                        error instanceof Exception ex ? ex : new Exception(error)));
+            } else {
+                result.complete(new SearchSourceResult(sourceType, results, duration, null));
             }
+        });
 
-            long totalDuration = System.currentTimeMillis() - startTime;
-            logger.info("Federated search completed: {} total results from {} sources in {}ms",
-                    aggregatedResults.size(),
-                    sourceResults.size(),
-                    totalDuration);
+        // -- deadline: keep the pages we have, stop the rest --
+        CompletableFuture.delayedExecutor(deadlineMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            pagedSearch.cancel();
+            List<SearchResult> partial = pagedSearch.getResults();
+            Exception error = partial.isEmpty()
+                    ? new TimeoutException(sourceType.getDisplayName() + " did not answer within " + deadlineMs + "ms")
+                    : null;
+            if (result.complete(new SearchSourceResult(sourceType, partial, deadlineMs, error, true))) {
+                logger.warn("Paged search of {} stopped after {}ms with {} results",
+                        sourceType, deadlineMs, partial.size());
+            }
+        });
 
-            return aggregatedResults;
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                pagedSearch.cancel();
+            }
+        });
+        // -- the breaker judges page requests, a long multi-page search is not a slow call --
+        result.whenComplete((r, e) -> {
+            CircuitBreaker breaker = circuitBreakers.get(sourceType);
+            if (r == null) {
+                breaker.onIgnored();
+            } else if (r.error == null) {
+                breaker.onSuccess(pagedSearch.getAveragePageMillis());
+            } else {
+                breaker.onFailure(pagedSearch.getAveragePageMillis());
+            }
+        });
+        return result;
+    }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new SearchException("Search interrupted", e);
-        } catch (ExecutionException e) {
-            throw new SearchException("Search execution failed", e);
-        } catch (Exception e) {
-            throw new SearchException("Federated search failed", e);
+    /**
+     * Start one attempt against a source; it completes the shared result if it wins.
+     */
+    private void startAttempt(SourceConnector connector, SearchQuery query,
+                              CompletableFuture<SearchSourceResult> result, List<SourceAttempt> attempts) {
+        SourceType sourceType = connector.getSourceType();
+        HttpCallScope scope = new HttpCallScope();
+        // -- wait for the host's rate limit without holding a worker, then run --
+        CompletableFuture<SearchSourceResult> future = rateLimiter.acquireAsync(connector.getApiHost())
+                .thenCompose(ready -> scope.isCancelled()
+                        ? CompletableFuture.failedFuture(new CancellationException())
+                        : scheduler.submit(() -> scope.call(() -> searchSource(connector, query))));
+        SourceAttempt attempt = new SourceAttempt(scope, future);
+        attempts.add(attempt);
+        if (result.isDone()) {
+            attempt.cancel();
+            return;
         }
+
+        future.whenComplete((r, e) -> {
+            if (r != null && r.error == null) {
+                if (result.complete(r)) {
+                    latencyTracker.record(sourceType, r.duration);
+                }
+            } else if (attempts.stream().allMatch(a -> a.future.isDone())) {
+                // -- every attempt failed: report the failure --
+                Exception error = r != null ? r.error
+                        : e instanceof Exception ex ? ex : new Exception(e);
+                result.complete(r != null ? r
+                        : new SearchSourceResult(sourceType, Collections.emptyList(), 0, error));
+            }
+        });
     }
 
     /**
-     * Search a single source with error handling and rate limiting.
+     * Deadline for one source: p99 latency times the multiplier, within [min timeout, global timeout].
+     * Falls back to the global timeout until enough samples exist.
+     */
+    private long deadlineFor(SourceType sourceType) {
+        long globalMs = timeoutSeconds * 1000L;
+        if (!adaptiveTimeoutsEnabled) {
+            return globalMs;
+        }
+        OptionalLong p99 = latencyTracker.percentile(sourceType, 99);
+        if (p99.isEmpty()) {
+            return globalMs;
+        }
+        long adaptiveMs = (long) (p99.getAsLong() * timeoutMultiplier);
+        return Math.min(globalMs, Math.max(minTimeoutSeconds * 1000L, adaptiveMs));
+    }
+
+    /**
+     * Search a single source with error handling.
+     * Rate limiting happens before the call is scheduled, see startAttempt.
      */
     private SearchSourceResult searchSource(SourceConnector connector, SearchQuery query) {
         SourceType sourceType = connector.getSourceType();
@@ -215,10 +536,6 @@ public class FederatedSearchService {
         try {
             logger.debug("Starting search on source: {}", sourceType);
 
-            // Rate limiting
-            String domain = extractDomain(connector.getBaseUrl());
-            rateLimiter.acquire(domain);
-
             // Execute search
             List<SearchResult> results = connector.search(query, maxResultsPerSource);
 
@@ -235,18 +552,6 @@ public class FederatedSearchService {
         }
     }
 
-    /**
-     * Extract domain from URL for rate limiting.
-     */
-    private String extractDomain(String url) {
-        try {
-            java.net.URL parsedUrl = new java.net.URL(url);
-            return parsedUrl.getHost();
-        } catch (Exception e) {
-            return url;
-        }
-    }
-
     /**
      * Get status of all connectors.
      *
@@ -281,8 +586,29 @@ public class FederatedSearchService {
         this.timeoutSeconds = timeoutSeconds;
     }
 
+    public void setPaginationTimeoutSeconds(int paginationTimeoutSeconds) {
+        this.paginationTimeoutSeconds = paginationTimeoutSeconds;
+    }
+
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    // -- limit is process-wide: applies to every search sharing the scheduler --
     public void setMaxConcurrentSources(int maxConcurrentSources) {
-        this.maxConcurrentSources = maxConcurrentSources;
+        scheduler.setMaxConcurrent(maxConcurrentSources);
+    }
+
+    public void setAdaptiveTimeoutsEnabled(boolean adaptiveTimeoutsEnabled) {
+        this.adaptiveTimeoutsEnabled = adaptiveTimeoutsEnabled;
+    }
+
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
     }
 
     public void setAutoIndexEnabled(boolean autoIndexEnabled) {
@@ -302,21 +628,31 @@ public class FederatedSearchService {
      */
     public void shutdown() {
         logger.info("Shutting down FederatedSearchService");
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        // -- scheduler is shared, its virtual threads need no shutdown --
 
         if (indexService != null) {
             indexService.shutdown();
         }
     }
 
+    /**
+     * One in-flight request to a source and the HTTP calls it made.
+     */
+    private static class SourceAttempt {
+        final HttpCallScope scope;
+        final CompletableFuture<SearchSourceResult> future;
+
+        SourceAttempt(HttpCallScope scope, CompletableFuture<SearchSourceResult> future) {
+            this.scope = scope;
+            this.future = future;
+        }
+
+        void cancel() {
+            scope.cancel();
+            future.cancel(true);
+        }
+    }
+
     /**
      * Result holder for individual source search.
      */
@@ -325,12 +661,28 @@ public class FederatedSearchService {
         final List<SearchResult> results;
         final long duration;
         final Exception error;
+        // -- true if a deadline cut the results short; shown, but never cached --
+        final boolean partial;
 
         SearchSourceResult(SourceType sourceType, List<SearchResult> results, long duration, Exception error) {
+            this(sourceType, results, duration, error, false);
+        }
+
+        SearchSourceResult(SourceType sourceType, List<SearchResult> results, long duration, Exception error,
+                           boolean partial) {
             this.sourceType = sourceType;
             this.results = results;
             this.duration = duration;
             this.error = error;
+            this.partial = partial;
+        }
+
+        // -- per-caller copy of a coalesced result: aggregation mutates results in place --
+        SearchSourceResult copy() {
+            List<SearchResult> copied = results.stream()
+                    .map(SearchResult::copy)
+                    .collect(Collectors.toList());
+            return new SearchSourceResult(sourceType, copied, duration, error, partial);
         }
     }
 }
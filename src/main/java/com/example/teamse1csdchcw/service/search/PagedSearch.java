@@ -0,0 +1,201 @@
+package com.example.teamse1csdchcw.service.search;
+
+import com.example.teamse1csdchcw.domain.search.SearchQuery;
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.service.connector.PageCursor;
+import com.example.teamse1csdchcw.service.connector.ResultPage;
+import com.example.teamse1csdchcw.service.connector.SourceConnector;
+import com.example.teamse1csdchcw.util.http.HttpCallScope;
+import com.example.teamse1csdchcw.util.http.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fetches many pages of one source as a single operation.
+ * After the first page, seekable cursors (arXiv offsets, PubMed history) keep up to
+ * prefetchDepth page requests in flight; sequential cursors (CrossRef) request the
+ * next page as soon as the previous one arrives. Every page waits for the host's
+ * rate limit and runs on the shared scheduler, like a normal source search.
+ */
+public class PagedSearch {
+    private static final Logger logger = LoggerFactory.getLogger(PagedSearch.class);
+
+    private final SourceConnector connector;
+    private final SearchQuery query;
+    private final int limit;
+    private final int pageSize;
+    private final int prefetchDepth;
+    private final RateLimiter rateLimiter;
+    private final SearchScheduler scheduler;
+
+    private final CompletableFuture<List<SearchResult>> result = new CompletableFuture<>();
+    // pages by offset, joined in order when the search ends
+    private final NavigableMap<Integer, List<SearchResult>> pages = new TreeMap<>();
+    private final Set<HttpCallScope> scopes = ConcurrentHashMap.newKeySet();
+
+    private PageCursor seekCursor;
+    private int nextOffset;
+    private int end;
+    private int inFlight;
+    private boolean exhausted;
+    private int pagesFetched;
+    private long pageMillis;
+
+    /**
+     * @param connector the source to page through
+     * @param query the search query
+     * @param limit total number of results wanted
+     * @param prefetchDepth page requests kept in flight for seekable cursors
+     */
+    public PagedSearch(SourceConnector connector, SearchQuery query, int limit, int prefetchDepth,
+                       RateLimiter rateLimiter, SearchScheduler scheduler) {
+        this.connector = connector;
+        this.query = query;
+        this.limit = limit;
+        this.pageSize = Math.max(1, Math.min(limit, connector.getMaxPageSize()));
+        this.prefetchDepth = Math.max(1, prefetchDepth);
+        this.rateLimiter = rateLimiter;
+        this.scheduler = scheduler;
+        this.end = limit;
+    }
+
+    /**
+     * Starts fetching. The future completes with up to limit results in source order,
+     * or exceptionally if the first page fails. A later page failing ends the search
+     * with the results fetched so far.
+     */
+    public synchronized CompletableFuture<List<SearchResult>> start() {
+        if (pagesFetched == 0 && inFlight == 0 && !result.isDone()) {
+            inFlight++;
+            fetch(PageCursor.start(), pageSize);
+        }
+        return result;
+    }
+
+    /**
+     * Stops requesting pages and cancels the ones in flight.
+     * Pages already fetched stay available through {@link #getResults()}.
+     */
+    public void cancel() {
+        synchronized (this) {
+            exhausted = true;
+        }
+        scopes.forEach(HttpCallScope::cancel);
+    }
+
+    /**
+     * Results fetched so far, in source order.
+     */
+    public synchronized List<SearchResult> getResults() {
+        List<SearchResult> results = new ArrayList<>();
+        for (List<SearchResult> page : pages.values()) {
+            for (SearchResult r : page) {
+                if (results.size() == limit) {
+                    return results;
+                }
+                results.add(r);
+            }
+        }
+        return results;
+    }
+
+    public synchronized int getPagesFetched() {
+        return pagesFetched;
+    }
+
+    /**
+     * Mean time one page request took, 0 before the first page.
+     */
+    public synchronized long getAveragePageMillis() {
+        return pagesFetched == 0 ? 0 : pageMillis / pagesFetched;
+    }
+
+    private void fetch(PageCursor cursor, int size) {
+        HttpCallScope scope = new HttpCallScope();
+        scopes.add(scope);
+        // wait for the host's rate limit without holding a worker, then run
+        rateLimiter.acquireAsync(connector.getApiHost())
+                .thenCompose(ready -> scope.isCancelled()
+                        ? CompletableFuture.<ResultPage>failedFuture(new CancellationException())
+                        : scheduler.submit(() -> scope.call(() -> timedFetch(cursor, size))))
+                .whenComplete((page, error) -> {
+                    scopes.remove(scope);
+                    onPage(cursor, page, error);
+                });
+    }
+
+    private ResultPage timedFetch(PageCursor cursor, int size) throws Exception {
+        long start = System.currentTimeMillis();
+        ResultPage page = connector.fetchPage(query, cursor, size);
+        long duration = System.currentTimeMillis() - start;
+        synchronized (this) {
+            pageMillis += duration;
+        }
+        return page;
+    }
+
+    private synchronized void onPage(PageCursor cursor, ResultPage page, Throwable error) {
+        inFlight--;
+        if (result.isDone()) {
+            return;
+        }
+
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (pages.isEmpty() && !exhausted) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!exhausted) {
+                logger.warn("{}: page at offset {} failed, keeping {} results: {}",
+                        connector.getName(), cursor.getOffset(), getResults().size(), cause.getMessage());
+            }
+            exhausted = true;
+        } else {
+            pagesFetched++;
+            pages.put(cursor.getOffset(), page.getResults());
+            if (cursor.isStart() && page.getTotalResults() >= 0) {
+                end = (int) Math.min(limit, page.getTotalResults());
+            }
+
+            PageCursor next = page.getNext();
+            if (next == null || page.getResults().isEmpty()) {
+                // a seekable page past the end only stops new requests, earlier ones still count
+                exhausted = true;
+            } else if (next.isSeekable()) {
+                if (seekCursor == null) {
+                    seekCursor = next;
+                    nextOffset = next.getOffset();
+                }
+            } else if (!exhausted && next.getOffset() < end) {
+                inFlight++;
+                fetch(next, Math.min(pageSize, end - next.getOffset()));
+            }
+        }
+
+        // keep the pipeline full: seekable pages do not depend on each other
+        while (!exhausted && seekCursor != null && inFlight < prefetchDepth && nextOffset < end) {
+            int size = Math.min(pageSize, end - nextOffset);
+            inFlight++;
+            fetch(seekCursor.at(nextOffset), size);
+            nextOffset += size;
+        }
+
+        if (inFlight == 0) {
+            List<SearchResult> results = getResults();
+            logger.debug("{}: {} results in {} pages", connector.getName(), results.size(), pagesFetched);
+            result.complete(results);
+        }
+    }
+}
@@ -5,12 +5,17 @@ import com.example.teamse1csdchcw.domain.search.SearchResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Aggregates and deduplicates search results from multiple sources.
  * Uses DOI, arXiv ID, PMID, and URL for deduplication.
+ * Each unique result gets its deduplication key as ID, so the same paper keeps one
+ * Lucene document and one search_results row however often it is found.
  * Sorts results by relevance score and citation count.
  */
 // merges results from multiple apis - removes duplicates, combines metadata
@@ -50,32 +55,59 @@ public class ResultAggregator {
     private List<SearchResult> deduplicate(List<SearchResult> results) {
         // linkedhashmap preserves insertion order
         Map<String, SearchResult> uniqueResults = new LinkedHashMap<>();
+        mergeInto(uniqueResults, results);
+
+        logger.debug("Deduplicated {} results to {}", results.size(), uniqueResults.size());
+        return new ArrayList<>(uniqueResults.values());
+    }
+
+    /**
+     * Merge results into an existing key -> result map.
+     *
+     * @return the results whose key was not in the map yet
+     */
+    private List<SearchResult> mergeInto(Map<String, SearchResult> uniqueResults, List<SearchResult> results) {
+        List<SearchResult> added = new ArrayList<>();
 
         for (SearchResult result : results) {
             // generate unique key based on doi/arxiv/pmid/url
-            String key = generateDeduplicationKey(result);
+            String key = canonicalKey(result);
 
             if (uniqueResults.containsKey(key)) {
                 // duplicate found - merge metadata from both sources
                 SearchResult existing = uniqueResults.get(key);
                 SearchResult merged = merge(existing, result);
+                merged.setId(key);  // merged may be the incoming object, still w/ its random id
                 uniqueResults.put(key, merged);  // replace w/ merged version
                 logger.debug("Merged duplicate result: {}", key);
             } else {
-                // first occurrence - add to map
+                // first occurrence - add to map; the key replaces the connector's random id
+                result.setId(key);
                 uniqueResults.put(key, result);
+                added.add(result);
             }
         }
 
-        logger.debug("Deduplicated {} results to {}", results.size(), uniqueResults.size());
-        return new ArrayList<>(uniqueResults.values());
+        return added;
+    }
+
+    /**
+     * Start an incremental aggregation, fed one source at a time.
+     *
+     * @return a new, empty aggregation
+     */
+    public IncrementalAggregation startIncremental() {
+        return new IncrementalAggregation();
     }
 
     /**
-     * Generate a unique key for deduplication.
+     * Generate a unique key for deduplication, stable across searches and sources.
      * Priority: DOI > arXiv ID > PMID > normalized URL > title hash
+     *
+     * @param result the result to identify
+     * @return key such as "doi:10.1000/xyz"; the result's own id if it has nothing better
      */
-    private String generateDeduplicationKey(SearchResult result) {
+    public static String canonicalKey(SearchResult result) {
         // academic papers have structured identifiers - use them first
         if (result instanceof AcademicPaper paper) {
             // doi is most reliable - globally unique identifier
@@ -99,19 +131,30 @@ public class ResultAggregator {
         }
 
         // last resort: hash title - catches papers w/o identifiers
+        // sha-256, not hashCode(): the key is a primary key, a collision would overwrite another paper
         if (result.getTitle() != null && !result.getTitle().isEmpty()) {
             String normalizedTitle = normalizeTitle(result.getTitle());
-            return "title:" + normalizedTitle.hashCode();
+            return "title:" + sha256Hex(normalizedTitle);
         }
 
-        // extremely rare: use object id if nothing else available
-        return "id:" + result.getId();
+        // extremely rare: keep the object id if nothing else available
+        return result.getId();
+    }
+
+    private static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE has SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
      * Normalize URL for comparison (remove protocol, www, trailing slash, etc.)
      */
-    private String normalizeUrl(String url) {
+    private static String normalizeUrl(String url) {
         // lowercase & strip common url variations
         return url.toLowerCase()
                 .replaceAll("^https?://", "")     // remove http:// or https://
@@ -123,7 +166,7 @@ public class ResultAggregator {
     /**
      * Normalize title for comparison (lowercase, remove punctuation, extra spaces)
      */
-    private String normalizeTitle(String title) {
+    private static String normalizeTitle(String title) {
         // lowercase & strip punctuation/whitespace for fuzzy matching
         return title.toLowerCase()
                 .replaceAll("[^a-z0-9\\s]", "")   // keep only alphanumeric & spaces
@@ -263,6 +306,48 @@ public class ResultAggregator {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Aggregation state that grows as sources complete.
+     * Duplicates from later sources are merged into the results already seen,
+     * so callers can publish each source's batch as soon as it arrives.
+     */
+    // thread-safe: sources complete on different worker threads
+    public class IncrementalAggregation {
+        private final Map<String, SearchResult> uniqueResults = new LinkedHashMap<>();
+        private int totalResults;
+
+        /**
+         * Add one source's results.
+         *
+         * @param results results from a single source
+         * @return the results that were not seen before (duplicates are merged, not returned)
+         */
+        public synchronized List<SearchResult> add(List<SearchResult> results) {
+            if (results == null || results.isEmpty()) {
+                return Collections.emptyList();
+            }
+            totalResults += results.size();
+            return mergeInto(uniqueResults, results);
+        }
+
+        /**
+         * Sorted view of everything aggregated so far.
+         *
+         * @return a new sorted list
+         */
+        public synchronized List<SearchResult> snapshot() {
+            return sort(new ArrayList<>(uniqueResults.values()));
+        }
+
+        public synchronized int size() {
+            return uniqueResults.size();
+        }
+
+        public synchronized int getTotalResults() {
+            return totalResults;
+        }
+    }
+
     /**
      * Filter results by minimum citation count (for AcademicPapers).
      *
@@ -0,0 +1,244 @@
+package com.example.teamse1csdchcw.service.search;
+
+import com.example.teamse1csdchcw.config.ConfigService;
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.SearchQuery;
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import com.example.teamse1csdchcw.repository.QueryCacheRepository;
+import com.example.teamse1csdchcw.repository.QueryCacheRepository.CachedPayload;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier cache of per-source search results, keyed by source and canonical query.
+ * The first tier is a size-bounded in-memory LRU, the second the query_cache table.
+ * Entries are fresh for the source's TTL (sources.&lt;name&gt;.cache_ttl_minutes) and
+ * may be served stale for cache.stale_while_revalidate_minutes after that while
+ * the caller refreshes them in the background.
+ */
+public class SearchResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+    private static final int DEFAULT_MEMORY_ENTRIES = 200;
+    private static final int DEFAULT_TTL_MINUTES = 60;
+    private static final int DEFAULT_STALE_MINUTES = 1440;
+    private static final String TYPE_FIELD = "@type";
+
+    private static SearchResultCache instance;
+
+    private final Map<String, CachedPayload> memory;
+    private final QueryCacheRepository repository;
+    private final ObjectMapper objectMapper;
+    private final long staleWindowMillis;
+
+    /**
+     * Whether a cached entry is still within its TTL.
+     */
+    public enum Freshness {
+        FRESH,
+        STALE
+    }
+
+    private SearchResultCache() {
+        ConfigService config = ConfigService.getInstance();
+        int maxEntries = config.getInt("cache.memory_max_entries", DEFAULT_MEMORY_ENTRIES);
+        this.staleWindowMillis = TimeUnit.MINUTES.toMillis(
+                config.getInt("cache.stale_while_revalidate_minutes", DEFAULT_STALE_MINUTES));
+
+        // access-ordered linkedhashmap = lru
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPayload> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.repository = new QueryCacheRepository();
+
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.findAndRegisterModules(); // For Java 8 date/time
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        purgeExpired();
+    }
+
+    /**
+     * Get singleton instance.
+     */
+    public static synchronized SearchResultCache getInstance() {
+        if (instance == null) {
+            instance = new SearchResultCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Builds the cache key for one source.
+     */
+    public String key(SourceType source, int maxResults, SearchQuery query) {
+        return source.name() + "|" + maxResults + "|" + query.toCanonicalString();
+    }
+
+    /**
+     * Looks up cached results, memory first, then SQLite.
+     *
+     * @return the cached results, or empty if missing or past the stale window
+     */
+    public Optional<Lookup> get(SourceType source, String key) {
+        CachedPayload entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+
+        if (entry == null) {
+            entry = loadFromDisk(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            synchronized (memory) {
+                memory.put(key, entry);
+            }
+        }
+
+        long age = System.currentTimeMillis() - entry.getCreatedAt();
+        long ttl = ttlMillis(source);
+        if (age > ttl + staleWindowMillis) {
+            return Optional.empty();
+        }
+
+        List<SearchResult> results = deserialize(entry.getPayload());
+        if (results == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Lookup(age <= ttl ? Freshness.FRESH : Freshness.STALE, results, age));
+    }
+
+    /**
+     * Stores results in both tiers.
+     */
+    public void put(SourceType source, String key, List<SearchResult> results) {
+        String payload = serialize(results);
+        if (payload == null) {
+            return;
+        }
+
+        CachedPayload entry = new CachedPayload(key, source, payload, System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+
+        try {
+            repository.save(entry);
+        } catch (SQLException e) {
+            logger.warn("Failed to persist cached results for {}: {}", source, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes all entries from both tiers.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        try {
+            repository.deleteAll();
+        } catch (SQLException e) {
+            logger.warn("Failed to clear persistent query cache: {}", e.getMessage());
+        }
+    }
+
+    private CachedPayload loadFromDisk(String key) {
+        try {
+            return repository.findByKey(key);
+        } catch (SQLException e) {
+            logger.debug("Persistent query cache unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // drop rows no source could still serve, even stale
+    private void purgeExpired() {
+        long maxAge = Arrays.stream(SourceType.values())
+                .mapToLong(this::ttlMillis)
+                .max()
+                .orElse(TimeUnit.MINUTES.toMillis(DEFAULT_TTL_MINUTES)) + staleWindowMillis;
+        try {
+            int removed = repository.deleteOlderThan(System.currentTimeMillis() - maxAge);
+            if (removed > 0) {
+                logger.info("Purged {} expired query cache entries", removed);
+            }
+        } catch (SQLException e) {
+            logger.debug("Skipping query cache purge: {}", e.getMessage());
+        }
+    }
+
+    private long ttlMillis(SourceType source) {
+        ConfigService config = ConfigService.getInstance();
+        int defaultTtl = config.getInt("cache.default_ttl_minutes", DEFAULT_TTL_MINUTES);
+        int ttl = config.getInt("sources." + source.name().toLowerCase() + ".cache_ttl_minutes", defaultTtl);
+        return TimeUnit.MINUTES.toMillis(ttl);
+    }
+
+    // json array, each element tagged w/ its concrete type
+    private String serialize(List<SearchResult> results) {
+        try {
+            ArrayNode array = objectMapper.createArrayNode();
+            for (SearchResult result : results) {
+                ObjectNode node = objectMapper.valueToTree(result);
+                node.put(TYPE_FIELD, result instanceof AcademicPaper ? "paper" : "result");
+                array.add(node);
+            }
+            return objectMapper.writeValueAsString(array);
+        } catch (Exception e) {
+            logger.warn("Failed to serialize results for cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<SearchResult> deserialize(String payload) {
+        try {
+            List<SearchResult> results = new ArrayList<>();
+            for (JsonNode node : objectMapper.readTree(payload)) {
+                Class<? extends SearchResult> type = "paper".equals(node.path(TYPE_FIELD).asText())
+                        ? AcademicPaper.class
+                        : SearchResult.class;
+                results.add(objectMapper.treeToValue(node, type));
+            }
+            return results;
+        } catch (Exception e) {
+            logger.warn("Failed to read cached results: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Result of a cache lookup. Results are fresh copies, safe to modify.
+     */
+    public static class Lookup {
+        private final Freshness freshness;
+        private final List<SearchResult> results;
+        private final long ageMillis;
+
+        Lookup(Freshness freshness, List<SearchResult> results, long ageMillis) {
+            this.freshness = freshness;
+            this.results = results;
+            this.ageMillis = ageMillis;
+        }
+
+        public Freshness getFreshness() { return freshness; }
+        public boolean isStale() { return freshness == Freshness.STALE; }
+        public List<SearchResult> getResults() { return results; }
+        public long getAgeMillis() { return ageMillis; }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.teamse1csdchcw.service.search;
+
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+
+import java.util.List;
+
+/**
+ * Receives federated search results as each source completes.
+ * Callbacks run on search worker threads, one at a time and never after
+ * {@link #onSearchCompleted}; UI code must hand off to its own thread (e.g. Platform.runLater).
+ */
+public interface SearchResultListener {
+
+    /**
+     * Called once for every source that returns successfully.
+     *
+     * @param source the source that completed
+     * @param newResults results not seen from any earlier source
+     * @param aggregated sorted, deduplicated snapshot of everything received so far
+     * @param durationMs time the source took
+     */
+    void onSourceCompleted(SourceType source, List<SearchResult> newResults,
+                           List<SearchResult> aggregated, long durationMs);
+
+    /**
+     * Called when a source fails. The search continues with the other sources.
+     */
+    default void onSourceFailed(SourceType source, Exception error) {
+    }
+
+    /**
+     * Called once when all sources are done or the search timed out.
+     *
+     * @param aggregated the final aggregated result list
+     */
+    default void onSearchCompleted(List<SearchResult> aggregated) {
+    }
+}
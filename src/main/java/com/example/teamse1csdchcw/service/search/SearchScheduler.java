@@ -0,0 +1,165 @@
+package com.example.teamse1csdchcw.service.search;
+
+import com.example.teamse1csdchcw.config.ConfigService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide scheduler for connector calls.
+ * Every call runs on its own virtual thread, and a semaphore sized from
+ * search.max_concurrent_sources bounds how many calls are in flight at once.
+ * Calls over the limit wait on the semaphore (counted as queued) without
+ * holding a platform thread.
+ */
+public class SearchScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(SearchScheduler.class);
+    private static final int DEFAULT_MAX_CONCURRENT = 5;
+
+    private static SearchScheduler instance;
+
+    private final ExecutorService executor;
+    private final ResizableSemaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private int maxConcurrent;
+
+    /**
+     * Creates a scheduler allowing the given number of concurrent calls.
+     */
+    public SearchScheduler(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new ResizableSemaphore(maxConcurrent);
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("search-", 0).factory());
+    }
+
+    /**
+     * Get the shared instance, sized from search.max_concurrent_sources.
+     */
+    public static synchronized SearchScheduler getInstance() {
+        if (instance == null) {
+            int max = ConfigService.getInstance()
+                    .getInt("search.max_concurrent_sources", DEFAULT_MAX_CONCURRENT);
+            instance = new SearchScheduler(Math.max(1, max));
+            logger.info("Search scheduler started with {} concurrent calls", max);
+        }
+        return instance;
+    }
+
+    /**
+     * Schedules a task. It starts once a permit is free.
+     * Cancelling the returned future interrupts the task's thread.
+     *
+     * @param task the connector call
+     * @return future completing with the task's result
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        ScheduledTask<T> result = new ScheduledTask<>();
+        queued.incrementAndGet();
+
+        result.worker = executor.submit(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                result.completeExceptionally(e);
+                return;
+            }
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+
+            try {
+                if (!result.isDone()) {
+                    result.complete(task.call());
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                inFlight.decrementAndGet();
+                permits.release();
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Changes the concurrency limit. Running calls are not affected,
+     * a lower limit applies as they finish.
+     */
+    public synchronized void setMaxConcurrent(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        int delta = maxConcurrent - this.maxConcurrent;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+        this.maxConcurrent = maxConcurrent;
+        logger.info("Search concurrency limit set to {}", maxConcurrent);
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Number of calls waiting for a permit.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Number of calls currently running.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Future that interrupts its worker thread when cancelled.
+     */
+    private static class ScheduledTask<T> extends CompletableFuture<T> {
+        private volatile Future<?> worker;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Future<?> w = worker;
+            if (cancelled && w != null) {
+                w.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * Semaphore whose permit count can be lowered at runtime.
+     */
+    private static class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
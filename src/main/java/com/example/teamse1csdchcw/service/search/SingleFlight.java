@@ -0,0 +1,116 @@
+package com.example.teamse1csdchcw.service.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls with the same key into one in-flight call.
+ * Every caller gets its own future (and its own copy of the value); the
+ * shared call is only cancelled once all callers have cancelled. Keys are
+ * forgotten as soon as the call completes, so later calls start fresh.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+
+    /**
+     * @param copier gives each caller its own copy of the shared value
+     */
+    public SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * Runs the call unless an identical one is already in flight, in which case
+     * the caller joins that one.
+     *
+     * @param key identifies identical calls
+     * @param call starts the call
+     * @return a future for this caller
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        Flight<V> created = new Flight<>();
+        Flight<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            logger.debug("Joining in-flight call: {}", key);
+            return existing.join(copier);
+        }
+
+        // first caller: join before starting so an immediate completion is not missed
+        CompletableFuture<V> view = created.join(copier);
+        CompletableFuture<V> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.result.completeExceptionally(e);
+            return view;
+        }
+        upstream.whenComplete((v, e) -> inFlight.remove(key, created));
+        created.start(upstream);
+        return view;
+    }
+
+    /**
+     * Number of distinct calls currently in flight.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * One shared call and the callers waiting on it.
+     */
+    private static class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger activeCallers = new AtomicInteger();
+        private volatile CompletableFuture<V> upstream;
+        private volatile boolean abandoned;
+
+        CompletableFuture<V> join(UnaryOperator<V> copier) {
+            activeCallers.incrementAndGet();
+            CompletableFuture<V> view = result.thenApply(copier);
+            view.whenComplete((v, e) -> {
+                if (view.isCancelled() && activeCallers.decrementAndGet() == 0) {
+                    abandon();
+                }
+            });
+            return view;
+        }
+
+        void start(CompletableFuture<V> upstream) {
+            this.upstream = upstream;
+            upstream.whenComplete((v, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(v);
+                }
+            });
+            if (abandoned) {
+                upstream.cancel(true);
+            }
+        }
+
+        // every caller gave up: stop the shared call
+        void abandon() {
+            abandoned = true;
+            CompletableFuture<V> u = upstream;
+            if (u != null) {
+                u.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.teamse1csdchcw.service.search;
+
+import com.example.teamse1csdchcw.config.ConfigService;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * One {@link CircuitBreaker} per source, configured from search.circuit_breaker.
+ * Listeners are told about every state change, e.g. to update the source list in the UI.
+ */
+public class SourceCircuitBreakers {
+    private static final Logger logger = LoggerFactory.getLogger(SourceCircuitBreakers.class);
+
+    private static SourceCircuitBreakers instance;
+
+    private final Map<SourceType, CircuitBreaker> breakers = new EnumMap<>(SourceType.class);
+    private final List<BiConsumer<SourceType, CircuitBreaker.State>> listeners = new CopyOnWriteArrayList<>();
+    private final boolean enabled;
+
+    private SourceCircuitBreakers() {
+        this.enabled = ConfigService.getInstance().getBoolean("search.circuit_breaker.enabled", true);
+    }
+
+    /**
+     * Get singleton instance.
+     */
+    public static synchronized SourceCircuitBreakers getInstance() {
+        if (instance == null) {
+            instance = new SourceCircuitBreakers();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the breaker for a source, creating it on first use.
+     */
+    public synchronized CircuitBreaker get(SourceType source) {
+        return breakers.computeIfAbsent(source, this::create);
+    }
+
+    /**
+     * Whether calls to the source may go ahead. Always true when breakers are disabled.
+     */
+    public boolean tryAcquire(SourceType source) {
+        return !enabled || get(source).tryAcquire();
+    }
+
+    /**
+     * Gets the current state of a source's breaker.
+     */
+    public CircuitBreaker.State getState(SourceType source) {
+        return get(source).getState();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers a listener for state changes of any source.
+     */
+    public void addListener(BiConsumer<SourceType, CircuitBreaker.State> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BiConsumer<SourceType, CircuitBreaker.State> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Closes all breakers.
+     */
+    public synchronized void resetAll() {
+        breakers.values().forEach(CircuitBreaker::reset);
+    }
+
+    private CircuitBreaker create(SourceType source) {
+        ConfigService config = ConfigService.getInstance();
+        String prefix = "search.circuit_breaker.";
+        CircuitBreaker breaker = new CircuitBreaker(
+                config.getInt(prefix + "window_size", 20),
+                config.getInt(prefix + "min_calls", 5),
+                config.getDouble(prefix + "failure_rate_threshold", 0.5),
+                config.getDouble(prefix + "slow_call_rate_threshold", 0.8),
+                config.getInt(prefix + "slow_call_seconds", 10) * 1000L,
+                config.getInt(prefix + "open_seconds", 60) * 1000L);
+
+        breaker.setListener((from, to) -> {
+            if (to == CircuitBreaker.State.OPEN) {
+                logger.warn("Circuit for {} opened - failing fast for a while", source.getDisplayName());
+            } else {
+                logger.info("Circuit for {}: {} -> {}", source.getDisplayName(), from, to);
+            }
+            listeners.forEach(l -> l.accept(source, to));
+        });
+        return breaker;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.teamse1csdchcw.service.search;
+
+import com.example.teamse1csdchcw.domain.source.SourceType;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Keeps a sliding window of recent response times per source and
+ * answers percentile queries used for adaptive deadlines and hedging.
+ */
+public class SourceLatencyTracker {
+    private static final int WINDOW_SIZE = 100;
+    private static final int MIN_SAMPLES = 10;
+
+    private static SourceLatencyTracker instance;
+
+    private final Map<SourceType, Window> windows = new EnumMap<>(SourceType.class);
+
+    /**
+     * Get singleton instance.
+     */
+    public static synchronized SourceLatencyTracker getInstance() {
+        if (instance == null) {
+            instance = new SourceLatencyTracker();
+        }
+        return instance;
+    }
+
+    /**
+     * Records one observed response time.
+     */
+    public synchronized void record(SourceType source, long latencyMs) {
+        windows.computeIfAbsent(source, s -> new Window()).add(latencyMs);
+    }
+
+    /**
+     * Gets a latency percentile for a source.
+     *
+     * @param percentile value between 0 and 100
+     * @return the percentile in ms, or empty if there are too few samples
+     */
+    public synchronized OptionalLong percentile(SourceType source, double percentile) {
+        Window window = windows.get(source);
+        if (window == null || window.count < MIN_SAMPLES) {
+            return OptionalLong.empty();
+        }
+
+        long[] sorted = Arrays.copyOf(window.samples, window.count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return OptionalLong.of(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    /**
+     * Number of samples currently held for a source.
+     */
+    public synchronized int getSampleCount(SourceType source) {
+        Window window = windows.get(source);
+        return window == null ? 0 : window.count;
+    }
+
+    /**
+     * Forgets all samples.
+     */
+    public synchronized void reset() {
+        windows.clear();
+    }
+
+    /**
+     * Fixed-size ring buffer of samples.
+     */
+    private static class Window {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int next;
+        private int count;
+
+        void add(long value) {
+            samples[next] = value;
+            next = (next + 1) % WINDOW_SIZE;
+            count = Math.min(count + 1, WINDOW_SIZE);
+        }
+    }
+}
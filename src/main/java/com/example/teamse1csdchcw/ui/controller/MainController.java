@@ -8,6 +8,11 @@ import com.example.teamse1csdchcw.repository.SearchHistoryRepository;
 import com.example.teamse1csdchcw.repository.SessionRepository;
 import com.example.teamse1csdchcw.service.connector.ConnectorFactory;
 import com.example.teamse1csdchcw.service.connector.SourceConnector;
+import com.example.teamse1csdchcw.service.download.BandwidthLimiter;
+import com.example.teamse1csdchcw.service.search.CircuitBreaker;
+import com.example.teamse1csdchcw.service.search.SourceCircuitBreakers;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -19,6 +24,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +38,7 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
 
 /**
  * Main controller for the LibSearch application.
@@ -61,6 +68,7 @@ public class MainController {
     private final SearchHistoryRepository searchHistoryRepository;
     private final DownloadRepository downloadRepository;
     private final ConnectorFactory connectorFactory;
+    private final SourceCircuitBreakers circuitBreakers;
 
     // State
     private String currentSessionId;
@@ -72,6 +80,7 @@ public class MainController {
         this.searchHistoryRepository = new SearchHistoryRepository();
         this.downloadRepository = new DownloadRepository();
         this.connectorFactory = ConnectorFactory.getInstance();
+        this.circuitBreakers = SourceCircuitBreakers.getInstance();
     }
 
     @FXML
@@ -157,13 +166,24 @@ public class MainController {
                 }
 
                 boolean finalAvailable = available;
+                CircuitBreaker.State circuit = circuitBreakers.getState(type);
                 Platform.runLater(() -> {
-                    SourceStatus status = new SourceStatus(type, finalAvailable);
+                    SourceStatus status = new SourceStatus(type, finalAvailable, circuit);
                     sourceStatuses.add(status);
                 });
             }
         }).start();
 
+        // Reflect circuit breaker changes made by searches
+        circuitBreakers.addListener((type, circuit) -> Platform.runLater(() -> {
+            for (int i = 0; i < sourceStatuses.size(); i++) {
+                SourceStatus current = sourceStatuses.get(i);
+                if (current.getType() == type) {
+                    sourceStatuses.set(i, new SourceStatus(type, current.isAvailable(), circuit));
+                }
+            }
+        }));
+
         sourceListView.setItems(sourceStatuses);
         sourceListView.setCellFactory(lv -> new SourceStatusCell());
     }
@@ -206,6 +226,14 @@ public class MainController {
         return currentSessionId;
     }
 
+    public String getSortMode() {
+        return sortComboBox.getValue();
+    }
+
+    public String getTypeFilter() {
+        return typeFilterComboBox.getValue();
+    }
+
     // Menu actions
     @FXML
     private void onNewSession() {
@@ -659,11 +687,46 @@ public class MainController {
                 table.setPlaceholder(new Label("No downloads yet. Download PDFs from search results."));
             }
 
-            VBox content = new VBox(10, table);
+            // bandwidth: current throughput and limits, applied to running downloads at once
+            BandwidthLimiter bandwidth = BandwidthLimiter.getInstance();
+            Label throughputLabel = new Label();
+            Runnable updateThroughput = () -> throughputLabel.setText(formatThroughput(bandwidth));
+            updateThroughput.run();
+            Timeline throughputTimer = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateThroughput.run()));
+            throughputTimer.setCycleCount(Timeline.INDEFINITE);
+            throughputTimer.play();
+
+            TextField totalLimitField = new TextField(String.valueOf(bandwidth.getGlobalLimit() / 1024));
+            TextField hostLimitField = new TextField(String.valueOf(bandwidth.getPerHostLimit() / 1024));
+            totalLimitField.setPrefColumnCount(6);
+            hostLimitField.setPrefColumnCount(6);
+            Button applyLimitsBtn = new Button("Apply");
+            applyLimitsBtn.setOnAction(e -> {
+                try {
+                    long totalKbps = Long.parseLong(totalLimitField.getText().trim());
+                    long hostKbps = Long.parseLong(hostLimitField.getText().trim());
+                    if (totalKbps < 0 || hostKbps < 0) {
+                        throw new NumberFormatException();
+                    }
+                    bandwidth.setGlobalLimit(totalKbps * 1024);
+                    bandwidth.setPerHostLimit(hostKbps * 1024);
+                    setStatus("Bandwidth limits updated");
+                } catch (NumberFormatException ex) {
+                    showError("Invalid Limit", "Enter limits in KB/s as whole numbers, 0 for unlimited.");
+                }
+            });
+
+            HBox limitsBox = new HBox(8,
+                    new Label("Limit (KB/s, 0 = unlimited) total:"), totalLimitField,
+                    new Label("per host:"), hostLimitField, applyLimitsBtn);
+            limitsBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+            VBox content = new VBox(10, table, throughputLabel, limitsBox);
             content.setPadding(new Insets(10));
             dialog.getDialogPane().setContent(content);
             dialog.getDialogPane().setPrefWidth(780);
             dialog.showAndWait();
+            throughputTimer.stop();
 
         } catch (Exception e) {
             logger.error("Failed to open download manager", e);
@@ -671,6 +734,25 @@ public class MainController {
         }
     }
 
+    // "Throughput: 1.2 MB/s (arxiv.org 800 KB/s, europepmc.org 400 KB/s)"
+    private static String formatThroughput(BandwidthLimiter bandwidth) {
+        StringBuilder text = new StringBuilder("Throughput: ").append(formatRate(bandwidth.getThroughput()));
+        Map<String, Double> hosts = bandwidth.getHostThroughput();
+        if (!hosts.isEmpty()) {
+            StringJoiner perHost = new StringJoiner(", ", " (", ")");
+            hosts.forEach((host, rate) -> perHost.add(host + " " + formatRate(rate)));
+            text.append(perHost);
+        }
+        return text.toString();
+    }
+
+    private static String formatRate(double bytesPerSecond) {
+        if (bytesPerSecond >= 1024 * 1024) {
+            return String.format("%.1f MB/s", bytesPerSecond / (1024 * 1024));
+        }
+        return String.format("%.0f KB/s", bytesPerSecond / 1024);
+    }
+
     @FXML
     private void onIndexManager() {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -799,7 +881,12 @@ public class MainController {
         if (resultsTableController != null) {
             String filter = typeFilterComboBox.getValue();
             resultsTableController.setTypeFilter(filter);
-            setStatus("Filtered by type: " + filter);
+            if (searchPanelController != null && searchPanelController.hasOfflineResults()) {
+                // local results are filtered by the index, not in the table
+                searchPanelController.refilterOffline();
+            } else {
+                setStatus("Filtered by type: " + filter);
+            }
         }
     }
 
@@ -843,10 +930,16 @@ public class MainController {
     public static class SourceStatus {
         private final SourceType type;
         private final boolean available;
+        private final CircuitBreaker.State circuit;
 
         public SourceStatus(SourceType type, boolean available) {
+            this(type, available, CircuitBreaker.State.CLOSED);
+        }
+
+        public SourceStatus(SourceType type, boolean available, CircuitBreaker.State circuit) {
             this.type = type;
             this.available = available;
+            this.circuit = circuit;
         }
 
         public SourceType getType() {
@@ -856,6 +949,10 @@ public class MainController {
         public boolean isAvailable() {
             return available;
         }
+
+        public CircuitBreaker.State getCircuit() {
+            return circuit;
+        }
     }
 
     /**
@@ -875,15 +972,27 @@ public class MainController {
 
                 // Status indicator
                 Label indicator = new Label("●");
-                indicator.setStyle("-fx-text-fill: " +
-                    (item.isAvailable() ? "#4CAF50" : "#F44336") + ";");
-
-                // Source name
-                Label name = new Label(item.getType().getDisplayName());
+                indicator.setStyle("-fx-text-fill: " + indicatorColor(item) + ";");
+
+                // Source name, with the circuit state when searches are skipping it
+                String text = item.getType().getDisplayName();
+                if (item.getCircuit() == CircuitBreaker.State.OPEN) {
+                    text += " (failing, skipped)";
+                } else if (item.getCircuit() == CircuitBreaker.State.HALF_OPEN) {
+                    text += " (recovering)";
+                }
+                Label name = new Label(text);
 
                 hbox.getChildren().addAll(indicator, name);
                 setGraphic(hbox);
             }
         }
+
+        private static String indicatorColor(SourceStatus item) {
+            if (!item.isAvailable() || item.getCircuit() == CircuitBreaker.State.OPEN) {
+                return "#F44336";
+            }
+            return item.getCircuit() == CircuitBreaker.State.HALF_OPEN ? "#FF9800" : "#4CAF50";
+        }
     }
 }
@@ -2,6 +2,7 @@ package com.example.teamse1csdchcw.ui.controller;
 
 import com.example.teamse1csdchcw.domain.export.ExportFormat;
 import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.PublicationType;
 import com.example.teamse1csdchcw.domain.search.SearchResult;
 import com.example.teamse1csdchcw.domain.user.Bookmark;
 import com.example.teamse1csdchcw.repository.BookmarkRepository;
@@ -47,6 +48,8 @@ public class ResultsController {
     @FXML private TableColumn<SearchResult, Integer> citationsColumn;
     @FXML private TableColumn<SearchResult, Void> actionsColumn;
     @FXML private ContextMenu rowContextMenu;
+    @FXML private HBox loadMoreBox;
+    @FXML private Button loadMoreButton;
 
     // Track selected results
     private final Set<String> selectedResultIds = new HashSet<>();
@@ -69,6 +72,8 @@ public class ResultsController {
     // State
     private String currentSortMode = "Relevance";
     private String currentTypeFilter = "All Types";
+    private boolean typeFilteredByIndex;
+    private Runnable loadMoreAction;
 
     public ResultsController() {
         this.bookmarkRepository = new BookmarkRepository();
@@ -164,6 +169,33 @@ public class ResultsController {
         applyFiltersAndSort();
     }
 
+    /**
+     * Add the next page of results below the ones shown.
+     */
+    public void appendResults(List<SearchResult> moreResults) {
+        results.addAll(moreResults);
+        applyFiltersAndSort();
+    }
+
+    /**
+     * Show a "Load More" button under the table that runs the action; null hides it.
+     */
+    public void setLoadMoreAction(Runnable action) {
+        this.loadMoreAction = action;
+        loadMoreBox.setVisible(action != null);
+        loadMoreBox.setManaged(action != null);
+        loadMoreButton.setDisable(false);
+    }
+
+    @FXML
+    private void onLoadMore() {
+        if (loadMoreAction != null) {
+            // re-enabled by the next setLoadMoreAction
+            loadMoreButton.setDisable(true);
+            loadMoreAction.run();
+        }
+    }
+
     /**
      * Clear all results.
      */
@@ -202,6 +234,14 @@ public class ResultsController {
         applyFiltersAndSort();
     }
 
+    /**
+     * Results from the local index come already filtered by type (a drill-down on its "type" facet),
+     * so the table must not filter them a second time.
+     */
+    public void setTypeFilteredByIndex(boolean typeFilteredByIndex) {
+        this.typeFilteredByIndex = typeFilteredByIndex;
+    }
+
     /**
      * Apply filters and sorting to results.
      */
@@ -306,7 +346,7 @@ public class ResultsController {
     // ----------------------------
 
     private boolean matchesTypeFilter(SearchResult result) {
-        if ("All Types".equals(currentTypeFilter)) {
+        if (typeFilteredByIndex || "All Types".equals(currentTypeFilter)) {
             return true;
         }
 
@@ -314,42 +354,9 @@ public class ResultsController {
             return true;
         }
 
-        String filter = currentTypeFilter.toLowerCase();
-
-        return switch (filter) {
-            case "article" -> matchesArticle(paper);
-            case "conference" -> matchesConference(paper);
-            case "thesis" -> matchesThesis(paper);
-            case "book" -> matchesBook(paper);
-            default -> true;
-        };
-    }
-
-    private boolean matchesArticle(AcademicPaper paper) {
-        String venue = (paper.getVenue() != null ? paper.getVenue() : "").toLowerCase();
-        String journal = (paper.getJournal() != null ? paper.getJournal() : "").toLowerCase();
-        return journal.contains("journal") || journal.contains("transactions")
-                || venue.contains("journal") || venue.contains("article") || venue.contains("letter");
-    }
-
-    private boolean matchesConference(AcademicPaper paper) {
-        String venue = (paper.getVenue() != null ? paper.getVenue() : "").toLowerCase();
-        return venue.contains("conference") || venue.contains("proceedings")
-                || venue.contains("symposium") || venue.contains("workshop");
-    }
-
-    private boolean matchesThesis(AcademicPaper paper) {
-        String title = (paper.getTitle() != null ? paper.getTitle() : "").toLowerCase();
-        String venue = (paper.getVenue() != null ? paper.getVenue() : "").toLowerCase();
-        return title.contains("thesis") || title.contains("dissertation")
-                || venue.contains("thesis") || venue.contains("dissertation");
-    }
-
-    private boolean matchesBook(AcademicPaper paper) {
-        String venue = (paper.getVenue() != null ? paper.getVenue() : "").toLowerCase();
-        String journal = (paper.getJournal() != null ? paper.getJournal() : "").toLowerCase();
-        return venue.contains("book") || journal.contains("book")
-                || venue.contains("chapter") || venue.contains("textbook");
+        // same rules as the "type" facet of the local index
+        PublicationType type = PublicationType.fromName(currentTypeFilter);
+        return type == null || type.matches(paper);
     }
 
     private Comparator<SearchResult> getComparator() {
@@ -439,6 +446,7 @@ public class ResultsController {
 
             String downloadId = downloadService.queueDownload(
                     selected.getId(),
+                    paper.getDoi(),
                     pdfUrl,
                     downloadDir
             );
@@ -677,7 +685,7 @@ public class ResultsController {
                         pdfUrl = resolvedUrl;
                     }
 
-                    downloadService.queueDownload(result.getId(), pdfUrl, downloadDir);
+                    downloadService.queueDownload(result.getId(), paper.getDoi(), pdfUrl, downloadDir);
                     if (mainController != null) mainController.setStatus("Download queued");
                 }
             });
@@ -1,13 +1,18 @@
 package com.example.teamse1csdchcw.ui.controller;
 
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.PublicationType;
 import com.example.teamse1csdchcw.domain.search.SearchQuery;
 import com.example.teamse1csdchcw.domain.search.SearchResult;
 import com.example.teamse1csdchcw.domain.source.SourceType;
 import com.example.teamse1csdchcw.exception.SearchException;
 import com.example.teamse1csdchcw.repository.SearchHistoryRepository;
 import com.example.teamse1csdchcw.repository.SearchResultRepository;
+import com.example.teamse1csdchcw.service.enrichment.MetadataEnrichmentService;
 import com.example.teamse1csdchcw.service.search.FederatedSearchService;
 import com.example.teamse1csdchcw.service.search.QueryParserService;
+import com.example.teamse1csdchcw.service.search.SearchResultListener;
+import com.example.teamse1csdchcw.service.index.IndexService;
 import com.example.teamse1csdchcw.service.index.LocalSearchService;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -30,8 +35,11 @@ import java.util.UUID;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -60,6 +68,7 @@ public class SearchController {
     private final LocalSearchService localSearchService;
     private final SearchHistoryRepository historyRepository;
     private final SearchResultRepository resultRepository;
+    private final MetadataEnrichmentService enrichmentService;
 
     // Parent controller
     private MainController mainController;
@@ -67,6 +76,8 @@ public class SearchController {
 
     // State
     private boolean searchInProgress = false;
+    private SearchQuery offlineQuery;   // last offline search, null after an online one
+    private int offlinePageSize;
 
     public SearchController() {
         this.queryParser = new QueryParserService();
@@ -74,6 +85,7 @@ public class SearchController {
         this.localSearchService = new LocalSearchService(this.searchService.getIndexService());
         this.historyRepository = new SearchHistoryRepository();
         this.resultRepository = new SearchResultRepository();
+        this.enrichmentService = MetadataEnrichmentService.getInstance();
     }
 
     @FXML
@@ -114,6 +126,7 @@ public class SearchController {
         searchButton.setDisable(true);
         mainController.setStatus("Searching...");
         mainController.showProgress(true);
+        resultsController.setLoadMoreAction(null);
 
         long startTime = System.currentTimeMillis();
 
@@ -162,14 +175,20 @@ public class SearchController {
 
                 // Execute search (offline or federated)
                 List<SearchResult> results;
+                LocalSearchService.FacetedResults offlinePage = null;
                 if (offlineModeCheckBox.isSelected()) {
                     logger.info("Executing local offline search");
                     Platform.runLater(() -> mainController.setStatus("Searching local index..."));
-                    results = localSearchService.search(query, maxResults);
+                    // first page only; "Load More" fetches the next one from its cursor
+                    offlinePage = localSearchService.searchFaceted(query, offlineDrillDowns(), offlineSortOrder(),
+                            null, maxResults, 0);
+                    results = offlinePage.getResults();
                 } else {
                     logger.info("Executing federated online search");
                     searchService.setMaxResultsPerSource(maxResults);
-                    results = searchService.search(query, sources);
+                    // Show each source's results as soon as it answers
+                    results = searchService.searchStreaming(query, sources,
+                            new StreamingResultsListener(sources.size(), startTime)).get();
                 }
 
                 long searchTime = System.currentTimeMillis() - startTime;
@@ -183,11 +202,40 @@ public class SearchController {
                     logger.error("Failed to save search results", e);
                 }
 
+                // Fill missing abstracts, citation counts and PDF links in the background
+                if (!offlineModeCheckBox.isSelected()) {
+                    enrichmentService.enrichAsync(results).thenAccept(enriched -> {
+                        if (enriched.isEmpty()) {
+                            return;
+                        }
+                        // the index already has the papers as found; the enriched copies replace them
+                        if (searchService.isAutoIndexEnabled() && searchService.getIndexService() != null) {
+                            searchService.getIndexService().indexResultsAsync(new ArrayList<>(enriched));
+                        }
+                        // the table's papers are only changed on the FX thread
+                        Platform.runLater(() -> {
+                            Map<String, SearchResult> shown = new HashMap<>();
+                            results.forEach(r -> shown.put(r.getId(), r));
+                            for (AcademicPaper paper : enriched) {
+                                if (shown.get(paper.getId()) instanceof AcademicPaper target) {
+                                    MetadataEnrichmentService.applyEnrichment(target, paper);
+                                }
+                            }
+                            resultsController.getResultsTable().refresh();
+                        });
+                    });
+                }
+
                 // Update UI
                 final boolean wasOffline = offlineModeCheckBox.isSelected();
+                final LocalSearchService.FacetedResults firstPage = offlinePage;
                 Platform.runLater(() -> {
+                    offlineQuery = wasOffline ? query : null;
+                    offlinePageSize = maxResults;
+                    resultsController.setTypeFilteredByIndex(wasOffline);
                     resultsController.setResults(results);
                     mainController.updateResultsCount(results.size());
+                    setLoadMore(query, firstPage, maxResults);
 
                     String statusMsg = wasOffline
                             ? "Search completed: " + results.size() + " results from local index"
@@ -230,6 +278,128 @@ public class SearchController {
     }
 
 
+    /**
+     * True while the table shows results of an offline search, which the type filter re-queries.
+     */
+    public boolean hasOfflineResults() {
+        return offlineQuery != null;
+    }
+
+    /**
+     * Runs the last offline search again with the current type filter as a drill-down.
+     */
+    public void refilterOffline() {
+        SearchQuery query = offlineQuery;
+        if (query == null || searchInProgress) {
+            return;
+        }
+        int pageSize = offlinePageSize;
+        Map<String, String> drillDowns = offlineDrillDowns();
+        LocalSearchService.SortOrder order = offlineSortOrder();
+        resultsController.setLoadMoreAction(null);
+
+        new Thread(() -> {
+            try {
+                LocalSearchService.FacetedResults page =
+                        localSearchService.searchFaceted(query, drillDowns, order, null, pageSize, 0);
+                Platform.runLater(() -> {
+                    resultsController.setResults(page.getResults());
+                    mainController.updateResultsCount(page.getResults().size());
+                    mainController.setStatus("Filtered by type: " + mainController.getTypeFilter() + " - "
+                            + page.getTotalHits() + " results from local index");
+                    setLoadMore(query, page, pageSize);
+                });
+            } catch (IOException e) {
+                logger.error("Failed to filter local results", e);
+                Platform.runLater(() -> showError("Local Search Failed", "Failed to filter results: " + e.getMessage()));
+            }
+        }, "FilterThread").start();
+    }
+
+    /**
+     * Offers the next page of an offline search, or hides "Load More" after the last page.
+     */
+    private void setLoadMore(SearchQuery query, LocalSearchService.FacetedResults page, int pageSize) {
+        if (page == null || !page.hasMore()) {
+            resultsController.setLoadMoreAction(null);
+            return;
+        }
+        Map<String, String> drillDowns = offlineDrillDowns();
+        LocalSearchService.SortOrder order = offlineSortOrder();
+        resultsController.setLoadMoreAction(() -> new Thread(() -> {
+            try {
+                LocalSearchService.FacetedResults next =
+                        localSearchService.searchFaceted(query, drillDowns, order, page.getCursor(), pageSize, 0);
+                Platform.runLater(() -> {
+                    resultsController.appendResults(next.getResults());
+                    int shown = resultsController.getResults().size();
+                    mainController.updateResultsCount(shown);
+                    mainController.setStatus("Showing " + shown + " of " + next.getTotalHits() + " results from local index");
+                    setLoadMore(query, next, pageSize);
+                });
+            } catch (IOException e) {
+                logger.error("Failed to load more local results", e);
+                Platform.runLater(() -> {
+                    showError("Local Search Failed", "Failed to load more results: " + e.getMessage());
+                    setLoadMore(query, page, pageSize);
+                });
+            }
+        }, "LoadMoreThread").start());
+    }
+
+    // the type filter is a drill-down on the index's "type" facet, so paging and counts stay right
+    private Map<String, String> offlineDrillDowns() {
+        PublicationType type = PublicationType.fromName(mainController.getTypeFilter());
+        return type != null ? Map.of(IndexService.FACET_TYPE, type.getDisplayName()) : Map.of();
+    }
+
+    // pages come from the index in this order, so it has to match the table's sort
+    private LocalSearchService.SortOrder offlineSortOrder() {
+        String sortMode = mainController.getSortMode();
+        if ("Citation Count".equals(sortMode)) {
+            return LocalSearchService.SortOrder.CITATIONS;
+        }
+        if ("Publication Date".equals(sortMode)) {
+            return LocalSearchService.SortOrder.YEAR;
+        }
+        return LocalSearchService.SortOrder.SCORE;
+    }
+
+    /**
+     * Pushes partial federated results to the results table while the search runs.
+     */
+    private class StreamingResultsListener implements SearchResultListener {
+        private final int totalSources;
+        private final long startTime;
+        private int answeredSources;
+
+        StreamingResultsListener(int totalSources, long startTime) {
+            this.totalSources = totalSources;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void onSourceCompleted(SourceType source, List<SearchResult> newResults,
+                                      List<SearchResult> aggregated, long durationMs) {
+            answeredSources++;
+            String statusMsg = "Searching... " + aggregated.size() + " results ("
+                    + answeredSources + "/" + totalSources + " sources, last: " + source.getDisplayName() + ")";
+            long elapsed = System.currentTimeMillis() - startTime;
+            Platform.runLater(() -> {
+                resultsController.setResults(aggregated);
+                mainController.updateResultsCount(aggregated.size());
+                mainController.setStatus(statusMsg);
+                mainController.setSearchTime(elapsed);
+            });
+        }
+
+        @Override
+        public void onSourceFailed(SourceType source, Exception error) {
+            answeredSources++;
+            logger.warn("Source {} failed: {}", source, error.getMessage());
+        }
+    }
+
     /**
      * Get selected search sources from checkboxes.
      */
@@ -0,0 +1,73 @@
+package com.example.teamse1csdchcw.util.http;
+
+import okhttp3.Call;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the OkHttp calls made while a task runs, so the task can be cancelled
+ * down to the socket. Clients from {@link HttpClientFactory} register every new
+ * call with the scope bound to the calling thread; {@link #cancel()} then
+ * cancels those calls and any call the task tries to start afterwards.
+ */
+public class HttpCallScope {
+    private static final ThreadLocal<HttpCallScope> CURRENT = new ThreadLocal<>();
+
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * Runs the task with this scope bound to the current thread.
+     *
+     * @throws CancellationException if the scope was cancelled before the task started
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (cancelled) {
+            throw new CancellationException("HTTP call scope cancelled");
+        }
+        HttpCallScope previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Cancels all calls made in this scope, including ones started later.
+     */
+    public void cancel() {
+        cancelled = true;
+        calls.forEach(Call::cancel);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * The scope bound to the current thread, or null. Lets a task hand its scope
+     * to helper threads so their calls are cancelled along with it.
+     */
+    public static HttpCallScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Registers a newly created call with the scope of the current thread, if any.
+     */
+    static void register(Call call) {
+        HttpCallScope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        scope.calls.add(call);
+        if (scope.cancelled) {
+            call.cancel();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.teamse1csdchcw.util.http;
 
+import okhttp3.EventListener;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import org.slf4j.Logger;
@@ -15,24 +16,39 @@ public class HttpClientFactory {
     private static final Logger logger = LoggerFactory.getLogger(HttpClientFactory.class);
 
     private static OkHttpClient defaultClient;
+    private static OkHttpClient connectorClient;
     private static OkHttpClient debugClient;
 
     /**
      * Gets the default HTTP client with standard configuration.
+     * A 429/503 response is returned at once; the host is paused in the shared
+     * RateLimiter so the next call to it waits. Use this wherever a caller must not
+     * block, e.g. PDF link resolution and availability checks.
      */
     public static synchronized OkHttpClient getDefaultClient() {
         if (defaultClient == null) {
-            defaultClient = createClient(false);
+            defaultClient = createClient(false, false);
         }
         return defaultClient;
     }
 
+    /**
+     * Gets the HTTP client for connector searches, which run on search workers.
+     * On 429/503 it waits as the server asks and retries, within a total wait budget.
+     */
+    public static synchronized OkHttpClient getConnectorClient() {
+        if (connectorClient == null) {
+            connectorClient = createClient(false, true);
+        }
+        return connectorClient;
+    }
+
     /**
      * Gets an HTTP client with debug logging enabled.
      */
     public static synchronized OkHttpClient getDebugClient() {
         if (debugClient == null) {
-            debugClient = createClient(true);
+            debugClient = createClient(true, false);
         }
         return debugClient;
     }
@@ -40,7 +56,7 @@ public class HttpClientFactory {
     /**
      * Creates a new HTTP client with specified configuration.
      */
-    private static OkHttpClient createClient(boolean enableLogging) {
+    private static OkHttpClient createClient(boolean enableLogging, boolean retryOnBackoff) {
         OkHttpClient.Builder builder = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
@@ -48,7 +64,12 @@ public class HttpClientFactory {
                 .callTimeout(60, TimeUnit.SECONDS)
                 .retryOnConnectionFailure(true)
                 .followRedirects(true)
-                .followSslRedirects(true);
+                .followSslRedirects(true)
+                // Lets HttpCallScope cancel calls made by a timed-out task
+                .eventListenerFactory(call -> {
+                    HttpCallScope.register(call);
+                    return EventListener.NONE;
+                });
 
         // Add logging interceptor if enabled
         if (enableLogging) {
@@ -58,6 +79,9 @@ public class HttpClientFactory {
             builder.addInterceptor(loggingInterceptor);
         }
 
+        // Back off on 429/503 for every caller of the host; connector clients also retry
+        builder.addInterceptor(new RetryAfterInterceptor(RateLimiter.getInstance(), retryOnBackoff));
+
         // Add user agent interceptor
         builder.addInterceptor(chain -> chain.proceed(
                 chain.request().newBuilder()
@@ -89,6 +113,10 @@ public class HttpClientFactory {
             defaultClient.dispatcher().executorService().shutdown();
             defaultClient.connectionPool().evictAll();
         }
+        if (connectorClient != null) {
+            connectorClient.dispatcher().executorService().shutdown();
+            connectorClient.connectionPool().evictAll();
+        }
         if (debugClient != null) {
             debugClient.dispatcher().executorService().shutdown();
             debugClient.connectionPool().evictAll();
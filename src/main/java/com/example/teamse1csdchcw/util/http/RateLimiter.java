@@ -4,29 +4,44 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Rate limiter for API calls to prevent overwhelming servers.
+ * Token-bucket rate limiter for API calls, one bucket per host.
+ * Each host can be configured with its own refill rate and burst size;
+ * unconfigured hosts get the default rate derived from the minimum interval.
+ * Waiting is scheduled on a timer, so {@link #acquireAsync(String)} never blocks a thread.
  * Implements singleton pattern for global rate limiting.
  */
 public class RateLimiter {
     private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
     private static RateLimiter instance;
 
-    private final ConcurrentMap<String, Instant> lastRequestTime;
+    private final ConcurrentMap<String, TokenBucket> buckets;
+    private final ConcurrentMap<String, BucketConfig> hostConfigs;
     private final Duration minInterval;
+    private final ScheduledExecutorService timer;
 
     /**
-     * Creates a rate limiter with specified minimum interval between requests.
+     * Creates a rate limiter whose default bucket allows one request per interval, no burst.
      *
      * @param minInterval Minimum time between requests to the same domain
      */
     public RateLimiter(Duration minInterval) {
         this.minInterval = minInterval;
-        this.lastRequestTime = new ConcurrentHashMap<>();
+        this.buckets = new ConcurrentHashMap<>();
+        this.hostConfigs = new ConcurrentHashMap<>();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -46,6 +61,43 @@ public class RateLimiter {
         return instance;
     }
 
+    /**
+     * Sets the rate for one host. Replaces any existing bucket for it.
+     *
+     * @param host the host name, e.g. eutils.ncbi.nlm.nih.gov
+     * @param permitsPerSecond refill rate
+     * @param burst maximum number of requests allowed back to back
+     */
+    public void configure(String host, double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        BucketConfig config = new BucketConfig(permitsPerSecond, burst);
+        hostConfigs.put(host, config);
+        buckets.put(host, new TokenBucket(config));
+        logger.debug("Rate limit for {}: {}/s, burst {}", host, permitsPerSecond, burst);
+    }
+
+    /**
+     * Reserves a request slot for the host.
+     * The future completes once the request may be sent; completion happens
+     * on the limiter's timer thread, so chain heavy work with an async stage.
+     *
+     * @param domain The host to rate limit
+     * @return future completing when the request may proceed
+     */
+    public CompletableFuture<Void> acquireAsync(String domain) {
+        long waitNanos = bucketFor(domain).reserve();
+        if (waitNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        logger.debug("Rate limiting {} - waiting {} ms", domain, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        timer.schedule(() -> ready.complete(null), waitNanos, TimeUnit.NANOSECONDS);
+        return ready;
+    }
+
     /**
      * Acquires permission to make a request to the specified domain.
      * Blocks if necessary to maintain rate limit.
@@ -53,45 +105,135 @@ public class RateLimiter {
      * @param domain The domain to rate limit
      */
     public void acquire(String domain) {
-        Instant now = Instant.now();
-        Instant lastRequest = lastRequestTime.get(domain);
-
-        if (lastRequest != null) {
-            Duration elapsed = Duration.between(lastRequest, now);
-            if (elapsed.compareTo(minInterval) < 0) {
-                Duration waitTime = minInterval.minus(elapsed);
-                try {
-                    logger.debug("Rate limiting {} - waiting {} ms",
-                                domain, waitTime.toMillis());
-                    Thread.sleep(waitTime.toMillis());
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("Rate limiter interrupted for domain: {}", domain);
-                }
-            }
+        try {
+            acquireAsync(domain).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Rate limiter interrupted for domain: {}", domain);
+        } catch (ExecutionException e) {
+            // the timer only ever completes normally
+            logger.warn("Rate limiter failed for domain {}: {}", domain, e.getMessage());
         }
+    }
 
-        lastRequestTime.put(domain, Instant.now());
+    /**
+     * Holds back all requests to a host until the delay has passed, e.g. when
+     * the server answered 429 with a Retry-After header. Rate and burst stay
+     * as configured; only the first request after the pause goes out at once.
+     *
+     * @param domain the host that asked us to back off
+     * @param delay how long the host asked us to wait
+     */
+    public void pause(String domain, Duration delay) {
+        if (delay.isNegative() || delay.isZero()) {
+            return;
+        }
+        logger.info("Backing off {} for {} ms", domain, delay.toMillis());
+        bucketFor(domain).pauseUntil(System.nanoTime() + delay.toNanos());
     }
 
     /**
      * Resets the rate limiter for a specific domain.
      */
     public void reset(String domain) {
-        lastRequestTime.remove(domain);
+        buckets.remove(domain);
     }
 
     /**
      * Resets the rate limiter for all domains.
      */
     public void resetAll() {
-        lastRequestTime.clear();
+        buckets.clear();
     }
 
     /**
-     * Gets the minimum interval between requests.
+     * Gets the minimum interval between requests for unconfigured hosts.
      */
     public Duration getMinInterval() {
         return minInterval;
     }
+
+    /**
+     * Gets the configured rate for a host, in requests per second.
+     */
+    public double getPermitsPerSecond(String domain) {
+        return configFor(domain).permitsPerSecond;
+    }
+
+    private TokenBucket bucketFor(String domain) {
+        return buckets.computeIfAbsent(domain, d -> new TokenBucket(configFor(d)));
+    }
+
+    private BucketConfig configFor(String domain) {
+        BucketConfig config = hostConfigs.get(domain);
+        if (config != null) {
+            return config;
+        }
+        return new BucketConfig(1_000_000_000.0 / Math.max(1, minInterval.toNanos()), 1);
+    }
+
+    /**
+     * Refill rate and burst size of one bucket.
+     */
+    private static class BucketConfig {
+        final double permitsPerSecond;
+        final int burst;
+
+        BucketConfig(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Token bucket that hands out reservations.
+     * Tokens may go negative: every reservation takes one token, and a
+     * deficit is turned into the wait time until it is refilled.
+     */
+    private static class TokenBucket {
+        private final double permitsPerNano;
+        private final int burst;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(BucketConfig config) {
+            this.permitsPerNano = config.permitsPerSecond / 1_000_000_000.0;
+            this.burst = config.burst;
+            this.tokens = config.burst;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Takes one token.
+         *
+         * @return nanoseconds the caller must wait before sending
+         */
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            refill(now);
+            tokens -= 1;
+
+            long waitNanos = Math.max(0, lastRefillNanos - now);
+            if (tokens < 0) {
+                waitNanos += (long) Math.ceil(-tokens / permitsPerNano);
+            }
+            return waitNanos;
+        }
+
+        /**
+         * Pushes the next refill to the given time, leaving at most one token.
+         */
+        synchronized void pauseUntil(long untilNanos) {
+            refill(System.nanoTime());
+            tokens = Math.min(tokens, 1);
+            lastRefillNanos = Math.max(lastRefillNanos, untilNanos);
+        }
+
+        private void refill(long now) {
+            if (now > lastRefillNanos) {
+                tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+                lastRefillNanos = now;
+            }
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package com.example.teamse1csdchcw.util.http;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handles 429 (Too Many Requests) and 503 (Service Unavailable) responses.
+ * The wait the server asks for in Retry-After (delta-seconds or HTTP-date) is fed
+ * into the shared {@link RateLimiter}, so every request to that host backs off.
+ * With retries enabled (connector clients) the request is retried once the limiter
+ * lets it through again, as long as the waits stay within MAX_WAIT in total;
+ * otherwise the response is returned at once. Without a Retry-After header the
+ * wait doubles on every attempt.
+ */
+public class RetryAfterInterceptor implements Interceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RetryAfterInterceptor.class);
+
+    private static final int MAX_RETRIES = 3;
+    private static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(1);
+    // total wait per call; longer is not worth blocking a search for, the caller gets the error
+    private static final Duration MAX_WAIT = Duration.ofSeconds(30);
+
+    private final RateLimiter rateLimiter;
+    private final boolean retry;
+
+    /**
+     * @param retry wait and retry on 429/503; false only pauses the host and returns the response
+     */
+    public RetryAfterInterceptor(RateLimiter rateLimiter, boolean retry) {
+        this.rateLimiter = rateLimiter;
+        this.retry = retry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        Response response = chain.proceed(request);
+        long deadline = System.nanoTime() + MAX_WAIT.toNanos();
+
+        for (int attempt = 0; isBackoffStatus(response.code()); attempt++) {
+            Duration delay = retryAfter(response)
+                    .orElse(DEFAULT_BACKOFF.multipliedBy(1L << attempt));
+            rateLimiter.pause(host, delay);
+            if (!retry) {
+                logger.debug("{} returned {} - paused for {} ms", host, response.code(), delay.toMillis());
+                return response;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (attempt >= MAX_RETRIES || delay.toNanos() > remaining || chain.call().isCanceled()) {
+                logger.warn("{} returned {} - giving up after {} retries", host, response.code(), attempt);
+                return response;
+            }
+
+            logger.debug("{} returned {} - retrying in {} ms (attempt {}/{})",
+                    host, response.code(), delay.toMillis(), attempt + 1, MAX_RETRIES);
+            response.close();
+
+            awaitSlot(host, remaining);
+            if (chain.call().isCanceled()) {
+                throw new IOException("Canceled");
+            }
+            response = chain.proceed(request);
+        }
+        return response;
+    }
+
+    // other requests to the host may be queued ahead of this one, so the slot can come later than the pause
+    private void awaitSlot(String host, long maxWaitNanos) throws IOException {
+        try {
+            rateLimiter.acquireAsync(host).get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off " + host);
+        } catch (TimeoutException e) {
+            throw new IOException(host + " is still rate limited after " + MAX_WAIT.toSeconds() + " s");
+        } catch (ExecutionException e) {
+            throw new IOException("Rate limiter failed for " + host, e.getCause());
+        }
+    }
+
+    private static boolean isBackoffStatus(int code) {
+        return code == 429 || code == 503;
+    }
+
+    /**
+     * Parses Retry-After, which is either a number of seconds or an HTTP-date.
+     */
+    static Optional<Duration> retryAfter(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        value = value.trim();
+
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value))));
+        } catch (NumberFormatException e) {
+            // not delta-seconds, try HTTP-date
+        }
+
+        try {
+            ZonedDateTime until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(until.getZone()), until);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException e) {
+            logger.debug("Ignoring unparseable Retry-After: {}", value);
+            return Optional.empty();
+        }
+    }
+}
@@ -42,6 +42,8 @@ module com.example.teamse1csdchcw {
     requires org.apache.lucene.queryparser;
     // -- lucene analyzers: tokenizers, stemmers, etc --
     requires org.apache.lucene.analysis.common;
+    // -- lucene facet: doc values facet counts & drill-down --
+    requires org.apache.lucene.facet;
 
     // Database
     // -- java.sql: jdbc api for db access --
@@ -83,12 +85,16 @@ module com.example.teamse1csdchcw {
     requires java.desktop;
     // -- java.prefs: preferences api for settings --
     requires java.prefs;
+    // -- java.xml: stax pull parser for arxiv/pubmed responses --
+    requires java.xml;
 
     // Opens for FXML reflection
     // -- opens = allows runtime reflection access --
     // -- needed for fxmlloader to instantiate controllers --
     opens com.example.teamse1csdchcw to javafx.fxml;
     opens com.example.teamse1csdchcw.ui.controller to javafx.fxml;
+    // -- jackson binds cached search results to domain objects --
+    opens com.example.teamse1csdchcw.domain.search to com.fasterxml.jackson.databind;
 
     // Exports for public API
     // -- exports = makes pkg visible to other modules --
@@ -43,7 +43,7 @@ CREATE INDEX IF NOT EXISTS idx_search_history_time ON search_history(timestamp);
 -- enables offline access to previously searched papers
 -- ----------------------------------------------------------------------------
 CREATE TABLE IF NOT EXISTS search_results (
-    id TEXT PRIMARY KEY,                                    -- uuid
+    id TEXT PRIMARY KEY,                                    -- canonical paper key (doi:, arxiv:, pmid:, url:)
     session_id TEXT,                                        -- which session found this
     title TEXT NOT NULL,                                    -- paper title
     authors TEXT, -- JSON array or comma-separated          -- author names
@@ -132,9 +132,64 @@ CREATE TABLE IF NOT EXISTS downloads (
     started_at TIMESTAMP,                                   -- when download began
     completed_at TIMESTAMP,                                 -- when finished
     error_message TEXT,                                     -- error if failed
+    bytes_downloaded INTEGER DEFAULT 0,                     -- bytes in the .part file
+    validator TEXT,                                         -- etag / last-modified for If-Range
+    segments TEXT,                                          -- "start:end:written,..." resume state
+    doi TEXT,                                               -- doi of the paper, indexes the stored pdf
+    sha256 TEXT,                                            -- hash of the completed file, key into pdf_blobs
+    priority INTEGER DEFAULT 0,                             -- higher runs first
+    queued_at TIMESTAMP,                                    -- when queued, fifo within a priority
     FOREIGN KEY (result_id) REFERENCES search_results(id)
 );
 CREATE INDEX IF NOT EXISTS idx_downloads_status ON downloads(status);
+-- idx_downloads_queue (status, priority, queued_at) is created by DatabaseInitializer
+-- after the migration, since older databases get priority / queued_at only then
+
+-- ----------------------------------------------------------------------------
+-- query_cache table: persistent tier of the federated search cache
+-- one row per source + canonical query, read before calling the remote api
+-- ----------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS query_cache (
+    cache_key TEXT PRIMARY KEY,                             -- source|max results|canonical query
+    source TEXT NOT NULL,                                   -- ARXIV, PUBMED, etc.
+    payload TEXT NOT NULL, -- JSON array of results         -- serialized result list
+    created_at INTEGER NOT NULL                             -- epoch millis when fetched
+);
+CREATE INDEX IF NOT EXISTS idx_query_cache_created ON query_cache(created_at);
+
+-- ----------------------------------------------------------------------------
+-- pdf_resolution_cache table: doi -> pdf link lookups done by PdfUrlResolver
+-- misses are stored too (pdf_url NULL) so unresolvable dois fail fast
+-- ----------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS pdf_resolution_cache (
+    doi TEXT PRIMARY KEY,                                   -- lower-case doi
+    pdf_url TEXT,                                           -- resolved link, NULL when unresolvable
+    strategy TEXT, -- UNPAYWALL, PREPRINT, PUBLISHER_PAGE   -- what found the link, NULL for misses
+    resolved_at INTEGER NOT NULL                            -- epoch millis of the lookup
+);
+CREATE INDEX IF NOT EXISTS idx_pdf_resolution_resolved ON pdf_resolution_cache(resolved_at);
+
+-- ----------------------------------------------------------------------------
+-- pdf_blobs table: content-addressed pdf store
+-- each downloaded pdf is kept once, at <store>/<first 2 hex chars>/<sha256>.pdf
+-- ----------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS pdf_blobs (
+    sha256 TEXT PRIMARY KEY,                                -- lower-case hex sha-256 of the file
+    size INTEGER NOT NULL,                                  -- bytes
+    stored_at INTEGER NOT NULL                              -- epoch millis when first stored
+);
+
+-- ----------------------------------------------------------------------------
+-- pdf_blob_refs table: what points at a stored pdf
+-- lets a paper that was already downloaded be linked instead of fetched again
+-- ----------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS pdf_blob_refs (
+    ref_key TEXT PRIMARY KEY,                               -- "doi:<lower-case doi>", "result:<id>" or "url:<url>"
+    sha256 TEXT NOT NULL,                                   -- stored pdf
+    created_at INTEGER NOT NULL,                            -- epoch millis
+    FOREIGN KEY (sha256) REFERENCES pdf_blobs(sha256)
+);
+CREATE INDEX IF NOT EXISTS idx_pdf_blob_refs_sha ON pdf_blob_refs(sha256);
 
 -- ----------------------------------------------------------------------------
 -- config table: app settings (key-value store)
@@ -0,0 +1,218 @@
+package com.example.teamse1csdchcw.service.connector;
+
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the streaming (StAX) parsers of the arXiv and PubMed connectors against recorded responses.
+ * The benchmark (tagged "benchmark") compares them with the Jsoup DOM approach they replaced
+ * on a scaled-up fixture and prints time and allocation per parse. It only runs with ./gradlew benchmark.
+ */
+public class XmlFeedParsingTest {
+
+    private static final int BENCHMARK_COPIES = 100;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 100;
+
+    // the selectors the Jsoup versions of the parsers ran on every entry
+    private static final String[] ARXIV_SELECTORS = {
+            "title", "summary", "author > name", "link", "id", "published", "category"};
+    private static final String[] PUBMED_SELECTORS = {
+            "MedlineCitation > PMID", "ArticleTitle", "Abstract > AbstractText", "AuthorList > Author",
+            "Journal > Title", "PubDate > Year", "PubDate > Month", "PubDate > Day",
+            "ArticleIdList > ArticleId", "MeshHeadingList > MeshHeading > DescriptorName"};
+
+    @Test
+    public void testArxivAtomFeed() throws IOException {
+        List<SearchResult> results = new ArxivConnector().parseAtomFeed(fixture("arxiv_atom.xml"));
+
+        assertEquals(3, results.size(), "One result per entry, feed-level elements ignored");
+
+        AcademicPaper first = (AcademicPaper) results.get(0);
+        assertEquals(SourceType.ARXIV, first.getSource());
+        assertEquals("Scaling Laws for Neural Language Models", first.getTitle());
+        assertTrue(first.getAbstractText().startsWith("We study empirical scaling laws"));
+        assertFalse(first.getAbstractText().contains("\n"), "Whitespace should be collapsed");
+        assertEquals("Jared Kaplan, Sam McCandlish", first.getAuthors());
+        assertEquals("2301.12345v2", first.getArxivId());
+        assertEquals("http://arxiv.org/abs/2301.12345v2", first.getUrl());
+        assertEquals("http://arxiv.org/pdf/2301.12345v2", first.getPdfUrl());
+        assertEquals(LocalDate.of(2023, 1, 29), first.getPublicationDate());
+        assertEquals(List.of("cs.LG", "stat.ML"), first.getKeywords());
+
+        AcademicPaper second = (AcademicPaper) results.get(1);
+        assertTrue(second.getAbstractText().contains("networks & include"), "Entities should be decoded");
+
+        AcademicPaper third = (AcademicPaper) results.get(2);
+        assertEquals("hep-th", third.getKeywords().get(0));
+        assertTrue(third.getAbstractText().startsWith("We show that the large N limit"), "CDATA should be read");
+    }
+
+    @Test
+    public void testPubMedESearch() throws IOException {
+        List<String> pmids = new PubMedConnector("").parsePMIDs(fixture("pubmed_esearch.xml"));
+
+        assertEquals(List.of("37654321", "36123456"), pmids);
+    }
+
+    @Test
+    public void testPubMedESearchHistoryKeys() throws IOException {
+        PubMedConnector.SearchHits hits = new PubMedConnector("").parseSearch(fixture("pubmed_esearch.xml"));
+
+        assertEquals(2, hits.count);
+        assertEquals("MCID_65a5c0d1", hits.webEnv);
+        assertEquals("1", hits.queryKey);
+        assertEquals(2, hits.pmids.size());
+    }
+
+    @Test
+    public void testArxivTotalResults() throws IOException {
+        ResultPage page = new ArxivConnector().parseAtomPage(fixture("arxiv_atom.xml"));
+
+        assertEquals(3, page.getResults().size());
+        assertEquals(412345, page.getTotalResults());
+    }
+
+    @Test
+    public void testPubMedEFetch() throws IOException {
+        List<SearchResult> results = new PubMedConnector("").parseRecords(fixture("pubmed_efetch.xml"));
+
+        assertEquals(2, results.size());
+
+        AcademicPaper first = (AcademicPaper) results.get(0);
+        assertEquals("37654321", first.getPmid(), "Comment PMIDs must not override the article PMID");
+        assertEquals("https://pubmed.ncbi.nlm.nih.gov/37654321/", first.getUrl());
+        assertEquals("Prime editing of CFTR in human airway organoids.", first.getTitle());
+        assertEquals("BACKGROUND: Cystic fibrosis is caused by mutations in CFTR. "
+                + "RESULTS: Prime editing corrected the mutation in 25% of cells.", first.getAbstractText());
+        assertEquals("Maarten H Geurts, Clevers", first.getAuthors(), "Collective names are skipped");
+        assertEquals("Nature biotechnology", first.getJournal());
+        assertEquals(LocalDate.of(2023, 9, 5), first.getPublicationDate());
+        assertEquals("10.1038/s41587-023-01234-5", first.getDoi());
+        assertEquals("https://doi.org/10.1038/s41587-023-01234-5", first.getPdfUrl());
+        assertEquals(List.of("Cystic Fibrosis", "Gene Editing"), first.getKeywords());
+
+        AcademicPaper second = (AcademicPaper) results.get(1);
+        assertEquals("Front Genet", second.getJournal(), "Falls back to ISO abbreviation");
+        assertNull(second.getDoi(), "Reference DOIs must not be taken as the article DOI");
+        assertEquals("", second.getPdfUrl());
+        assertEquals("Pooled CRISPR screens & their clinical uses are reviewed.", second.getAbstractText());
+    }
+
+    @Test
+    public void testTruncatedResponseKeepsParsedEntries() throws IOException {
+        String xml = new String(fixture("arxiv_atom.xml").readAllBytes(), StandardCharsets.UTF_8);
+        String truncated = xml.substring(0, xml.indexOf("<title>Attention Is All You Need"));
+
+        List<SearchResult> results = new ArxivConnector().parseAtomFeed(stream(truncated));
+
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkStreamingVersusDom() throws IOException {
+        ArxivConnector arxiv = new ArxivConnector();
+        PubMedConnector pubmed = new PubMedConnector("");
+
+        byte[] atom = scale(fixture("arxiv_atom.xml"), "<entry>", "</feed>");
+        byte[] efetch = scale(fixture("pubmed_efetch.xml"), "<PubmedArticle>", "</PubmedArticleSet>");
+
+        report("arXiv StAX", atom, bytes -> arxiv.parseAtomFeed(stream(bytes)).size());
+        report("arXiv Jsoup DOM", atom, bytes -> domParse(bytes, "entry", ARXIV_SELECTORS));
+        report("PubMed StAX", efetch, bytes -> pubmed.parseRecords(stream(bytes)).size());
+        report("PubMed Jsoup DOM", efetch, bytes -> domParse(bytes, "PubmedArticle", PUBMED_SELECTORS));
+    }
+
+    // the replaced approach: whole body as a string, a DOM, then selectors per entry
+    private static int domParse(byte[] bytes, String entryTag, String[] selectors) {
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        Document doc = Jsoup.parse(body, "", Parser.xmlParser());
+        List<String> values = new ArrayList<>();
+        int entries = 0;
+        for (Element entry : doc.select(entryTag)) {
+            for (String selector : selectors) {
+                values.add(entry.select(selector).text());
+            }
+            entries++;
+        }
+        return entries;
+    }
+
+    private static void report(String name, byte[] input, Function<byte[], Integer> parse) {
+        int entries = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            entries = parse.apply(input);
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            parse.apply(input);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        assertTrue(entries > 0, name + " parsed nothing");
+        System.out.printf("%-18s %6d entries  %8.2f ms/op  %10d KB allocated/op%n",
+                name, entries, elapsed / 1e6 / MEASURED_ROUNDS, allocated / 1024 / MEASURED_ROUNDS);
+    }
+
+    // -1 when the jvm cannot measure per-thread allocation
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // repeats the entries of a fixture to get a response of realistic size
+    private static byte[] scale(InputStream fixture, String entryStart, String documentEnd) throws IOException {
+        String xml = new String(fixture.readAllBytes(), StandardCharsets.UTF_8);
+        int first = xml.indexOf(entryStart);
+        int end = xml.lastIndexOf(documentEnd);
+        String entries = xml.substring(first, end);
+
+        StringBuilder sb = new StringBuilder(xml.substring(0, first));
+        for (int i = 0; i < BENCHMARK_COPIES; i++) {
+            sb.append(entries);
+        }
+        sb.append(xml.substring(end));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream fixture(String name) throws IOException {
+        InputStream in = XmlFeedParsingTest.class.getResourceAsStream("/fixtures/" + name);
+        if (in == null) {
+            throw new IOException("Missing fixture: " + name);
+        }
+        return in;
+    }
+
+    private static InputStream stream(String xml) {
+        return stream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+}
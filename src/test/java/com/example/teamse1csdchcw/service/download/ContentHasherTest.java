@@ -0,0 +1,89 @@
+package com.example.teamse1csdchcw.service.download;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that hashing while streaming gives the same digest as hashing the finished file.
+ */
+public class ContentHasherTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testOutOfOrderSegmentsHashLikeWholeFile() throws IOException {
+        byte[] content = new byte[300_000];
+        new Random(42).nextBytes(content);
+        Path part = dir.resolve("paper.pdf.part");
+        Files.createFile(part);
+
+        ContentHasher hasher = new ContentHasher();
+        // the tail arrives first and cannot be hashed yet
+        ReadableByteChannel tail = body(content, 200_000, content.length);
+        assertSame(tail, hasher.wrap(tail, 200_000));
+        copy(tail, part, 200_000);
+
+        ReadableByteChannel head = hasher.wrap(body(content, 0, 100_000), 0);
+        // only one segment streams into the digest at a time
+        ReadableByteChannel middle = body(content, 100_000, 200_000);
+        assertSame(middle, hasher.wrap(middle, 100_000));
+        copy(middle, part, 100_000);
+        copy(head, part, 0);
+
+        assertArrayEquals(content, Files.readAllBytes(part));
+        assertEquals(ContentHasher.sha256(part), hasher.finish(part));
+    }
+
+    @Test
+    public void testResetStartsOver() throws IOException {
+        byte[] content = "%PDF-1.7 retried download".getBytes();
+        Path part = dir.resolve("retry.pdf.part");
+        Files.write(part, content);
+
+        ContentHasher hasher = new ContentHasher();
+        drain(hasher.wrap(body(new byte[10], 0, 10), 0));
+        hasher.reset();
+        drain(hasher.wrap(body(content, 0, content.length), 0));
+
+        assertEquals(ContentHasher.sha256(part), hasher.finish(part));
+    }
+
+    private static ReadableByteChannel body(byte[] content, int from, int to) {
+        return Channels.newChannel(new ByteArrayInputStream(Arrays.copyOfRange(content, from, to)));
+    }
+
+    private static void copy(ReadableByteChannel source, Path file, long position) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            while (source.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += out.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    private static void drain(ReadableByteChannel source) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (source.read(buffer) > 0) {
+            buffer.clear();
+        }
+    }
+}
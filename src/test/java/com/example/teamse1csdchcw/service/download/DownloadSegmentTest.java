@@ -0,0 +1,93 @@
+package com.example.teamse1csdchcw.service.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how DownloadSegment splits a download, stores its progress and asks for the rest.
+ */
+public class DownloadSegmentTest {
+
+    @Test
+    public void testPlanCoversFileExactly() {
+        long total = 1_000_003;
+        List<DownloadSegment> segments = DownloadSegment.plan(total, 4);
+
+        assertEquals(4, segments.size());
+        assertEquals(0, segments.get(0).getStart());
+        assertEquals(total - 1, segments.get(3).getEnd(), "Last segment takes the remainder");
+
+        long covered = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            DownloadSegment segment = segments.get(i);
+            if (i > 0) {
+                assertEquals(segments.get(i - 1).getEnd() + 1, segment.getStart(), "No gap or overlap");
+            }
+            covered += segment.remaining();
+        }
+        assertEquals(total, covered);
+    }
+
+    @Test
+    public void testFormatAndParseRoundTrip() {
+        List<DownloadSegment> segments = DownloadSegment.plan(100, 3);
+        segments.get(0).advance(10);
+        segments.get(2).advance(34);
+
+        String stored = DownloadSegment.format(segments);
+        assertEquals("0:32:10,33:65:0,66:99:34", stored);
+
+        List<DownloadSegment> parsed = DownloadSegment.parse(stored);
+        assertEquals(stored, DownloadSegment.format(parsed));
+        assertEquals(44, DownloadSegment.written(parsed));
+        assertTrue(parsed.get(2).isComplete());
+        assertFalse(parsed.get(0).isComplete());
+    }
+
+    @Test
+    public void testParseMalformedReturnsEmpty() {
+        assertTrue(DownloadSegment.parse(null).isEmpty());
+        assertTrue(DownloadSegment.parse(" ").isEmpty());
+        assertTrue(DownloadSegment.parse("0:99").isEmpty(), "Missing written count");
+        assertTrue(DownloadSegment.parse("0:49:0,50:x:0").isEmpty(), "One bad entry drops all");
+    }
+
+    @Test
+    public void testRangeHeaderResumesAtPosition() {
+        DownloadSegment segment = new DownloadSegment(100, 199, 0);
+        assertEquals("bytes=100-199", segment.rangeHeader());
+
+        segment.advance(40);
+        assertEquals(140, segment.position());
+        assertEquals(60, segment.remaining());
+        assertEquals("bytes=140-199", segment.rangeHeader());
+    }
+
+    @Test
+    public void testOpenEndedSegmentFinishesAtBytesReceived() {
+        DownloadSegment segment = new DownloadSegment(0, DownloadSegment.OPEN_END, 0);
+        assertTrue(segment.isOpenEnded());
+        assertEquals("bytes=0-", segment.rangeHeader());
+        assertEquals(Long.MAX_VALUE, segment.remaining());
+        assertFalse(segment.isComplete());
+
+        segment.advance(512);
+        segment.finish();
+
+        assertFalse(segment.isOpenEnded());
+        assertEquals(511, segment.getEnd());
+        assertTrue(segment.isComplete());
+        assertEquals("0:511:512", DownloadSegment.format(List.of(segment)));
+    }
+
+    @Test
+    public void testFinishKeepsKnownEnd() {
+        DownloadSegment segment = new DownloadSegment(0, 99, 50);
+        segment.finish();
+        assertEquals(99, segment.getEnd());
+        assertFalse(segment.isComplete());
+    }
+}
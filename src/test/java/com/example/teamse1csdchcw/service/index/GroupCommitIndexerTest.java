@@ -0,0 +1,159 @@
+package com.example.teamse1csdchcw.service.index;
+
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests when GroupCommitIndexer commits: once a batch is full, once the oldest pending
+ * document has waited the commit interval, and on flush and close.
+ * Commits are observed with a separate reader, which only sees committed documents.
+ */
+public class GroupCommitIndexerTest {
+
+    private static final long NEVER = 60_000;
+    private static final long AWAIT_MILLIS = 5_000;
+
+    @TempDir
+    Path indexDir;
+
+    private IndexService indexService;
+    private GroupCommitIndexer indexer;
+    private int nextId;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        indexService = new IndexService(indexDir.toString());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (indexer != null) {
+            indexer.close();
+        }
+        indexService.close();
+    }
+
+    @Test
+    public void testCommitsWhenBatchIsFull() throws Exception {
+        start(3, NEVER);
+
+        indexer.submit(papers(2));
+        Thread.sleep(300);
+        assertEquals(0, committedDocs(), "Below the batch size nothing should be committed yet");
+
+        indexer.submit(papers(1));
+        awaitCommitted(3);
+    }
+
+    @Test
+    public void testCommitsAfterInterval() throws Exception {
+        start(1000, 100);
+
+        indexer.submit(papers(2));
+        awaitCommitted(2);
+    }
+
+    @Test
+    public void testFlushCommitsEverythingQueued() throws Exception {
+        start(1000, NEVER);
+
+        assertEquals(5, indexer.submit(papers(5)));
+        indexer.flush();
+
+        assertEquals(5, committedDocs());
+        assertEquals(0, indexer.pending());
+    }
+
+    @Test
+    public void testCloseCommitsPending() throws Exception {
+        start(1000, NEVER);
+
+        indexer.submit(papers(4));
+        indexer.close();
+
+        assertEquals(4, committedDocs());
+        assertEquals(0, indexer.submit(papers(1)), "Closed indexer should not accept results");
+    }
+
+    @Test
+    public void testIndexedResultsSearchableBeforeCommit() throws Exception {
+        start(1000, NEVER);
+
+        indexer.submit(papers(3));
+        long deadline = System.currentTimeMillis() + AWAIT_MILLIS;
+        while (searchableDocs() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(3, searchableDocs(), "Near-real-time refresh should show uncommitted documents");
+        assertEquals(0, committedDocs());
+    }
+
+    @Test
+    public void testFlushBeforeStartReturns() throws Exception {
+        indexer = new GroupCommitIndexer(indexService, 10, NEVER);
+        indexer.flush();
+        assertEquals(0, committedDocs());
+    }
+
+    private void start(int commitBatchSize, long commitIntervalMillis) {
+        indexer = new GroupCommitIndexer(indexService, commitBatchSize, commitIntervalMillis);
+        indexer.start();
+    }
+
+    private List<SearchResult> papers(int count) {
+        List<SearchResult> papers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AcademicPaper paper = new AcademicPaper();
+            paper.setId("paper-" + nextId);
+            paper.setTitle("Group commit " + nextId);
+            paper.setSource(SourceType.ARXIV);
+            papers.add(paper);
+            nextId++;
+        }
+        return papers;
+    }
+
+    private void awaitCommitted(int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + AWAIT_MILLIS;
+        while (committedDocs() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, committedDocs());
+    }
+
+    private int committedDocs() throws IOException {
+        try (Directory directory = FSDirectory.open(indexDir);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.numDocs();
+        } catch (IndexNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private int searchableDocs() throws IOException {
+        IndexSearcher searcher = indexService.acquireSearcher();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            indexService.releaseSearcher(searcher);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.teamse1csdchcw.service.index;
+
+import com.example.teamse1csdchcw.domain.search.AcademicPaper;
+import com.example.teamse1csdchcw.domain.search.SearchQuery;
+import com.example.teamse1csdchcw.domain.search.SearchResult;
+import com.example.teamse1csdchcw.domain.source.SourceType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests cursor paging of LocalSearchService.searchPage: walking the pages of each sort order
+ * returns every hit exactly once, in the same order as one big page.
+ * Years and citation counts repeat on purpose, so ties have to be broken by the cursor,
+ * also when the doc ids change between pages.
+ */
+public class LocalSearchServicePagingTest {
+
+    private static final int PAPERS = 23;
+    private static final int PAGE_SIZE = 5;
+
+    @TempDir
+    Path indexDir;
+
+    private IndexService indexService;
+    private LocalSearchService localSearchService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        indexService = new IndexService(indexDir.toString());
+        localSearchService = new LocalSearchService(indexService);
+
+        indexService.indexResults(papers(0, PAPERS));
+        indexService.refresh();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        indexService.close();
+    }
+
+    @Test
+    public void testPagesCoverEveryHitOnce() throws IOException {
+        for (LocalSearchService.SortOrder order : LocalSearchService.SortOrder.values()) {
+            assertPagesCoverEveryHitOnce(order);
+        }
+    }
+
+    private void assertPagesCoverEveryHitOnce(LocalSearchService.SortOrder order) throws IOException {
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            LocalSearchService.Page page = localSearchService.searchPage(query(), order, cursor, PAGE_SIZE);
+            assertEquals(PAPERS, page.getTotalHits());
+            assertTrue(page.getResults().size() <= PAGE_SIZE);
+            page.getResults().forEach(result -> paged.add(result.getId()));
+            cursor = page.getCursor();
+            pages++;
+        } while (cursor != null && pages <= PAPERS);
+
+        assertEquals(PAPERS, paged.size(), order + ": every hit once across the pages");
+        assertEquals(PAPERS, new HashSet<>(paged).size(), order + ": no hit on two pages");
+        assertEquals((PAPERS + PAGE_SIZE - 1) / PAGE_SIZE, pages);
+
+        List<String> single = new ArrayList<>();
+        localSearchService.searchPage(query(), order, null, PAPERS).getResults()
+                .forEach(result -> single.add(result.getId()));
+        assertEquals(single, paged, order + ": paging must not change the order");
+    }
+
+    @Test
+    public void testYearOrderPutsMissingYearsLast() throws IOException {
+        LocalSearchService.Page page = localSearchService.searchPage(query(), LocalSearchService.SortOrder.YEAR,
+                null, PAPERS);
+
+        Integer previous = Integer.MAX_VALUE;
+        boolean seenMissing = false;
+        for (SearchResult result : page.getResults()) {
+            LocalDate date = ((AcademicPaper) result).getPublicationDate();
+            if (date == null) {
+                seenMissing = true;
+                continue;
+            }
+            assertFalse(seenMissing, "Papers without a year should come after all dated ones");
+            assertTrue(date.getYear() <= previous, "Years should be descending");
+            previous = date.getYear();
+        }
+    }
+
+    @Test
+    public void testLastPageHasNoCursor() throws IOException {
+        LocalSearchService.Page page = localSearchService.searchPage(query(), LocalSearchService.SortOrder.SCORE,
+                null, PAPERS + 1);
+
+        assertEquals(PAPERS, page.getResults().size());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testCursorOfAnotherOrderRejected() throws IOException {
+        String relevanceCursor = localSearchService.searchPage(query(), LocalSearchService.SortOrder.RELEVANCE,
+                null, PAGE_SIZE).getCursor();
+        assertNotNull(relevanceCursor);
+
+        assertThrows(IOException.class, () -> localSearchService.searchPage(query(),
+                LocalSearchService.SortOrder.YEAR, relevanceCursor, PAGE_SIZE));
+        assertThrows(IOException.class, () -> localSearchService.searchPage(query(),
+                LocalSearchService.SortOrder.YEAR, "not-a-cursor", PAGE_SIZE));
+    }
+
+    @Test
+    public void testFacetedPagesFollowTheSameCursor() throws IOException {
+        Set<String> paged = new HashSet<>();
+        String cursor = null;
+        do {
+            LocalSearchService.FacetedResults page = localSearchService.searchFaceted(query(), null,
+                    LocalSearchService.SortOrder.CITATIONS, cursor, PAGE_SIZE, 0);
+            page.getResults().forEach(result -> assertTrue(paged.add(result.getId())));
+            cursor = page.getCursor();
+        } while (cursor != null);
+
+        assertEquals(PAPERS, paged.size());
+    }
+
+    @Test
+    public void testCursorSurvivesMergesBetweenPages() throws IOException {
+        for (LocalSearchService.SortOrder order : LocalSearchService.SortOrder.values()) {
+            // an empty query scores every hit the same, so SCORE order is all ties
+            SearchQuery all = new SearchQuery("");
+            LocalSearchService.Page first = localSearchService.searchPage(all, order, null, PAGE_SIZE);
+            Set<String> seen = new HashSet<>();
+            first.getResults().forEach(result -> seen.add(result.getId()));
+
+            // re-indexing gives the first page new doc ids; more papers and a merge renumber the rest
+            List<SearchResult> firstPage = new ArrayList<>();
+            for (SearchResult result : first.getResults()) {
+                firstPage.add(paper(Integer.parseInt(result.getId().substring("paper-".length()))));
+            }
+            indexService.indexResults(firstPage);
+            indexService.indexResults(papers(PAPERS, PAPERS + 10));
+            indexService.optimize();
+            indexService.refresh();
+
+            String cursor = first.getCursor();
+            while (cursor != null) {
+                LocalSearchService.Page page = localSearchService.searchPage(all, order, cursor, PAGE_SIZE);
+                for (SearchResult result : page.getResults()) {
+                    assertTrue(seen.add(result.getId()), order + ": " + result.getId() + " came up twice");
+                }
+                cursor = page.getCursor();
+            }
+            for (int i = 0; i < PAPERS; i++) {
+                assertTrue(seen.contains("paper-" + i), order + ": paper-" + i + " was skipped");
+            }
+
+            indexService.deleteAll();
+            indexService.indexResults(papers(0, PAPERS));
+            indexService.refresh();
+        }
+    }
+
+    private static SearchQuery query() {
+        return new SearchQuery("learning");
+    }
+
+    private static List<SearchResult> papers(int from, int to) {
+        List<SearchResult> papers = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            papers.add(paper(i));
+        }
+        return papers;
+    }
+
+    private static AcademicPaper paper(int i) {
+        AcademicPaper paper = new AcademicPaper();
+        paper.setId("paper-" + i);
+        paper.setTitle("Deep learning part " + i);
+        paper.setUrl("https://example.org/" + i);
+        paper.setSource(SourceType.ARXIV);
+        paper.setAuthors("Author " + i);
+        paper.setRelevance((i % 4) / 4.0);
+        paper.setCitationCount(i * 7 % 11);
+        // every fifth paper has no date, so it sorts last by year
+        if (i % 5 != 0) {
+            paper.setPublicationDate(LocalDate.of(2000 + i % 3, 1, 1));
+        }
+        return paper;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.teamse1csdchcw.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the state transitions of CircuitBreaker: CLOSED to OPEN on errors or slow calls,
+ * OPEN to HALF_OPEN after the open period, and the probe closing or re-opening it.
+ */
+public class CircuitBreakerTest {
+
+    private static final long SLOW_MILLIS = 1000;
+    private static final long OPEN_MILLIS = 50;
+
+    // window of 4, opens at 50% errors or 50% slow calls
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, 0.5, SLOW_MILLIS, OPEN_MILLIS);
+
+    @Test
+    public void testStaysClosedBelowMinCalls() {
+        breaker.onFailure(10);
+        breaker.onFailure(10);
+        breaker.onFailure(10);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        breaker.onSuccess(10);
+        breaker.onSuccess(10);
+        breaker.onFailure(10);
+        breaker.onFailure(10);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "Open breaker should fail fast");
+        assertTrue(breaker.getRemainingOpenMillis() > 0);
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        breaker.onSuccess(10);
+        breaker.onSuccess(10);
+        breaker.onSuccess(SLOW_MILLIS + 1);
+        breaker.onSuccess(SLOW_MILLIS + 1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        breaker.onFailure(10);
+        breaker.onSuccess(10);
+        breaker.onSuccess(10);
+        breaker.onSuccess(10);
+        assertEquals(0.25, breaker.getFailureRate(), 0.001);
+
+        // pushes the failure out of the window of 4
+        breaker.onSuccess(10);
+        assertEquals(0.0, breaker.getFailureRate(), 0.001);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testProbeSuccessCloses() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire(), "Probe should be let through after the open period");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "Only one probe at a time");
+
+        breaker.onSuccess(10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.001, "Closing starts a fresh window");
+    }
+
+    @Test
+    public void testProbeFailureReopens() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure(10);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testIgnoredProbeAllowsAnother() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire(), "A cancelled probe should not block the next one");
+    }
+
+    @Test
+    public void testListenerSeesTransitions() throws InterruptedException {
+        List<String> transitions = new ArrayList<>();
+        breaker.setListener((from, to) -> transitions.add(from + "->" + to));
+
+        trip();
+        Thread.sleep(OPEN_MILLIS + 20);
+        breaker.tryAcquire();
+        breaker.onSuccess(10);
+
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    public void testResetCloses() {
+        trip();
+        breaker.reset();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.001);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(10);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.teamse1csdchcw.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that SingleFlight shares one call between identical callers and
+ * only cancels it once every caller has cancelled.
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight<String, List<String>> singleFlight = new SingleFlight<>(ArrayList::new);
+
+    @Test
+    public void testIdenticalCallsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<List<String>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<List<String>> first = singleFlight.execute("q", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<List<String>> second = singleFlight.execute("q", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+
+        assertEquals(1, calls.get(), "Second caller should join the call in flight");
+        assertEquals(1, singleFlight.size());
+
+        upstream.complete(List.of("a", "b"));
+        List<String> firstValue = first.get(1, TimeUnit.SECONDS);
+        List<String> secondValue = second.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("a", "b"), firstValue);
+        assertEquals(List.of("a", "b"), secondValue);
+        assertNotSame(firstValue, secondValue, "Each caller should get its own copy");
+
+        assertEquals(0, singleFlight.size(), "Completed calls should be forgotten");
+        singleFlight.execute("q", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(List.of());
+        });
+        assertEquals(2, calls.get(), "A call after completion should start fresh");
+    }
+
+    @Test
+    public void testDifferentKeysDoNotShare() {
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute("a", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        singleFlight.execute("b", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(2, singleFlight.size());
+    }
+
+    @Test
+    public void testCancelOnlyAffectsThatCaller() throws Exception {
+        CompletableFuture<List<String>> upstream = new CompletableFuture<>();
+        CompletableFuture<List<String>> first = singleFlight.execute("q", () -> upstream);
+        CompletableFuture<List<String>> second = singleFlight.execute("q", () -> upstream);
+
+        first.cancel(true);
+
+        assertTrue(first.isCancelled());
+        assertFalse(upstream.isCancelled(), "Shared call must keep running for the other caller");
+
+        upstream.complete(List.of("a"));
+        assertEquals(List.of("a"), second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSharedCallCancelledWhenAllCallersCancel() {
+        CompletableFuture<List<String>> upstream = new CompletableFuture<>();
+        CompletableFuture<List<String>> first = singleFlight.execute("q", () -> upstream);
+        CompletableFuture<List<String>> second = singleFlight.execute("q", () -> upstream);
+
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(upstream.isCancelled(), "Shared call should stop once nobody waits for it");
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void testFailingCallFailsEveryCaller() {
+        CompletableFuture<List<String>> upstream = new CompletableFuture<>();
+        CompletableFuture<List<String>> first = singleFlight.execute("q", () -> upstream);
+        CompletableFuture<List<String>> second = singleFlight.execute("q", () -> upstream);
+
+        upstream.completeExceptionally(new IllegalStateException("source down"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void testCallThatThrowsIsNotKept() {
+        CompletableFuture<List<String>> result = singleFlight.execute("q", () -> {
+            throw new IllegalStateException("no connector");
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, singleFlight.size());
+    }
+}
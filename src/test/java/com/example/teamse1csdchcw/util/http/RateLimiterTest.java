@@ -0,0 +1,97 @@
+package com.example.teamse1csdchcw.util.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the per-host token buckets of RateLimiter: burst, refill and pause.
+ * Waits are real time, so the checks leave room for scheduling jitter.
+ */
+public class RateLimiterTest {
+
+    private static final String HOST = "api.example.org";
+
+    @Test
+    public void testBurstGoesOutAtOnce() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(HOST, 1, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquireAsync(HOST).isDone(), "Request " + i + " is within the burst");
+        }
+        assertFalse(limiter.acquireAsync(HOST).isDone(), "Burst used up, next request has to wait");
+    }
+
+    @Test
+    public void testTokensRefillAtConfiguredRate() throws Exception {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(HOST, 10, 1);
+        assertTrue(limiter.acquireAsync(HOST).isDone());
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> next = limiter.acquireAsync(HOST);
+        assertFalse(next.isDone());
+        next.get(2, TimeUnit.SECONDS);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // one token every 100 ms
+        assertTrue(waitedMillis >= 80, "Waited only " + waitedMillis + " ms");
+    }
+
+    @Test
+    public void testUnconfiguredHostUsesMinInterval() {
+        RateLimiter limiter = new RateLimiter(Duration.ofMillis(500));
+
+        assertEquals(2.0, limiter.getPermitsPerSecond(HOST), 0.001);
+        assertTrue(limiter.acquireAsync(HOST).isDone());
+        assertFalse(limiter.acquireAsync(HOST).isDone());
+        assertTrue(limiter.acquireAsync("other.example.org").isDone(), "Hosts are limited separately");
+    }
+
+    @Test
+    public void testPauseHoldsBackRequests() throws Exception {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(HOST, 1000, 5);
+
+        long start = System.nanoTime();
+        limiter.pause(HOST, Duration.ofMillis(200));
+        CompletableFuture<Void> next = limiter.acquireAsync(HOST);
+        assertFalse(next.isDone(), "Burst must not bypass the pause");
+        next.get(2, TimeUnit.SECONDS);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis >= 180, "Waited only " + waitedMillis + " ms");
+        assertEquals(1000, limiter.getPermitsPerSecond(HOST), 0.001, "Pause keeps the configured rate");
+    }
+
+    @Test
+    public void testZeroPauseIsIgnored() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(HOST, 1, 1);
+
+        limiter.pause(HOST, Duration.ZERO);
+        assertTrue(limiter.acquireAsync(HOST).isDone());
+    }
+
+    @Test
+    public void testResetRefillsBucket() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.configure(HOST, 1, 1);
+        limiter.acquireAsync(HOST);
+
+        limiter.reset(HOST);
+        assertTrue(limiter.acquireAsync(HOST).isDone());
+    }
+
+    @Test
+    public void testInvalidConfigurationRejected() {
+        RateLimiter limiter = new RateLimiter();
+        assertThrows(IllegalArgumentException.class, () -> limiter.configure(HOST, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> limiter.configure(HOST, 1, 0));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.teamse1csdchcw.util.http;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that RetryAfterInterceptor fails fast without retries, retries within its
+ * wait budget with them, and pauses the host in the shared RateLimiter either way.
+ */
+public class RetryAfterInterceptorTest {
+
+    private static final Request REQUEST = new Request.Builder().url("https://api.example.org/works").build();
+    private static final String HOST = "api.example.org";
+
+    private RateLimiter rateLimiter;
+    private Interceptor.Chain chain;
+
+    @BeforeEach
+    public void setUp() {
+        rateLimiter = new RateLimiter();
+        rateLimiter.configure(HOST, 1000, 10);
+        chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(REQUEST);
+        when(chain.call()).thenReturn(mock(Call.class));
+    }
+
+    @Test
+    public void testFailFastReturnsAndPausesHost() throws IOException {
+        when(chain.proceed(REQUEST)).thenReturn(response(429, "5"));
+
+        Response response = new RetryAfterInterceptor(rateLimiter, false).intercept(chain);
+
+        assertEquals(429, response.code());
+        verify(chain, times(1)).proceed(REQUEST);
+        assertFalse(rateLimiter.acquireAsync(HOST).isDone(), "Next call to the host should wait out the pause");
+    }
+
+    @Test
+    public void testRetriesUntilSuccess() throws IOException {
+        when(chain.proceed(REQUEST)).thenReturn(response(503, "0"), response(200, null));
+
+        Response response = new RetryAfterInterceptor(rateLimiter, true).intercept(chain);
+
+        assertEquals(200, response.code());
+        verify(chain, times(2)).proceed(REQUEST);
+    }
+
+    @Test
+    public void testGivesUpWhenWaitExceedsBudget() throws IOException {
+        when(chain.proceed(REQUEST)).thenReturn(response(429, "120"));
+
+        long start = System.nanoTime();
+        Response response = new RetryAfterInterceptor(rateLimiter, true).intercept(chain);
+
+        assertEquals(429, response.code());
+        verify(chain, times(1)).proceed(REQUEST);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos(), "Should not wait for the retry");
+    }
+
+    @Test
+    public void testInterruptStopsTheWait() throws IOException {
+        when(chain.proceed(REQUEST)).thenReturn(response(429, "10"));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(IOException.class, () -> new RetryAfterInterceptor(rateLimiter, true).intercept(chain));
+            assertTrue(Thread.interrupted(), "Interrupt flag should be kept");
+        } finally {
+            Thread.interrupted();
+        }
+        verify(chain, times(1)).proceed(REQUEST);
+    }
+
+    @Test
+    public void testRetryAfterHttpDate() {
+        Response response = response(429, "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertEquals(Duration.ZERO, RetryAfterInterceptor.retryAfter(response).orElseThrow(),
+                "A date in the past means no wait");
+        assertTrue(RetryAfterInterceptor.retryAfter(response(429, "soon")).isEmpty());
+    }
+
+    private static Response response(int code, String retryAfter) {
+        Response.Builder builder = new Response.Builder()
+                .request(REQUEST)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code)
+                .body(ResponseBody.create("", null));
+        if (retryAfter != null) {
+            builder.header("Retry-After", retryAfter);
+        }
+        return builder.build();
+    }
+}